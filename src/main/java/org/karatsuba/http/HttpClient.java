@@ -18,19 +18,25 @@ package org.karatsuba.http;
 |*                                                                                  *|
 \* -------------------------------------------------------------------------------- */
 
-import com.alibaba.fastjson.JSON;
 import org.karatsuba.collection.Maps;
 import org.karatsuba.exception.HttpRequestException;
 import org.karatsuba.string.StringUtils;
 import org.karatsuba.utils.Assert;
 import org.karatsuba.utils.Captor;
 import org.karatsuba.utils.Optional;
+import org.karatsuba.io.ByteBuffer;
 import org.karatsuba.io.MutableFile;
+import org.karatsuba.thread.ConcurrencyLimiter;
 import okhttp3.*;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 import static org.karatsuba.string.StringUtils.strcheckin;
 import static org.karatsuba.utils.Transformer.atos;
@@ -284,7 +290,10 @@ public class HttpClient {
     /**
      * #brief: 设置请求体
      *
-     * <p>该方法用于设置请求体，可以为任意对象，实际请求时会将其转换为 JSON 格式。
+     * <p>该方法用于设置请求体，可以为任意对象，实际请求时会将其转换为 JSON 格式。对象在创建请求时
+     * 直接序列化为 UTF-8 字节（不经过中间字符串），内存中保存一份完整的 JSON，请求体长度确定。
+     * `MutableFile`、`ByteBuffer`、`InputStream` 作为二进制数据流式上传，字节数组直接作为请求内容，
+     * 也可以传入 {@link RequestBodies} 创建的请求体。
      *
      * @param object 请求体对象
      * @return 当前 `HttpClient` 实例，以支持链式调用
@@ -389,13 +398,94 @@ public class HttpClient {
      * @throws HttpRequestException 如果请求发送失败
      */
     public org.karatsuba.http.Response newCall(Callback callback) {
-        try (okhttp3.Response response = newCall0(callback)) {
+        if (callback != null) {
+            Captor.call(() -> newCall0(callback));
+            return null;
+        }
+
+        try (okhttp3.Response response = newCall0(null)) {
             return newCallResponse(response);
         } catch (IOException e) {
             throw new HttpRequestException(e);
         }
     }
 
+    /**
+     * #brief: 异步发送 HTTP 请求
+     *
+     * <p>请求通过共享的调度器异步执行，受 {@link RequestConfigure} 中并发数和等待队列的限制。
+     * 返回的 `CompletableFuture` 在响应读取完成后完成，请求失败或者响应状态码不是 2xx 时以异常
+     * 完成。取消返回的 `CompletableFuture` 会同时取消 HTTP 请求。
+     *
+     * @return 响应对象 `Response` 的 `CompletableFuture`
+     */
+    public CompletableFuture<org.karatsuba.http.Response> newCallAsync() {
+        CompletableFuture<org.karatsuba.http.Response> future = new CompletableFuture<>();
+        Call call = request(HttpClientPool.client(configure));
+        HttpClientPool.enqueue(configure, call, new okhttp3.Callback() {
+            @Override
+            public void onFailure(Call call, IOException e) {
+                future.completeExceptionally(new HttpRequestException(e));
+            }
+
+            @Override
+            public void onResponse(Call call, okhttp3.Response response) {
+                try {
+                    future.complete(newCallResponse(response));
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                } finally {
+                    response.close();
+                }
+            }
+        });
+        future.whenComplete((response, e) -> {
+            if (future.isCancelled())
+                call.cancel();
+        });
+        return future;
+    }
+
+    /**
+     * #brief: 以最多 {@code maxConcurrency} 个并发执行所有请求
+     *
+     * <p>请求异步发起，同时进行中的请求不超过 {@code maxConcurrency} 个，所以总耗时接近最慢的几批请求
+     * 的耗时，而不是所有请求耗时之和。每个请求仍然使用自己的 {@link RequestConfigure} 和共享的调度器，
+     * {@link RequestConfigure#getMaxRequests()} 和 {@link RequestConfigure#getMaxRequestsPerHost()}
+     * 比 {@code maxConcurrency} 小时以调度器的限制为准，超出的请求按配置的等待队列和拒绝策略排队。
+     * 返回的结果顺序和 {@code clients} 一致。
+     *
+     * @param clients 需要执行的请求
+     * @param maxConcurrency 最大并发数量
+     * @return 所有请求的响应，任意一个请求失败时以该异常完成（其他请求仍会继续执行）
+     */
+    public static CompletableFuture<List<org.karatsuba.http.Response>> executeAllAsync(List<HttpClient> clients,
+                                                                                        int maxConcurrency) {
+        List<Supplier<CompletableFuture<org.karatsuba.http.Response>>> tasks = new ArrayList<>(clients.size());
+        for (HttpClient client : clients)
+            tasks.add(client::newCallAsync);
+        return ConcurrencyLimiter.all(tasks, maxConcurrency);
+    }
+
+    /**
+     * #brief: 以最多 {@code maxConcurrency} 个并发执行所有请求，等待全部完成
+     *
+     * <p>参考 {@link #executeAllAsync(List, int)}。
+     *
+     * @param clients 需要执行的请求
+     * @param maxConcurrency 最大并发数量
+     * @return 所有请求的响应，顺序和 {@code clients} 一致
+     * @throws HttpRequestException 任意一个请求失败时抛出
+     */
+    public static List<org.karatsuba.http.Response> executeAll(List<HttpClient> clients, int maxConcurrency) {
+        try {
+            return executeAllAsync(clients, maxConcurrency).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException ? (RuntimeException) cause : new HttpRequestException(cause);
+        }
+    }
+
 
     /**
      * #brief: 发送 HTTP 请求
@@ -408,28 +498,13 @@ public class HttpClient {
      * @throws HttpRequestException 如果请求发送失败
      */
     private okhttp3.Response newCall0(Object callback) throws IOException {
-        /* init url. */
-        if (queryArgumentsBuilder != null)
-            url = queryArgumentsBuilder.argConcatBuild(url);
-
-        OkHttpClient.Builder clientBuilder = new OkHttpClient().newBuilder();
-        clientBuilder.connectTimeout(configure.getConnectTimeout(), TimeUnit.MILLISECONDS);
-        clientBuilder.readTimeout(configure.getReadTimeout(), TimeUnit.MILLISECONDS);
-
-        if (configure.isSslVerificationDisable()) {
-            clientBuilder.sslSocketFactory(SSLSocketClient.getSSLSocketFactory(), SSLSocketClient.getX509TrustManager());
-            clientBuilder.hostnameVerifier(SSLSocketClient.getHostnameVerifier());
-        }
-
-        OkHttpClient client = clientBuilder.build();
-
         /* call */
-        Call call = request(client);
+        Call call = prepareCall();
 
         /* async */
         if (callback != null) {
             if (callback instanceof Callback)
-                async(call, (StreamCallback) callback);
+                async(call, (Callback) callback);
 
             if (callback instanceof StreamCallback)
                 async(call, (StreamCallback) callback);
@@ -444,13 +519,17 @@ public class HttpClient {
     //                         private                             //
     // /////////////////////////////////////////////////////////// //
 
+    /**
+     * @return 使用共享的客户端创建请求，连接和线程池在请求之间复用
+     */
+    private Call prepareCall() {
+        return request(HttpClientPool.client(configure));
+    }
+
     /**
      * @return 根据请求体类型构建正确的请求主体。
      */
     private RequestBody getRequestBody() {
-        /* request body */
-        RequestBody requestBody = null;
-
         /* is MultipartBody. */
         if (object instanceof MultipartBody) {
             MultipartBody multipartBody = (MultipartBody) object;
@@ -462,24 +541,21 @@ public class HttpClient {
             for (Map.Entry<String, Object> entry : multipartBody.entrySet()) {
                 Object value = entry.getValue();
                 if (value instanceof MutableFile) {
+                    /* 文件从磁盘流式读取，媒体类型根据文件检测 */
                     MutableFile mutableFile = (MutableFile) value;
-                    builder.addFormDataPart(entry.getKey(), mutableFile.getName(),
-                            RequestBody.create(mutableFile, MediaType.parse("text/plain")));
+                    builder.addFormDataPart(entry.getKey(), mutableFile.getName(), RequestBodies.of(mutableFile));
+                } else if (value instanceof InputStream || value instanceof ByteBuffer || value instanceof byte[]) {
+                    builder.addFormDataPart(entry.getKey(), entry.getKey(), RequestBodies.of(value));
                 } else {
                     builder.addFormDataPart(entry.getKey(), atos(value));
                 }
             }
 
-            requestBody = builder.build();
-        }
-
-        /* default application/json raw body. */
-        if (requestBody == null) {
-            requestBody = RequestBody.create(MediaType.parse("application/json; charset=utf-8"),
-                    object instanceof String ? (String) object : JSON.toJSONString(object));
+            return builder.build();
         }
 
-        return requestBody;
+        /* 默认 application/json，非字符串对象序列化为一份 UTF-8 字节，请求体长度确定。 */
+        return RequestBodies.of(object);
     }
 
     /**
@@ -487,8 +563,9 @@ public class HttpClient {
      */
     private Call request(OkHttpClient client) {
         /* create request builder. */
+        /* 查询参数拼接到新的地址上，不修改 url 字段，同一个请求可以多次发起 */
         Request.Builder requestBuilder = new Request.Builder()
-                .url(url);
+                .url(queryArgumentsBuilder != null ? queryArgumentsBuilder.argConcatBuild(url) : url);
 
         /* pick method */
         switch (method) {
@@ -528,13 +605,13 @@ public class HttpClient {
         org.karatsuba.http.Response retval = new org.karatsuba.http.Response(okResponse.code(), okResponse.headers(), okResponse.body());
 
         Assert.isTrue(okResponse.isSuccessful(), "HTTP请求出错（%s）\n    - URL：%s \n    - Request Body：%s \n    - Message: %s",
-                okResponse.code(), url, JSON.toJSONString(object), retval);
+                okResponse.code(), url, RequestBodies.describe(object), retval);
 
         return retval;
     }
 
     private void async(Call call, Callback callback) {
-        call.enqueue(new okhttp3.Callback() {
+        HttpClientPool.enqueue(configure, call, new okhttp3.Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
                 callback.onFailure(e);
@@ -549,7 +626,7 @@ public class HttpClient {
 
 
     private void async(Call call, StreamCallback callback) {
-        call.enqueue(new okhttp3.Callback() {
+        HttpClientPool.enqueue(configure, call, new okhttp3.Callback() {
             @Override
             public void onFailure(Call call, IOException e) {
                 callback.onFailure(e);
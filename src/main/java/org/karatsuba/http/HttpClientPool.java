@@ -0,0 +1,314 @@
+package org.karatsuba.http;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Response;
+import org.karatsuba.exception.HttpRequestException;
+import org.karatsuba.string.StringUtils;
+import org.karatsuba.thread.ThreadPool;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * `HttpClientPool` 管理 {@link HttpClient} 共享的 {@link OkHttpClient} 实例。
+ *
+ * <p>每个 {@link OkHttpClient} 都有自己的连接池和调度线程池，如果每次请求都创建一个新的实例，
+ * 连接无法复用，每次请求都要重新建立 TCP 连接和 TLS 握手。这个类按照影响客户端行为的配置项
+ * （超时时间、SSL 验证、连接池大小和空闲连接存活时间）缓存客户端，所有客户端都从同一个根客户端
+ * 通过 {@link OkHttpClient#newBuilder()} 派生，共享同一个调度器和线程池，连接池参数相同的客户端
+ * 共享同一个连接池。
+ *
+ * <p>异步请求的并发数由 OkHttp 的 {@link Dispatcher} 控制，并发限制（{@link RequestConfigure#getMaxRequests()}、
+ * {@link RequestConfigure#getMaxRequestsPerHost()}）相同的客户端共享同一个调度器，所有调度器共享根客户端的
+ * 线程池。调度器自带的等待队列没有上限，{@link #enqueue(RequestConfigure, Call, Callback)} 在提交前检查
+ * 队列长度，超过 {@link RequestConfigure#getMaxQueuedRequests()} 时按 {@link RequestConfigure.RejectionPolicy}
+ * 处理，在队列中等待超过 {@link RequestConfigure#getQueueTimeout()} 的请求会被取消。同步请求在调用线程中
+ * 执行，不受调度器限制。
+ *
+ * <h2>使用示例</h2>
+ * <pre>
+ *     RequestConfigure configure = new RequestConfigure()
+ *             .setMaxIdleConnections(32)
+ *             .setKeepAliveDuration(TimeUnit.MINUTES.toMillis(1));
+ *
+ *     HttpClient.get("http://127.0.0.1:8001/ping", configure);
+ *     System.out.println(HttpClientPool.connectionCount());
+ * </pre>
+ *
+ * @author Red Gogh
+ * @see RequestConfigure
+ */
+public class HttpClientPool {
+
+    /** 根客户端，所有客户端都从它派生 */
+    private static final OkHttpClient ROOT = new OkHttpClient();
+
+    /** 配置 -> 客户端 */
+    private static final Map<String, OkHttpClient> CLIENTS = new ConcurrentHashMap<>();
+
+    /** 连接池参数 -> 连接池 */
+    private static final Map<String, ConnectionPool> CONNECTION_POOLS = new ConcurrentHashMap<>();
+
+    /** 并发限制 -> 调度器 */
+    private static final Map<String, Dispatcher> DISPATCHERS = new ConcurrentHashMap<>();
+
+    /** 因为等待队列已满被拒绝的请求数 */
+    private static final LongAdder REJECTED = new LongAdder();
+
+    /** 在队列中等待超时被取消的请求数 */
+    private static final LongAdder TIMED_OUT = new LongAdder();
+
+    private HttpClientPool() {
+    }
+
+    /**
+     * #brief: 获取和请求配置对应的共享客户端
+     *
+     * <p>配置项相同的请求会拿到同一个客户端实例，第一次使用某组配置时创建。请求头不影响
+     * 客户端，所以不作为缓存的键。
+     *
+     * @param configure 请求配置
+     * @return 共享的客户端
+     */
+    public static OkHttpClient client(RequestConfigure configure) {
+        String key = StringUtils.strwfmt("%s:%s:%s:%s:%s:%s:%s", configure.getConnectTimeout(), configure.getReadTimeout(),
+                configure.isSslVerificationDisable(), configure.getMaxIdleConnections(), configure.getKeepAliveDuration(),
+                configure.getMaxRequests(), configure.getMaxRequestsPerHost());
+        return CLIENTS.computeIfAbsent(key, k -> create(configure));
+    }
+
+    private static OkHttpClient create(RequestConfigure configure) {
+        OkHttpClient.Builder builder = ROOT.newBuilder()
+                .connectTimeout(configure.getConnectTimeout(), TimeUnit.MILLISECONDS)
+                .readTimeout(configure.getReadTimeout(), TimeUnit.MILLISECONDS)
+                .connectionPool(connectionPool(configure.getMaxIdleConnections(), configure.getKeepAliveDuration()))
+                .dispatcher(dispatcher(configure.getMaxRequests(), configure.getMaxRequestsPerHost()));
+
+        /* 连接池按地址（包括 SSLSocketFactory 和 HostnameVerifier）匹配连接，禁用 SSL 验证的
+         * 客户端不会复用到验证过证书的连接，反之亦然。 */
+        if (configure.isSslVerificationDisable()) {
+            builder.sslSocketFactory(SSLSocketClient.getSSLSocketFactory(), SSLSocketClient.getX509TrustManager());
+            builder.hostnameVerifier(SSLSocketClient.getHostnameVerifier());
+        }
+
+        return builder.build();
+    }
+
+    private static ConnectionPool connectionPool(int maxIdleConnections, long keepAliveDuration) {
+        String key = maxIdleConnections + ":" + keepAliveDuration;
+        return CONNECTION_POOLS.computeIfAbsent(key,
+                k -> new ConnectionPool(maxIdleConnections, keepAliveDuration, TimeUnit.MILLISECONDS));
+    }
+
+    private static Dispatcher dispatcher(int maxRequests, int maxRequestsPerHost) {
+        String key = maxRequests + ":" + maxRequestsPerHost;
+        return DISPATCHERS.computeIfAbsent(key, k -> {
+            Dispatcher dispatcher = new Dispatcher(ROOT.dispatcher().executorService());
+            dispatcher.setMaxRequests(maxRequests);
+            dispatcher.setMaxRequestsPerHost(maxRequestsPerHost);
+            return dispatcher;
+        });
+    }
+
+    /**
+     * #brief: 按照请求配置的并发限制提交异步请求
+     *
+     * <p>等待队列已满并且调度器没有空闲的执行名额（请求必须排队）时，
+     * {@link RequestConfigure.RejectionPolicy#ABORT} 直接以失败回调通知调用方，
+     * {@link RequestConfigure.RejectionPolicy#CALLER_RUNS} 在当前线程中同步执行请求。所以
+     * {@code maxQueuedRequests} 为 0 时只拒绝需要排队的请求。队列长度的检查和提交不是原子的，
+     * 并发提交时队列长度可能会短暂地超过上限几个请求。
+     *
+     * <p>在队列中等待超过 {@code queueTimeout} 的请求会在超时的时候立即以 {@link InterruptedIOException}
+     * 失败，不受拒绝策略影响；已经开始执行的请求不会因为等待超时被取消。OkHttp 不支持从等待队列中
+     * 移除请求，取消的请求在出队之前仍然占用等待队列的名额。
+     *
+     * @param configure 请求配置
+     * @param call      通过 {@link #client(RequestConfigure)} 返回的客户端创建的请求
+     * @param callback  请求回调
+     */
+    static void enqueue(RequestConfigure configure, Call call, Callback callback) {
+        Dispatcher dispatcher = dispatcher(configure.getMaxRequests(), configure.getMaxRequestsPerHost());
+        if (dispatcher.queuedCallsCount() >= configure.getMaxQueuedRequests() && saturated(dispatcher, call)) {
+            REJECTED.increment();
+            if (configure.getRejectionPolicy() == RequestConfigure.RejectionPolicy.CALLER_RUNS) {
+                execute(call, callback);
+            } else {
+                callback.onFailure(call, new IOException(StringUtils.strwfmt(
+                        "Request rejected, wait queue is full (%s).", configure.getMaxQueuedRequests())));
+            }
+            return;
+        }
+
+        long queueTimeout = configure.getQueueTimeout();
+        if (queueTimeout <= 0) {
+            call.enqueue(callback);
+            return;
+        }
+
+        /* 超时后如果请求仍然在等待队列中就取消它，并且立即回调失败。OkHttp 不会把取消的请求从
+         * 等待队列中移除，它要等到有空闲的执行名额出队时才会失败，这次失败回调由 timedOut 忽略。 */
+        AtomicBoolean timedOut = new AtomicBoolean();
+        call.enqueue(new Callback() {
+            @Override
+            public void onFailure(Call c, IOException e) {
+                if (!timedOut.get())
+                    callback.onFailure(c, e);
+            }
+
+            @Override
+            public void onResponse(Call c, Response response) throws IOException {
+                if (timedOut.get()) {
+                    response.close();
+                    return;
+                }
+                callback.onResponse(c, response);
+            }
+        });
+        ThreadPool.schedule(() -> {
+            /* OkHttp 的调度器在自身的锁内把请求从等待队列移到执行队列，持有同一把锁检查和取消，
+             * 请求不会在检查之后、取消之前开始执行。 */
+            synchronized (dispatcher) {
+                if (!dispatcher.queuedCalls().contains(call))
+                    return;
+                timedOut.set(true);
+                TIMED_OUT.increment();
+                call.cancel();
+            }
+            /* 在锁外回调，避免回调中提交新的请求时持有调度器的锁 */
+            callback.onFailure(call, new InterruptedIOException(
+                    StringUtils.strwfmt("Request waited in queue more than %sms.", queueTimeout)));
+        }, queueTimeout, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return 调度器是否已经没有空闲的执行名额，新提交的请求需要在队列中等待
+     */
+    private static boolean saturated(Dispatcher dispatcher, Call call) {
+        if (dispatcher.queuedCallsCount() > 0 || dispatcher.runningCallsCount() >= dispatcher.getMaxRequests())
+            return true;
+        String host = call.request().url().host();
+        int running = 0;
+        for (Call runningCall : dispatcher.runningCalls()) {
+            if (host.equals(runningCall.request().url().host()))
+                running++;
+        }
+        return running >= dispatcher.getMaxRequestsPerHost();
+    }
+
+    /** 在当前线程中同步执行请求 */
+    private static void execute(Call call, Callback callback) {
+        Response response;
+        try {
+            response = call.execute();
+        } catch (IOException e) {
+            callback.onFailure(call, e);
+            return;
+        }
+        try {
+            callback.onResponse(call, response);
+        } catch (IOException e) {
+            /* 已经回调过 onResponse，不能再回调 onFailure */
+            throw new HttpRequestException(e);
+        }
+    }
+
+    /**
+     * @return 已经创建的客户端数量
+     */
+    public static int clientCount() {
+        return CLIENTS.size();
+    }
+
+    /**
+     * @return 所有连接池中的连接总数，包括正在使用的连接
+     */
+    public static int connectionCount() {
+        int count = 0;
+        for (ConnectionPool pool : CONNECTION_POOLS.values())
+            count += pool.connectionCount();
+        return count;
+    }
+
+    /**
+     * @return 所有连接池中空闲的连接数
+     */
+    public static int idleConnectionCount() {
+        int count = 0;
+        for (ConnectionPool pool : CONNECTION_POOLS.values())
+            count += pool.idleConnectionCount();
+        return count;
+    }
+
+    /**
+     * @return 所有调度器中等待执行的异步请求数
+     */
+    public static int queuedCallsCount() {
+        int count = 0;
+        for (Dispatcher dispatcher : DISPATCHERS.values())
+            count += dispatcher.queuedCallsCount();
+        return count;
+    }
+
+    /**
+     * @return 所有调度器中正在执行的请求数
+     */
+    public static int runningCallsCount() {
+        int count = 0;
+        for (Dispatcher dispatcher : DISPATCHERS.values())
+            count += dispatcher.runningCallsCount();
+        return count;
+    }
+
+    /**
+     * @return 因为等待队列已满被拒绝的请求数（包括 {@code CALLER_RUNS} 策略下改为同步执行的请求）
+     */
+    public static long rejectedCount() {
+        return REJECTED.sum();
+    }
+
+    /**
+     * @return 在等待队列中超时被取消的请求数
+     */
+    public static long timedOutCount() {
+        return TIMED_OUT.sum();
+    }
+
+    /**
+     * 关闭所有连接池中的空闲连接，例如在下游服务切换地址以后调用。
+     */
+    public static void evictAll() {
+        for (ConnectionPool pool : CONNECTION_POOLS.values())
+            pool.evictAll();
+    }
+
+}
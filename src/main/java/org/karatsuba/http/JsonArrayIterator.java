@@ -0,0 +1,226 @@
+package org.karatsuba.http;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import com.alibaba.fastjson.JSON;
+import org.karatsuba.exception.HttpRequestException;
+import org.karatsuba.io.IOUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * `JsonArrayIterator` 逐个读取顶层 JSON 数组中的元素。
+ *
+ * <p>输入通过一个固定大小的缓冲区分块读取，迭代器只负责按括号层级和字符串边界切分出顶层数组
+ * 的每一个元素，再把单个元素交给 fastjson 反序列化为指定的类型。任何时候内存中只有读取缓冲区
+ * 和当前这一个元素，不会把整个响应体读入内存，适合读取几百 MB 的列表接口响应。数组读取完毕、
+ * 读取出错或者调用 {@link #close()} 时会关闭输入流和关联的响应。
+ *
+ * <h2>使用示例</h2>
+ * <pre>
+ *     try (StreamResponse response = HttpClient.open("GET", url).newStreamCall();
+ *          JsonArrayIterator&lt;User&gt; users = response.iterate(User.class)) {
+ *         while (users.hasNext())
+ *             save(users.next());
+ *     }
+ * </pre>
+ *
+ * @author Red Gogh
+ * @see StreamResponse#iterate(Class)
+ */
+public class JsonArrayIterator<T> implements Iterator<T>, Closeable {
+
+    /** 读取缓冲区大小（字符） */
+    private static final int BUFFER_SIZE = 8 * IOUtils.KB;
+
+    private final Reader input;
+
+    private final Class<T> type;
+
+    /** 读取完毕时一起关闭的资源，可以为 null */
+    private final Closeable resource;
+
+    private final char[] buf = new char[BUFFER_SIZE];
+
+    private int pos;
+
+    private int limit;
+
+    /** 当前元素的 JSON 文本 */
+    private final StringBuilder element = new StringBuilder();
+
+    /** 是否已经切分出一个还没有被 {@link #next()} 取走的元素 */
+    private boolean pending;
+
+    /** 是否已经读取过元素，之后的元素前面必须有逗号 */
+    private boolean started;
+
+    private boolean finished;
+
+    JsonArrayIterator(Reader input, Class<T> type, Closeable resource) {
+        this.input = input;
+        this.type = type;
+        this.resource = resource;
+        try {
+            int c = peek();
+            if (c != '[')
+                throw new HttpRequestException("响应体不是 JSON 数组，起始字符：%s", c < 0 ? "EOF" : String.valueOf((char) c));
+            pos++;
+        } catch (IOException e) {
+            close();
+            throw new HttpRequestException(e);
+        } catch (RuntimeException e) {
+            /* 例如接口返回了 JSON 错误对象，关闭响应，避免连接泄漏 */
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished)
+            return false;
+        if (pending)
+            return true;
+        try {
+            int c = peek();
+            if (c == ']') {
+                pos++;
+                close();
+                return false;
+            }
+            if (started) {
+                if (c != ',')
+                    throw new HttpRequestException("JSON 数组格式错误，元素之间缺少逗号。");
+                pos++;
+            }
+            readElement();
+            pending = true;
+            started = true;
+            return true;
+        } catch (IOException e) {
+            close();
+            throw new HttpRequestException(e);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        pending = false;
+        try {
+            return JSON.parseObject(element.toString(), type);
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * 跳过空白字符（包括 BOM），返回下一个字符但不消费它，输入结束时返回 -1。
+     */
+    private int peek() throws IOException {
+        for (;;) {
+            if (pos == limit && !fill())
+                return -1;
+            char c = buf[pos];
+            if (!Character.isWhitespace(c) && c != '\uFEFF')
+                return c;
+            pos++;
+        }
+    }
+
+    /**
+     * 读取一个完整的元素到 {@link #element} 中，读取到顶层的逗号或者数组结束符为止，结束符不会被
+     * 消费。字符串中的括号和逗号不参与层级计算。
+     */
+    private void readElement() throws IOException {
+        element.setLength(0);
+        int depth = 0;
+        boolean inString = false;
+        boolean escape = false;
+        /* 是否读到过非空白字符，用来发现 "[1,,2]" 这样的空元素，不需要再拷贝一次元素 */
+        boolean content = false;
+        while (pos < limit || fill()) {
+            int start = pos;
+            while (pos < limit) {
+                char c = buf[pos];
+                if (inString) {
+                    if (escape)
+                        escape = false;
+                    else if (c == '\\')
+                        escape = true;
+                    else if (c == '"')
+                        inString = false;
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if (c == '}' || c == ']' || c == ',') {
+                    if (depth == 0) {
+                        if (!content)
+                            throw new HttpRequestException("JSON 数组格式错误，缺少元素。");
+                        element.append(buf, start, pos - start);
+                        return;
+                    }
+                    if (c != ',')
+                        depth--;
+                }
+                if (c > ' ')
+                    content = true;
+                pos++;
+            }
+            element.append(buf, start, pos - start);
+        }
+        throw new HttpRequestException("JSON 数组不完整，输入提前结束。");
+    }
+
+    private boolean fill() throws IOException {
+        int n;
+        while ((n = input.read(buf, 0, buf.length)) == 0) {
+            /* Reader 约定不会返回 0，防御性地继续读取 */
+        }
+        if (n < 0)
+            return false;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (finished)
+            return;
+        finished = true;
+        pending = false;
+        IOUtils.closeQuietly(input);
+        IOUtils.closeQuietly(resource);
+    }
+
+}
@@ -0,0 +1,370 @@
+package org.karatsuba.http;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import com.alibaba.fastjson.JSON;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+import org.karatsuba.io.ByteBuffer;
+import org.karatsuba.io.ChunkedByteBuffer;
+import org.karatsuba.io.CompositeByteBuffer;
+import org.karatsuba.io.HeapByteBuffer;
+import org.karatsuba.io.IOUtils;
+import org.karatsuba.io.MutableFile;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+
+import static org.karatsuba.string.StringUtils.strwfmt;
+
+/**
+ * `RequestBodies` 用于创建流式写出的请求体。
+ *
+ * <p>文件、{@link ByteBuffer} 和 {@link InputStream} 请求体在 OkHttp 发送请求时才直接写入连接的
+ * Okio 输出，不会先把内容复制成字节数组，适合批量上传等体积很大的 POST/PUT 请求：
+ * <ul>
+ *     <li>普通对象通过 fastjson 直接序列化为 UTF-8 字节（不经过中间字符串），完整的 JSON 会保存在
+ *     内存中，请求体长度确定。</li>
+ *     <li>文件从磁盘流式读取，长度为文件大小，媒体类型根据文件内容和扩展名检测。</li>
+ *     <li>{@link ByteBuffer} 写出当前可读的数据，不会改变缓冲区的读写索引，可以重复发送。</li>
+ *     <li>{@link InputStream} 只能读取一次，请求体为一次性的，OkHttp 不会重试这类请求。</li>
+ * </ul>
+ *
+ * <h2>使用示例</h2>
+ * <pre>
+ *     HttpClient.open("PUT", url)
+ *             .addRequestBody(RequestBodies.of(input, RequestBodies.OCTET_STREAM, length))
+ *             .newCall();
+ * </pre>
+ *
+ * @author Red Gogh
+ * @see HttpClient#addRequestBody(Object)
+ */
+public final class RequestBodies {
+
+    /**
+     * JSON 请求体的媒体类型
+     */
+    public static final MediaType APPLICATION_JSON = MediaType.parse("application/json; charset=utf-8");
+
+    /**
+     * 二进制数据的默认媒体类型
+     */
+    public static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+
+    /**
+     * 无法直接共享内存的缓冲区分块写出时每块的大小
+     */
+    private static final int WRITE_CHUNK_SIZE = 8 * IOUtils.KB;
+
+    private RequestBodies() {
+    }
+
+    /**
+     * #brief: 根据对象类型创建请求体<p>
+     *
+     * `RequestBody` 原样返回，字符串和字节数组直接作为请求内容，`MutableFile`、`ByteBuffer`
+     * 和 `InputStream` 流式写出，其他对象序列化为 JSON。
+     *
+     * @param object
+     *        请求体对象
+     *
+     * @return 请求体
+     */
+    public static RequestBody of(Object object) {
+        if (object instanceof RequestBody)
+            return (RequestBody) object;
+
+        if (object instanceof String)
+            return RequestBody.create((String) object, APPLICATION_JSON);
+
+        if (object instanceof byte[])
+            return RequestBody.create((byte[]) object, OCTET_STREAM);
+
+        if (object instanceof MutableFile)
+            return of((MutableFile) object);
+
+        if (object instanceof ByteBuffer)
+            return of((ByteBuffer) object, OCTET_STREAM);
+
+        if (object instanceof InputStream)
+            return of((InputStream) object, OCTET_STREAM);
+
+        return json(object);
+    }
+
+    /**
+     * #brief: 创建 JSON 请求体<p>
+     *
+     * 对象通过 fastjson 直接序列化为 UTF-8 字节，不会再经过中间的 JSON 字符串，请求体带有确定的
+     * 长度，不使用分块传输。序列化在创建请求体时完成，请求失败重试时复用同一份字节。
+     *
+     * @param object
+     *        需要序列化的对象
+     *
+     * @return JSON 请求体
+     */
+    public static RequestBody json(Object object) {
+        return RequestBody.create(JSON.toJSONBytes(object), APPLICATION_JSON);
+    }
+
+    /**
+     * #brief: 创建文件请求体，媒体类型根据文件检测<p>
+     *
+     * @param file
+     *        上传的文件
+     *
+     * @return 文件请求体
+     *
+     * @see #mediaType(MutableFile)
+     */
+    public static RequestBody of(MutableFile file) {
+        return of(file, mediaType(file));
+    }
+
+    /**
+     * #brief: 创建文件请求体<p>
+     *
+     * 文件在发送时从磁盘流式读取，请求体长度为文件大小。
+     *
+     * @param file
+     *        上传的文件
+     *
+     * @param contentType
+     *        媒体类型
+     *
+     * @return 文件请求体
+     */
+    public static RequestBody of(MutableFile file, MediaType contentType) {
+        return RequestBody.create(file, contentType);
+    }
+
+    /**
+     * #brief: 创建缓冲区请求体<p>
+     *
+     * 写出缓冲区当前可读的数据，即 {@code [index(), capacity())} 区间，请求体长度为
+     * {@link ByteBuffer#readableBytes()}。发送时不会改变缓冲区的读写索引，请求失败重试时
+     * 可以再次写出，发送完成前不要修改缓冲区。堆外内存和内存映射缓冲区写出后仍然可以通过
+     * {@code close()} 立即释放内存。
+     *
+     * @param buffer
+     *        缓冲区
+     *
+     * @param contentType
+     *        媒体类型
+     *
+     * @return 缓冲区请求体
+     */
+    public static RequestBody of(ByteBuffer buffer, MediaType contentType) {
+        int index = buffer.index();
+        int length = buffer.readableBytes();
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return contentType;
+            }
+
+            @Override
+            public long contentLength() {
+                return length;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                writeBuffer(buffer, index, length, sink);
+            }
+        };
+    }
+
+    /**
+     * 写出缓冲区 {@code [index, index + length)} 区间的数据。堆内存缓冲区直接写出共享数组的视图，
+     * {@link ChunkedByteBuffer} 和 {@link CompositeByteBuffer} 逐段写出 {@code nioBuffers()}，都不拷贝
+     * 数据。其他缓冲区（堆外内存、内存映射、视图等）按固定大小分块读出后写出，不调用
+     * {@link ByteBuffer#nioBuffer()}，缓冲区 {@code close()} 时仍然可以立即释放内存。
+     */
+    private static void writeBuffer(ByteBuffer buffer, int index, int length, BufferedSink sink) throws IOException {
+        java.nio.ByteBuffer[] views;
+        if (buffer instanceof HeapByteBuffer) {
+            views = new java.nio.ByteBuffer[] { buffer.nioBuffer() };
+        } else if (buffer instanceof ChunkedByteBuffer) {
+            views = ((ChunkedByteBuffer) buffer).nioBuffers();
+        } else if (buffer instanceof CompositeByteBuffer) {
+            views = ((CompositeByteBuffer) buffer).nioBuffers();
+        } else {
+            writeBufferChunked(buffer, index, length, sink);
+            return;
+        }
+        int skip = index;
+        int remaining = length;
+        for (java.nio.ByteBuffer view : views) {
+            if (remaining == 0)
+                break;
+            if (skip >= view.remaining()) {
+                skip -= view.remaining();
+                continue;
+            }
+            view = view.duplicate();
+            view.position(view.position() + skip);
+            view.limit(view.position() + Math.min(view.remaining(), remaining));
+            remaining -= view.remaining();
+            skip = 0;
+            while (view.hasRemaining())
+                sink.write(view);
+        }
+    }
+
+    /** 按 {@link #WRITE_CHUNK_SIZE} 分块读出缓冲区的数据并写出，写出后恢复缓冲区的读写索引 */
+    private static void writeBufferChunked(ByteBuffer buffer, int index, int length, BufferedSink sink) throws IOException {
+        byte[] chunk = new byte[Math.min(length, WRITE_CHUNK_SIZE)];
+        int mark = buffer.index();
+        buffer.seekSet(index);
+        try {
+            int remaining = length;
+            while (remaining > 0) {
+                int n = buffer.readBytes(chunk, 0, Math.min(chunk.length, remaining));
+                if (n < 0)
+                    throw new IOException("ByteBuffer truncated while writing request body");
+                sink.write(chunk, 0, n);
+                remaining -= n;
+            }
+        } finally {
+            buffer.seekSet(mark);
+        }
+    }
+
+    /**
+     * #brief: 创建输入流请求体<p>
+     *
+     * 文件输入流的长度为文件剩余的字节数，其他输入流长度未知，使用分块传输。
+     *
+     * @see #of(InputStream, MediaType, long)
+     */
+    public static RequestBody of(InputStream input, MediaType contentType) {
+        long contentLength = -1;
+        if (input instanceof FileInputStream) {
+            try {
+                FileChannel channel = ((FileInputStream) input).getChannel();
+                contentLength = Math.max(channel.size() - channel.position(), 0);
+            } catch (IOException e) {
+                contentLength = -1;
+            }
+        }
+        return of(input, contentType, contentLength);
+    }
+
+    /**
+     * #brief: 创建输入流请求体<p>
+     *
+     * 输入流只能读取一次，请求体为一次性的（{@link RequestBody#isOneShot()}），OkHttp 不会
+     * 自动重试或者跟随需要重发请求体的重定向。写出完成后输入流会被关闭。
+     *
+     * @param input
+     *        输入流
+     *
+     * @param contentType
+     *        媒体类型
+     *
+     * @param contentLength
+     *        请求体长度，未知时传 -1 使用分块传输
+     *
+     * @return 输入流请求体
+     */
+    public static RequestBody of(InputStream input, MediaType contentType, long contentLength) {
+        return new RequestBody() {
+            @Override
+            public MediaType contentType() {
+                return contentType;
+            }
+
+            @Override
+            public long contentLength() {
+                return contentLength;
+            }
+
+            @Override
+            public boolean isOneShot() {
+                return true;
+            }
+
+            @Override
+            public void writeTo(BufferedSink sink) throws IOException {
+                try (InputStream stream = input) {
+                    sink.writeAll(Okio.source(stream));
+                }
+            }
+        };
+    }
+
+    /**
+     * #brief: 检测文件的媒体类型<p>
+     *
+     * 优先使用 {@link Files#probeContentType(java.nio.file.Path)}，检测不到时根据文件扩展名
+     * 猜测，都无法确定时返回 `application/octet-stream`。
+     *
+     * @param file
+     *        文件
+     *
+     * @return 文件的媒体类型
+     */
+    public static MediaType mediaType(MutableFile file) {
+        String type = null;
+        try {
+            type = Files.probeContentType(file.toPath());
+        } catch (IOException ignored) {
+            /* ignored */
+        }
+
+        if (type == null)
+            type = URLConnection.guessContentTypeFromName(file.getName());
+
+        MediaType mediaType = type != null ? MediaType.parse(type) : null;
+        return mediaType != null ? mediaType : OCTET_STREAM;
+    }
+
+    /**
+     * @return 请求出错时用于日志的请求体描述，流式请求体不会被读取或者序列化
+     */
+    static String describe(Object object) {
+        if (object instanceof MutableFile)
+            return strwfmt("MutableFile(%s, %s bytes)", ((MutableFile) object).getPath(), ((MutableFile) object).length());
+
+        if (object instanceof ByteBuffer)
+            return strwfmt("ByteBuffer(%s bytes)", ((ByteBuffer) object).readableBytes());
+
+        if (object instanceof byte[])
+            return strwfmt("byte[%s]", ((byte[]) object).length);
+
+        if (object instanceof InputStream || object instanceof RequestBody)
+            return object.getClass().getName();
+
+        if (object instanceof MultipartBody)
+            return ((MultipartBody) object).keySet().toString();
+
+        return object instanceof String ? (String) object : JSON.toJSONString(object);
+    }
+
+}
@@ -21,7 +21,7 @@ package org.karatsuba.http;
 /* Creates on 2023/6/26. */
 
 import org.karatsuba.collection.Maps;
-import org.karatsuba.bean.BeanUtils;
+import org.karatsuba.utils.Assert;
 
 import java.util.Map;
 
@@ -32,6 +32,16 @@ import java.util.Map;
 @SuppressWarnings({"UnusedReturnValue"})
 public class RequestConfigure {
 
+    /**
+     * 异步请求的等待队列已满时的处理策略。在队列中等待超时的请求总是以失败结束，不受这个策略影响。
+     */
+    public enum RejectionPolicy {
+        /** 拒绝请求，回调 {@link Callback#onFailure(Throwable)} */
+        ABORT,
+        /** 在提交请求的线程中同步执行，降低提交请求的速度 */
+        CALLER_RUNS
+    }
+
     /** 禁用 SSL 证书验证 */
     private boolean sslVerificationDisable = false;
 
@@ -44,13 +54,44 @@ public class RequestConfigure {
     /** 连接请求的超时时间 */
     private int connectTimeout = 60000;
 
+    /** 连接池中最多保留的空闲连接数 */
+    private int maxIdleConnections = 5;
+
+    /** 空闲连接保持存活的时间（毫秒），超过这个时间没有被复用的连接会被关闭 */
+    private long keepAliveDuration = 300000;
+
+    /** 同时执行的异步请求总数上限 */
+    private int maxRequests = 64;
+
+    /** 对同一个主机同时执行的异步请求数上限 */
+    private int maxRequestsPerHost = 5;
+
+    /** 等待执行的异步请求数上限，超过以后按 {@link #rejectionPolicy} 处理 */
+    private int maxQueuedRequests = Integer.MAX_VALUE;
+
+    /** 异步请求在队列中等待的超时时间（毫秒），0 表示不限制 */
+    private long queueTimeout = 0;
+
+    /** 等待队列已满时的处理策略 */
+    private RejectionPolicy rejectionPolicy = RejectionPolicy.ABORT;
+
     /**
      * 拷贝另一个 Config 对象中的属性到当前对象
      */
     public static RequestConfigure from(RequestConfigure config) {
+        /* 直接拷贝字段，BeanUtils 不会拷贝基本类型的属性，超时和并发限制都会丢失 */
         RequestConfigure requestConfigure = new RequestConfigure();
-        BeanUtils.copyProperties(config, requestConfigure, "headers");
+        requestConfigure.sslVerificationDisable = config.sslVerificationDisable;
         requestConfigure.headers.putAll(config.headers);
+        requestConfigure.readTimeout = config.readTimeout;
+        requestConfigure.connectTimeout = config.connectTimeout;
+        requestConfigure.maxIdleConnections = config.maxIdleConnections;
+        requestConfigure.keepAliveDuration = config.keepAliveDuration;
+        requestConfigure.maxRequests = config.maxRequests;
+        requestConfigure.maxRequestsPerHost = config.maxRequestsPerHost;
+        requestConfigure.maxQueuedRequests = config.maxQueuedRequests;
+        requestConfigure.queueTimeout = config.queueTimeout;
+        requestConfigure.rejectionPolicy = config.rejectionPolicy;
         return requestConfigure;
     }
 
@@ -78,6 +119,46 @@ public class RequestConfigure {
         return this;
     }
 
+    public RequestConfigure setMaxIdleConnections(int maxIdleConnections) {
+        this.maxIdleConnections = maxIdleConnections;
+        return this;
+    }
+
+    public RequestConfigure setKeepAliveDuration(long keepAliveDuration) {
+        this.keepAliveDuration = keepAliveDuration;
+        return this;
+    }
+
+    public RequestConfigure setMaxRequests(int maxRequests) {
+        Assert.isTrue(maxRequests > 0, "maxRequests must be positive: %s", maxRequests);
+        this.maxRequests = maxRequests;
+        return this;
+    }
+
+    public RequestConfigure setMaxRequestsPerHost(int maxRequestsPerHost) {
+        Assert.isTrue(maxRequestsPerHost > 0, "maxRequestsPerHost must be positive: %s", maxRequestsPerHost);
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        return this;
+    }
+
+    public RequestConfigure setMaxQueuedRequests(int maxQueuedRequests) {
+        Assert.isTrue(maxQueuedRequests >= 0, "maxQueuedRequests must not be negative: %s", maxQueuedRequests);
+        this.maxQueuedRequests = maxQueuedRequests;
+        return this;
+    }
+
+    public RequestConfigure setQueueTimeout(long queueTimeout) {
+        Assert.isTrue(queueTimeout >= 0, "queueTimeout must not be negative: %s", queueTimeout);
+        this.queueTimeout = queueTimeout;
+        return this;
+    }
+
+    public RequestConfigure setRejectionPolicy(RejectionPolicy rejectionPolicy) {
+        Assert.notNull(rejectionPolicy, "rejectionPolicy must not be null.");
+        this.rejectionPolicy = rejectionPolicy;
+        return this;
+    }
+
     //////////////////////////////////////////////////////////////
     //                          GET                             //
     //////////////////////////////////////////////////////////////
@@ -98,4 +179,32 @@ public class RequestConfigure {
         return connectTimeout;
     }
 
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    public long getKeepAliveDuration() {
+        return keepAliveDuration;
+    }
+
+    public int getMaxRequests() {
+        return maxRequests;
+    }
+
+    public int getMaxRequestsPerHost() {
+        return maxRequestsPerHost;
+    }
+
+    public int getMaxQueuedRequests() {
+        return maxQueuedRequests;
+    }
+
+    public long getQueueTimeout() {
+        return queueTimeout;
+    }
+
+    public RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
 }
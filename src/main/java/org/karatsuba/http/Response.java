@@ -18,15 +18,25 @@ package org.karatsuba.http;
 |*                                                                                  *|
 \* -------------------------------------------------------------------------------- */
 
+import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.JSONObject;
-import org.karatsuba.io.ByteBuffer;
 import org.karatsuba.string.StringUtils;
 import org.karatsuba.utils.Optional;
-import org.karatsuba.io.IOUtils;
 import okhttp3.Headers;
+import okhttp3.MediaType;
 import okhttp3.ResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import static org.karatsuba.utils.Transformer.anyeq;
 import static org.karatsuba.utils.Transformer.atos;
@@ -53,8 +63,13 @@ import static org.karatsuba.utils.Transformer.atos;
  *     <li>{@link #code()}: 获取响应的状态码。</li>
  *     <li>{@link #codeEquals(int)}: 判断响应的状态码是否与指定的码相等。</li>
  *     <li>{@link #isSuccess()}: 判断响应是否表示成功（状态码为 200）。</li>
+ *     <li>{@link #as(Class)}、{@link #asList(Class)}: 将响应体直接反序列化为 Java 对象。</li>
  * </ul>
  *
+ * <p>响应体只以字节数组的形式保存，第一次访问 `JSONObject` 中的数据时才会解析，只关心状态码或者
+ * 使用 {@link #as(Class)} 反序列化的调用方不需要为解析 `JSONObject` 付出代价。非常大的响应请使用
+ * {@link HttpClient#newStreamCall()} 配合 {@link StreamResponse#iterate(Class)} 流式读取。
+ *
  * <h2>使用示例</h2>
  * <pre>
  *     // 使用状态码和 JSON 字符串初始化响应对象
@@ -79,46 +94,48 @@ public class Response extends JSONObject {
      */
     private final int code;
 
-    /**
-     * 如果接口没有正常的 JSON 返回对象等结构的话，那么 message 就是
-     * 接口返回信息。有可能是 `Not Found` 等文本。
-     */
-    private String message;
-
     /**
      * 响应头
      */
     private final Headers headers;
 
     /**
-     * 文件或二进制资源
+     * 延迟解析的响应体
      */
-    private transient final ByteBuffer byteBuffer =
-            ByteBuffer.allocate(16 * IOUtils.KB);
+    private final LazyBody body;
 
     /**
-     * #brief: 使用状态码和 JSON 字符串初始化响应对象
+     * #brief: 使用状态码和响应体初始化响应对象
      *
-     * <p>该构造方法通过状态码和 JSON 字符串来创建一个 `Response` 对象。JSON 字符串会被解析为
-     * `JSONObject`，并存储在响应对象中。
+     * <p>构造时只读取响应体的字节，JSON 在第一次访问数据时才会解析。如果响应体不是 JSON 对象，
+     * 解析后的内容会作为 {@link #getMessage()} 返回。
      *
      * @param code 响应的状态码
+     * @param headers 响应头
      * @param responseBody 响应内容
      */
-    @SuppressWarnings("unchecked")
     public Response(int code, Headers headers, ResponseBody responseBody) {
+        this(code, headers, new LazyBody(Optional.ifError(responseBody::bytes, new byte[0]), charset(responseBody)));
+    }
+
+    private Response(int code, Headers headers, LazyBody body) {
+        super(body);
         this.code = code;
         this.headers = headers;
+        this.body = body;
+    }
 
-        /* 处理响应 */
-        String content = Optional.ifError(responseBody::string, "{}");
-        Object object = Optional.ifError(() -> JSONObject.parseObject(content), content);
-
-        if (object instanceof String)
-            this.message = atos(object, StringUtils::strip);
+    /** 响应体的字符集，没有指定时使用 UTF-8 */
+    static Charset charset(ResponseBody responseBody) {
+        MediaType contentType = responseBody.contentType();
+        return contentType != null ? contentType.charset(StandardCharsets.UTF_8) : StandardCharsets.UTF_8;
+    }
 
-        if (object instanceof Map)
-            putAll((Map<String, Object>) object);
+    /** 将响应体的字节反序列化为指定类型，UTF-8 编码时直接解析字节，不再转换为字符串 */
+    static <T> T parse(byte[] bytes, Charset charset, Class<T> type) {
+        if (StandardCharsets.UTF_8.equals(charset))
+            return JSON.parseObject(bytes, type);
+        return JSON.parseObject(new String(bytes, charset), type);
     }
 
     /**
@@ -194,7 +211,7 @@ public class Response extends JSONObject {
         /* failed */
         JSONObject retval = new JSONObject();
         retval.put("code", code);
-        retval.put("message", message);
+        retval.put("message", getMessage());
         return retval.toString();
     }
 
@@ -203,7 +220,181 @@ public class Response extends JSONObject {
     }
 
     public String getMessage() {
-        return message;
+        return body.message();
+    }
+
+    /**
+     * @return 响应体的原始字节，不要修改返回的数组
+     */
+    public byte[] bytes() {
+        return body.bytes;
+    }
+
+    /**
+     * #brief: 将响应体反序列化为指定类型的对象
+     *
+     * <p>直接从响应体的字节反序列化，不会先解析成 `JSONObject`。
+     *
+     * @param type 对象类型
+     * @param <T> 对象类型
+     * @return 反序列化后的对象
+     */
+    public <T> T as(Class<T> type) {
+        return parse(body.bytes, body.charset, type);
+    }
+
+    /**
+     * #brief: 将 JSON 数组响应体反序列化为指定类型的列表
+     *
+     * @param type 元素类型
+     * @param <T> 元素类型
+     * @return 反序列化后的列表
+     */
+    public <T> List<T> asList(Class<T> type) {
+        List<T> retval = new ArrayList<>();
+        try (JsonArrayIterator<T> iterator = iterate(type)) {
+            iterator.forEachRemaining(retval::add);
+        }
+        return retval;
+    }
+
+    /**
+     * #brief: 逐个反序列化 JSON 数组响应体中的元素
+     *
+     * <p>元素在遍历时才反序列化，不会同时保存所有元素。响应体的字节已经全部读取到内存中，如果
+     * 响应体本身就很大，请使用 {@link StreamResponse#iterate(Class)}。
+     *
+     * @param type 元素类型
+     * @param <T> 元素类型
+     * @return 元素迭代器
+     */
+    public <T> JsonArrayIterator<T> iterate(Class<T> type) {
+        return new JsonArrayIterator<>(body.reader(), type, null);
+    }
+
+    /**
+     * 第一次访问时才解析的响应体，作为 `JSONObject` 内部的 Map 使用。
+     */
+    private static class LazyBody implements Map<String, Object> {
+
+        final byte[] bytes;
+
+        final Charset charset;
+
+        private volatile Map<String, Object> map;
+
+        /**
+         * 如果接口没有正常的 JSON 返回对象等结构的话，那么 message 就是
+         * 接口返回信息。有可能是 `Not Found` 等文本。
+         */
+        private String message;
+
+        LazyBody(byte[] bytes, Charset charset) {
+            this.bytes = bytes;
+            this.charset = charset;
+        }
+
+        Reader reader() {
+            return new InputStreamReader(new ByteArrayInputStream(bytes), charset);
+        }
+
+        String message() {
+            map();
+            return message;
+        }
+
+        @SuppressWarnings("unchecked")
+        private Map<String, Object> map() {
+            Map<String, Object> retval = map;
+            if (retval != null)
+                return retval;
+            synchronized (this) {
+                if (map == null) {
+                    String content = bytes.length == 0 ? "{}" : new String(bytes, charset);
+                    Object object = Optional.ifError(() -> JSONObject.parseObject(content), content);
+                    if (object instanceof String)
+                        message = atos(object, StringUtils::strip);
+                    map = object instanceof Map ? (Map<String, Object>) object : new LinkedHashMap<>();
+                }
+                return map;
+            }
+        }
+
+        @Override
+        public int size() {
+            return map().size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map().isEmpty();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return map().containsKey(key);
+        }
+
+        @Override
+        public boolean containsValue(Object value) {
+            return map().containsValue(value);
+        }
+
+        @Override
+        public Object get(Object key) {
+            return map().get(key);
+        }
+
+        @Override
+        public Object put(String key, Object value) {
+            return map().put(key, value);
+        }
+
+        @Override
+        public Object remove(Object key) {
+            return map().remove(key);
+        }
+
+        @Override
+        public void putAll(Map<? extends String, ?> m) {
+            map().putAll(m);
+        }
+
+        @Override
+        public void clear() {
+            map().clear();
+        }
+
+        @Override
+        public Set<String> keySet() {
+            return map().keySet();
+        }
+
+        @Override
+        public Collection<Object> values() {
+            return map().values();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return map().entrySet();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return map().equals(o);
+        }
+
+        @Override
+        public int hashCode() {
+            return map().hashCode();
+        }
+
+        @Override
+        public String toString() {
+            return map().toString();
+        }
+
     }
 
 }
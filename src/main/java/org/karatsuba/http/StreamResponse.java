@@ -24,6 +24,7 @@ import org.karatsuba.io.IOUtils;
 import okhttp3.ResponseBody;
 
 import java.io.Closeable;
+import java.io.InputStreamReader;
 
 /**
  * 类 {@link StreamResponse} 表示一个字节流响应。
@@ -88,6 +89,45 @@ public class StreamResponse implements Closeable {
         return mutableFile;
     }
 
+    /**
+     * 将响应体反序列化为指定类型的对象，读取完成后关闭响应。
+     *
+     * <p>单个对象需要完整读取后才能反序列化，响应体的字节会全部读入内存（UTF-8 编码时不会再
+     * 转换为字符串）。如果响应体是很大的 JSON 数组，请使用 {@link #iterate(Class)}。
+     *
+     * @param type 对象类型
+     * @param <T> 对象类型
+     * @return 反序列化后的对象
+     */
+    public <T> T as(Class<T> type) {
+        try {
+            ResponseBody body = response.body();
+            Assert.notNull(body, "没有数据响应。");
+            return Response.parse(IOUtils.read(body.byteStream()), Response.charset(body), type);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * 流式读取顶层 JSON 数组中的元素，元素在遍历时才从网络读取并反序列化，内存中只保存读取
+     * 缓冲区和当前元素。遍历结束或者关闭迭代器时关闭响应。
+     *
+     * @param type 元素类型
+     * @param <T> 元素类型
+     * @return 元素迭代器
+     */
+    public <T> JsonArrayIterator<T> iterate(Class<T> type) {
+        return new JsonArrayIterator<>(reader(), type, this);
+    }
+
+    /** 按响应的字符集读取响应体 */
+    private InputStreamReader reader() {
+        ResponseBody body = response.body();
+        Assert.notNull(body, "没有数据响应。");
+        return new InputStreamReader(body.byteStream(), Response.charset(body));
+    }
+
     @Override
     public void close() {
         IOUtils.closeQuietly(response);
@@ -20,8 +20,18 @@ package org.karatsuba.io;
 
 /* Creates on 2023/5/8. */
 
+import org.karatsuba.exception.IOReadException;
 import org.karatsuba.string.StringUtils;
 import org.karatsuba.utils.ArrayUtils;
+import org.karatsuba.utils.Assert;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 
 /**
  * ByteBuffer 默认抽象实现类
@@ -30,6 +40,16 @@ import org.karatsuba.utils.ArrayUtils;
  */
 public abstract class AbstractByteBuffer extends ByteBuffer {
 
+    /* 以字节数组视图读写基本类型的 VarHandle，JIT 会把它们编译成单条读写指令 */
+    private static final VarHandle CHAR_BE = MethodHandles.byteArrayViewVarHandle(char[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle CHAR_LE = MethodHandles.byteArrayViewVarHandle(char[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle SHORT_BE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle SHORT_LE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INT_BE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
     /** 读写指针 */
     protected int index;
 
@@ -39,9 +59,41 @@ public abstract class AbstractByteBuffer extends ByteBuffer {
     /** 标记当前索引位置 */
     protected int markIndex = 0;
 
+    /** 是否是大端字节序 */
+    private boolean bigEndian = true;
+
     /* 临时缓冲区 */
     private final byte[] tmp = new byte[16];
 
+    /** {@link #directArray(int, boolean)} 返回的数组中数据的起始下标 */
+    int arrayPos;
+
+    /** 分配当前缓冲区的缓冲池，不是从缓冲池中分配的则为 null */
+    ByteBufferPool pool;
+
+    /** 从缓冲池分配时计入 outstanding 的字节数 */
+    int pooledSize;
+
+    /** 泄漏检测记录，没有被采样时为 null */
+    ByteBufferPool.LeakTracker leak;
+
+    /** 清空读写状态，缓冲池复用缓冲区时调用 */
+    void clear0() {
+        index = 0;
+        capacity = 0;
+        markIndex = 0;
+        bigEndian = true;
+    }
+
+    @Override
+    void deallocate() {
+        if (pool != null) {
+            pool.recycle(this);
+        } else {
+            close();
+        }
+    }
+
     @Override
     public ByteBuffer duplicate() {
         return wrap(toByteArray());
@@ -104,15 +156,68 @@ public abstract class AbstractByteBuffer extends ByteBuffer {
         return this;
     }
 
+    @Override
+    public ByteOrder order() {
+        return bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    @Override
+    public ByteBuffer order(ByteOrder order) {
+        bigEndian = order == ByteOrder.BIG_ENDIAN;
+        return this;
+    }
+
+    /**
+     * 返回可以直接读写 {@code [index, index + nb)} 区域的底层数组，区域在数组中的起始下标保存
+     * 在 {@code arrayPos} 中。子类如果数据保存在连续的字节数组中可以覆盖这个函数，基本类型的
+     * 读写就可以通过 {@link VarHandle} 直接访问数组，不需要经过临时缓冲区中转。
+     *
+     * @param nb 读写的字节数
+     * @param write 是否是写入操作，写入时子类需要确保容量足够
+     * @return 底层数组，不支持直接访问时返回 null
+     */
+    byte[] directArray(int nb, boolean write) {
+        return null;
+    }
+
+    /** 读取 {@code nb} 个字节，返回数据所在的数组，数据起始下标保存在 {@code arrayPos} 中 */
+    private byte[] readable(int nb) {
+        byte[] a = directArray(nb, false);
+        if (a != null) {
+            index += nb;
+            return a;
+        }
+        readBytes(tmp, 0, nb);
+        arrayPos = 0;
+        return tmp;
+    }
+
+    /** 返回可以写入 {@code nb} 个字节的数组，写入后需要调用 {@link #commit(byte[], int)} */
+    private byte[] writable(int nb) {
+        byte[] a = directArray(nb, true);
+        if (a != null)
+            return a;
+        arrayPos = 0;
+        return tmp;
+    }
+
+    private ByteBuffer commit(byte[] a, int nb) {
+        if (a == tmp)
+            return writeBytes(tmp, 0, nb);
+        index += nb;
+        capacity = Math.max(capacity, index);
+        return this;
+    }
+
     public byte readByte() {
-        readBytes(tmp, 0, 1);
-        return tmp[0];
+        byte[] a = readable(Byte.BYTES);
+        return a[arrayPos];
     }
 
     @Override
     public char readChar() {
-        readBytes(tmp, 0, Character.BYTES);
-        return (char) ((tmp[0] << 8) | (tmp[1] & 0xFF));
+        byte[] a = readable(Character.BYTES);
+        return (char) (bigEndian ? CHAR_BE : CHAR_LE).get(a, arrayPos);
     }
 
     @Override
@@ -124,24 +229,18 @@ public abstract class AbstractByteBuffer extends ByteBuffer {
     }
 
     public short readShort() {
-        readBytes(tmp, 0, Short.BYTES);
-        return (short) ((tmp[0] << 8) | tmp[1] & 0xFF);
+        byte[] a = readable(Short.BYTES);
+        return (short) (bigEndian ? SHORT_BE : SHORT_LE).get(a, arrayPos);
     }
 
     public int readInt() {
-        readBytes(tmp, 0, Integer.BYTES);
-        return ((tmp[0] & 0xFF) << 24)
-                | ((tmp[1] & 0xFF) << 16)
-                | ((tmp[2] & 0xFF) << 8)
-                |  (tmp[3] & 0xFF);
+        byte[] a = readable(Integer.BYTES);
+        return (int) (bigEndian ? INT_BE : INT_LE).get(a, arrayPos);
     }
 
     public long readLong() {
-        readBytes(tmp, 0, Long.BYTES);
-        long value = 0L;
-        for (int i = 0; i < Long.BYTES; i++)
-            value = (value << 8) | (tmp[i] & 0xFF);
-        return value;
+        byte[] a = readable(Long.BYTES);
+        return (long) (bigEndian ? LONG_BE : LONG_LE).get(a, arrayPos);
     }
 
     @Override
@@ -154,6 +253,70 @@ public abstract class AbstractByteBuffer extends ByteBuffer {
         return Double.longBitsToDouble(readLong());
     }
 
+    @Override
+    public int[] readInts(int[] dst, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, dst.length);
+        byte[] a = directArray(Math.multiplyExact(len, Integer.BYTES), false);
+        if (a == null) {
+            for (int i = 0; i < len; i++)
+                dst[off + i] = readInt();
+            return dst;
+        }
+        VarHandle handle = bigEndian ? INT_BE : INT_LE;
+        for (int i = 0, pos = arrayPos; i < len; i++, pos += Integer.BYTES)
+            dst[off + i] = (int) handle.get(a, pos);
+        index += len * Integer.BYTES;
+        return dst;
+    }
+
+    @Override
+    public long[] readLongs(long[] dst, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, dst.length);
+        byte[] a = directArray(Math.multiplyExact(len, Long.BYTES), false);
+        if (a == null) {
+            for (int i = 0; i < len; i++)
+                dst[off + i] = readLong();
+            return dst;
+        }
+        VarHandle handle = bigEndian ? LONG_BE : LONG_LE;
+        for (int i = 0, pos = arrayPos; i < len; i++, pos += Long.BYTES)
+            dst[off + i] = (long) handle.get(a, pos);
+        index += len * Long.BYTES;
+        return dst;
+    }
+
+    @Override
+    public float[] readFloats(float[] dst, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, dst.length);
+        byte[] a = directArray(Math.multiplyExact(len, Float.BYTES), false);
+        if (a == null) {
+            for (int i = 0; i < len; i++)
+                dst[off + i] = readFloat();
+            return dst;
+        }
+        VarHandle handle = bigEndian ? INT_BE : INT_LE;
+        for (int i = 0, pos = arrayPos; i < len; i++, pos += Float.BYTES)
+            dst[off + i] = Float.intBitsToFloat((int) handle.get(a, pos));
+        index += len * Float.BYTES;
+        return dst;
+    }
+
+    @Override
+    public double[] readDoubles(double[] dst, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, dst.length);
+        byte[] a = directArray(Math.multiplyExact(len, Double.BYTES), false);
+        if (a == null) {
+            for (int i = 0; i < len; i++)
+                dst[off + i] = readDouble();
+            return dst;
+        }
+        VarHandle handle = bigEndian ? LONG_BE : LONG_LE;
+        for (int i = 0, pos = arrayPos; i < len; i++, pos += Double.BYTES)
+            dst[off + i] = Double.longBitsToDouble((long) handle.get(a, pos));
+        index += len * Double.BYTES;
+        return dst;
+    }
+
     @Override
     public byte[] readBytes(int nb) {
         byte[] buf = new byte[nb];
@@ -173,16 +336,16 @@ public abstract class AbstractByteBuffer extends ByteBuffer {
     }
 
     public ByteBuffer writeByte(byte b) {
-        tmp[0] = b;
-        return writeBytes(tmp, 0, Byte.BYTES);
+        byte[] a = writable(Byte.BYTES);
+        a[arrayPos] = b;
+        return commit(a, Byte.BYTES);
     }
 
     @Override
     public ByteBuffer writeChar(char c) {
-        return writeBytes(new byte[] {
-                (byte) (c >> 8),
-                (byte)  c,
-        });
+        byte[] a = writable(Character.BYTES);
+        (bigEndian ? CHAR_BE : CHAR_LE).set(a, arrayPos, c);
+        return commit(a, Character.BYTES);
     }
 
     @Override
@@ -193,24 +356,21 @@ public abstract class AbstractByteBuffer extends ByteBuffer {
     }
 
     public ByteBuffer writeShort(short v) {
-        return writeBytes(new byte[]{
-                (byte) (v >> 8),
-                (byte)  v,
-        }, 0, Short.BYTES);
+        byte[] a = writable(Short.BYTES);
+        (bigEndian ? SHORT_BE : SHORT_LE).set(a, arrayPos, v);
+        return commit(a, Short.BYTES);
     }
 
     public ByteBuffer writeInt(int i) {
-        tmp[0] = (byte) ((i >> 24) & 0xFF);
-        tmp[1] = (byte) ((i >> 16) & 0xFF);
-        tmp[2] = (byte) ((i >> 8) & 0xFF);
-        tmp[3] = (byte) (i & 0xFF);
-        return writeBytes(tmp, 0, Integer.BYTES);
+        byte[] a = writable(Integer.BYTES);
+        (bigEndian ? INT_BE : INT_LE).set(a, arrayPos, i);
+        return commit(a, Integer.BYTES);
     }
 
     public ByteBuffer writeLong(long l) {
-        for (int i = 0; i < Long.BYTES; i++)
-            tmp[i] = (byte) ((l >> ((Long.BYTES - i - 1) * 8)) & 0xFF);
-        return writeBytes(tmp, 0, Long.BYTES);
+        byte[] a = writable(Long.BYTES);
+        (bigEndian ? LONG_BE : LONG_LE).set(a, arrayPos, l);
+        return commit(a, Long.BYTES);
     }
 
     @Override
@@ -223,6 +383,120 @@ public abstract class AbstractByteBuffer extends ByteBuffer {
         return writeLong(Double.doubleToLongBits(d));
     }
 
+    @Override
+    public ByteBuffer writeInts(int[] src, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, src.length);
+        byte[] a = directArray(Math.multiplyExact(len, Integer.BYTES), true);
+        if (a == null) {
+            for (int i = 0; i < len; i++)
+                writeInt(src[off + i]);
+            return this;
+        }
+        VarHandle handle = bigEndian ? INT_BE : INT_LE;
+        for (int i = 0, pos = arrayPos; i < len; i++, pos += Integer.BYTES)
+            handle.set(a, pos, src[off + i]);
+        return commit(a, len * Integer.BYTES);
+    }
+
+    @Override
+    public ByteBuffer writeLongs(long[] src, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, src.length);
+        byte[] a = directArray(Math.multiplyExact(len, Long.BYTES), true);
+        if (a == null) {
+            for (int i = 0; i < len; i++)
+                writeLong(src[off + i]);
+            return this;
+        }
+        VarHandle handle = bigEndian ? LONG_BE : LONG_LE;
+        for (int i = 0, pos = arrayPos; i < len; i++, pos += Long.BYTES)
+            handle.set(a, pos, src[off + i]);
+        return commit(a, len * Long.BYTES);
+    }
+
+    @Override
+    public ByteBuffer writeFloats(float[] src, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, src.length);
+        byte[] a = directArray(Math.multiplyExact(len, Float.BYTES), true);
+        if (a == null) {
+            for (int i = 0; i < len; i++)
+                writeFloat(src[off + i]);
+            return this;
+        }
+        VarHandle handle = bigEndian ? INT_BE : INT_LE;
+        for (int i = 0, pos = arrayPos; i < len; i++, pos += Float.BYTES)
+            handle.set(a, pos, Float.floatToIntBits(src[off + i]));
+        return commit(a, len * Float.BYTES);
+    }
+
+    @Override
+    public ByteBuffer writeDoubles(double[] src, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, src.length);
+        byte[] a = directArray(Math.multiplyExact(len, Double.BYTES), true);
+        if (a == null) {
+            for (int i = 0; i < len; i++)
+                writeDouble(src[off + i]);
+            return this;
+        }
+        VarHandle handle = bigEndian ? LONG_BE : LONG_LE;
+        for (int i = 0, pos = arrayPos; i < len; i++, pos += Double.BYTES)
+            handle.set(a, pos, Double.doubleToLongBits(src[off + i]));
+        return commit(a, len * Double.BYTES);
+    }
+
+    @Override
+    public ByteBuffer writeVarLong(long v) {
+        int nb = varLongLength(v);
+        byte[] a = writable(nb);
+        int pos = arrayPos;
+        while ((v & ~0x7FL) != 0) {
+            a[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        a[pos] = (byte) v;
+        return commit(a, nb);
+    }
+
+    @Override
+    public ByteBuffer writeUtf8(CharSequence cs) {
+        int nb = utf8Length(cs);
+        byte[] a = directArray(nb, true);
+        if (a == null)
+            return super.writeUtf8(cs);
+        int pos = arrayPos;
+        int len = cs.length();
+        for (int i = 0; i < len; i++) {
+            char c = cs.charAt(i);
+            if (c < 0x80) {
+                a[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                a[pos++] = (byte) (0xC0 | (c >> 6));
+                a[pos++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(cs.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, cs.charAt(++i));
+                a[pos++] = (byte) (0xF0 | (cp >> 18));
+                a[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3F));
+                a[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3F));
+                a[pos++] = (byte) (0x80 | (cp & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                a[pos++] = (byte) '?';
+            } else {
+                a[pos++] = (byte) (0xE0 | (c >> 12));
+                a[pos++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                a[pos++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        return commit(a, nb);
+    }
+
+    @Override
+    public String readUtf8(int nb) {
+        byte[] a = directArray(nb, false);
+        if (a == null)
+            return super.readUtf8(nb);
+        index += nb;
+        return new String(a, arrayPos, nb, StandardCharsets.UTF_8);
+    }
+
     public ByteBuffer writeBytes(byte[] b) {
         return writeBytes(b, 0, b.length);
     }
@@ -233,6 +507,90 @@ public abstract class AbstractByteBuffer extends ByteBuffer {
         return this;
     }
 
+
+    /** 直接读入底层数组的长度，优先使用剩余的空间，空间不足时每次扩容一段 */
+    private int directReadLength(int remaining) {
+        return Math.min(remaining, Math.max(writeableBytes(), TRANSFER_BUFFER_SIZE));
+    }
+
+    @Override
+    public int readFrom(InputStream in, int n) {
+        Assert.isTrue(n >= 0, "n must not be negative: %s", n);
+        int total = 0;
+        try {
+            while (total < n) {
+                int len = directReadLength(n - total);
+                byte[] a = directArray(len, true);
+                if (a == null) {
+                    int r = super.readFrom(in, n - total);
+                    if (r > 0)
+                        total += r;
+                    break;
+                }
+                int r = in.read(a, arrayPos, len);
+                if (r < 0)
+                    break;
+                commit(a, r);
+                total += r;
+            }
+        } catch (IOException e) {
+            throw new IOReadException(e);
+        }
+        return total == 0 && n > 0 ? IOUtils.EOF : total;
+    }
+
+    @Override
+    public int readFrom(ReadableByteChannel channel, int n) {
+        Assert.isTrue(n >= 0, "n must not be negative: %s", n);
+        int total = 0;
+        try {
+            while (total < n) {
+                int len = directReadLength(n - total);
+                byte[] a = directArray(len, true);
+                if (a == null) {
+                    int r = super.readFrom(channel, n - total);
+                    if (r < 0 && total == 0)
+                        return IOUtils.EOF;
+                    total += Math.max(r, 0);
+                    break;
+                }
+                int r = channel.read(java.nio.ByteBuffer.wrap(a, arrayPos, len));
+                if (r <= 0) {
+                    if (r < 0 && total == 0)
+                        return IOUtils.EOF;
+                    break;
+                }
+                commit(a, r);
+                total += r;
+            }
+        } catch (IOException e) {
+            throw new IOReadException(e);
+        }
+        return total;
+    }
+
+    @Override
+    int transferTo(java.nio.ByteBuffer dst) {
+        int n = Math.min(dst.remaining(), readableBytes());
+        byte[] a = directArray(n, false);
+        if (a == null)
+            return super.transferTo(dst);
+        dst.put(a, arrayPos, n);
+        index += n;
+        return n;
+    }
+
+    @Override
+    int transferFrom(java.nio.ByteBuffer src) {
+        int n = src.remaining();
+        byte[] a = directArray(n, true);
+        if (a == null)
+            return super.transferFrom(src);
+        src.get(a, arrayPos, n);
+        commit(a, n);
+        return n;
+    }
+
     abstract void read0(byte[] b, int off, int len);
 
     abstract void write0(byte[] b, int off, int len);
@@ -0,0 +1,556 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.string.StringUtils;
+import org.karatsuba.thread.ThreadPool;
+import org.karatsuba.utils.ArrayUtils;
+import org.karatsuba.utils.Assert;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * `BufferedRandomAccessFile` 是带页缓存的随机读写文件，提供和 {@link RandomAccessFile} 相同的
+ * {@link DataInput}/{@link DataOutput} 读写函数。
+ *
+ * <p>文件按固定大小的页缓存在内存中，读写操作只访问缓存，缺页时才从文件中读取整页数据。写入的页
+ * 标记为脏页，在被 LRU 淘汰、调用 {@link #flush()}/{@link #fsync()} 或者关闭文件时写回，小记录的
+ * 随机写入因此可以在内存中完成。何时调用 fsync 由 {@link Durability} 策略决定。
+ *
+ * <p>底层的 {@link RandomAccessFile} 和 {@link FileChannel} 不对外暴露，包括 {@code writeBytes()}、
+ * {@code writeChars()}、{@code writeUTF()} 在内的所有读写函数都经过页缓存。所有函数都是同步的，
+ * 可以和后台的周期同步任务安全地并发执行。
+ *
+ * @author Red Gogh
+ * @see MutableFile#openBuffered(int, int, Durability, long)
+ */
+public class BufferedRandomAccessFile implements DataInput, DataOutput, Closeable {
+
+    /** 默认页大小 */
+    public static final int DEFAULT_PAGE_SIZE = 4 * IOUtils.KB;
+
+    /** 默认最多缓存的页数 */
+    public static final int DEFAULT_MAX_PAGES = 1024;
+
+    /** 底层文件，只用于修改文件长度和关闭 */
+    private final RandomAccessFile file;
+
+    private final FileChannel channel;
+
+    private final int pageShift;
+
+    private final int pageMask;
+
+    private final Durability durability;
+
+    /** LRU 页缓存，按访问顺序排列，超过容量时写回并淘汰最久未访问的页 */
+    private final LinkedHashMap<Long, Page> pages;
+
+    /** 最近访问的页，连续访问同一页时不需要查找缓存 */
+    private Page current;
+
+    /** 当前读写位置 */
+    private long position;
+
+    /** 逻辑文件长度，包含还没有写回的数据 */
+    private long length;
+
+    /** 磁盘上的文件长度，超出部分的页不需要从文件中读取 */
+    private long diskLength;
+
+    /** 读写基本类型时使用的临时缓冲区 */
+    private final byte[] tmp = new byte[Long.BYTES];
+
+    /** 周期同步任务 */
+    private ScheduledFuture<?> syncTask;
+
+    private boolean closed;
+
+    /** 缓存的一页数据 */
+    private static class Page {
+        final long index;
+        final byte[] data;
+        int dirtyFrom = Integer.MAX_VALUE;
+        int dirtyTo = 0;
+
+        Page(long index, int size) {
+            this.index = index;
+            this.data = new byte[size];
+        }
+
+        boolean isDirty() {
+            return dirtyFrom < dirtyTo;
+        }
+
+        void markDirty(int from, int to) {
+            dirtyFrom = Math.min(dirtyFrom, from);
+            dirtyTo = Math.max(dirtyTo, to);
+        }
+    }
+
+    /**
+     * #brief: 打开带页缓存的随机读写文件
+     *
+     * @param file 文件
+     * @param mode 打开模式，{@code "r"} 只读，{@code "rw"} 读写
+     * @param pageSize 页大小，必须是 2 的幂
+     * @param maxPages 最多缓存的页数
+     * @param durability 同步策略
+     * @param syncIntervalMillis {@link Durability#PERIODIC} 策略下的同步间隔（毫秒）
+     */
+    public BufferedRandomAccessFile(File file, String mode, int pageSize, int maxPages,
+                                    Durability durability, long syncIntervalMillis) throws IOException {
+        Assert.isTrue(pageSize > 0 && (pageSize & (pageSize - 1)) == 0, "pageSize must be a power of two: %s", pageSize);
+        Assert.isTrue(maxPages > 0, "maxPages must be positive: %s", maxPages);
+        this.file = new RandomAccessFile(file, mode);
+        this.channel = this.file.getChannel();
+        this.pageShift = Integer.numberOfTrailingZeros(pageSize);
+        this.pageMask = pageSize - 1;
+        this.durability = durability;
+        this.length = this.diskLength = channel.size();
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Page> eldest) {
+                if (size() <= maxPages)
+                    return false;
+                Page page = eldest.getValue();
+                if (page.isDirty() && !writeBack(page))
+                    return false;
+                if (current == page)
+                    current = null;
+                return true;
+            }
+        };
+        if (durability == Durability.PERIODIC) {
+            Assert.isTrue(syncIntervalMillis > 0, "syncIntervalMillis must be positive: %s", syncIntervalMillis);
+            syncTask = ThreadPool.scheduleAtFixedRate(this::periodicSync,
+                    syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /** 获取指定下标的页，不在缓存中时从文件中读取 */
+    private Page page(long index, boolean overwrite) throws IOException {
+        Page page = current;
+        if (page != null && page.index == index)
+            return page;
+        page = pages.get(index);
+        if (page == null) {
+            page = new Page(index, pageMask + 1);
+            long offset = index << pageShift;
+            /* 整页都会被覆盖或者页在磁盘文件之外时，不需要读取文件 */
+            if (!overwrite && offset < diskLength) {
+                java.nio.ByteBuffer buf = java.nio.ByteBuffer.wrap(page.data);
+                while (buf.hasRemaining() && channel.read(buf, offset + buf.position()) > 0);
+            }
+            pages.put(index, page);
+        }
+        return current = page;
+    }
+
+    /** 将页中的脏数据写回文件，写回失败时返回 false 并保留脏页 */
+    private boolean writeBack(Page page) {
+        try {
+            long offset = (page.index << pageShift) + page.dirtyFrom;
+            int to = (int) Math.min(page.dirtyTo, length - (page.index << pageShift));
+            java.nio.ByteBuffer buf = java.nio.ByteBuffer.wrap(page.data, page.dirtyFrom, Math.max(0, to - page.dirtyFrom));
+            while (buf.hasRemaining())
+                channel.write(buf, offset + buf.position() - page.dirtyFrom);
+            diskLength = Math.max(diskLength, offset + to - page.dirtyFrom);
+            page.dirtyFrom = Integer.MAX_VALUE;
+            page.dirtyTo = 0;
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * #brief: 将所有脏页写回文件，不调用 fsync
+     *
+     * <p>脏页按文件中的位置顺序写回，尽量让写入是顺序的。
+     */
+    public synchronized void flush() throws IOException {
+        List<Page> dirty = new ArrayList<>();
+        for (Page page : pages.values()) {
+            if (page.isDirty())
+                dirty.add(page);
+        }
+        dirty.sort((a, b) -> Long.compare(a.index, b.index));
+        for (Page page : dirty) {
+            if (!writeBack(page))
+                throw new IOException(StringUtils.strwfmt("write back page %s failed", page.index));
+        }
+    }
+
+    /**
+     * #brief: 将所有脏页写回文件，并调用 fsync 保证数据和元数据落盘
+     */
+    public synchronized void fsync() throws IOException {
+        flush();
+        channel.force(true);
+    }
+
+    private synchronized void periodicSync() {
+        if (closed)
+            return;
+        try {
+            fsync();
+        } catch (IOException e) {
+            /* 同步失败时脏页会保留，下一次同步或者关闭时重试 */
+        }
+    }
+
+    /**
+     * 读取一个字节，读到文件末尾时返回 {@code -1}。
+     */
+    public synchronized int read() throws IOException {
+        if (position >= length)
+            return IOUtils.EOF;
+        Page page = page(position >>> pageShift, false);
+        return page.data[(int) (position++ & pageMask)] & 0xFF;
+    }
+
+    public int read(byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    /**
+     * 最多读取 {@code len} 个字节，返回实际读取的字节数，读到文件末尾时返回 {@code -1}。
+     */
+    public synchronized int read(byte[] b, int off, int len) throws IOException {
+        ArrayUtils.checkIndexSize(off, len, b.length);
+        if (len == 0)
+            return 0;
+        if (position >= length)
+            return IOUtils.EOF;
+        int n = (int) Math.min(len, length - position);
+        int done = 0;
+        while (done < n) {
+            Page page = page(position >>> pageShift, false);
+            int pos = (int) (position & pageMask);
+            int count = Math.min(n - done, page.data.length - pos);
+            System.arraycopy(page.data, pos, b, off + done, count);
+            done += count;
+            position += count;
+        }
+        return n;
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        Page page = page(position >>> pageShift, false);
+        int pos = (int) (position & pageMask);
+        page.data[pos] = (byte) b;
+        page.markDirty(pos, pos + 1);
+        length = Math.max(length, ++position);
+        afterWrite();
+    }
+
+    @Override
+    public void write(byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public synchronized void write(byte[] b, int off, int len) throws IOException {
+        ArrayUtils.checkIndexSize(off, len, b.length);
+        int done = 0;
+        while (done < len) {
+            int pos = (int) (position & pageMask);
+            int count = Math.min(len - done, pageMask + 1 - pos);
+            Page page = page(position >>> pageShift, count == pageMask + 1);
+            System.arraycopy(b, off + done, page.data, pos, count);
+            page.markDirty(pos, pos + count);
+            done += count;
+            position += count;
+            /* 后续缺页时可能淘汰刚写入的页，写回时需要使用最新的长度 */
+            length = Math.max(length, position);
+        }
+        afterWrite();
+    }
+
+    @Override
+    public synchronized void readFully(byte[] b) throws IOException {
+        readFully(b, 0, b.length);
+    }
+
+    @Override
+    public synchronized void readFully(byte[] b, int off, int len) throws IOException {
+        int n = 0;
+        while (n < len) {
+            int count = read(b, off + n, len - n);
+            if (count < 0)
+                throw new EOFException();
+            n += count;
+        }
+    }
+
+    @Override
+    public synchronized int skipBytes(int n) {
+        if (n <= 0)
+            return 0;
+        int skipped = (int) Math.max(0, Math.min(n, length - position));
+        position += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean readBoolean() throws IOException {
+        return readUnsignedByte() != 0;
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return (byte) readUnsignedByte();
+    }
+
+    @Override
+    public int readUnsignedByte() throws IOException {
+        int b = read();
+        if (b < 0)
+            throw new EOFException();
+        return b;
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        return (short) readUnsignedShort();
+    }
+
+    @Override
+    public synchronized int readUnsignedShort() throws IOException {
+        readFully(tmp, 0, Short.BYTES);
+        return ((tmp[0] & 0xFF) << 8) | (tmp[1] & 0xFF);
+    }
+
+    @Override
+    public char readChar() throws IOException {
+        return (char) readUnsignedShort();
+    }
+
+    @Override
+    public synchronized int readInt() throws IOException {
+        readFully(tmp, 0, Integer.BYTES);
+        return ((tmp[0] & 0xFF) << 24) | ((tmp[1] & 0xFF) << 16) | ((tmp[2] & 0xFF) << 8) | (tmp[3] & 0xFF);
+    }
+
+    @Override
+    public synchronized long readLong() throws IOException {
+        return ((long) readInt() << 32) | (readInt() & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * 按 {@link RandomAccessFile#readLine()} 的规则读取一行，每个字节转换成一个字符，
+     * 行结束符为 {@code \n}、{@code \r} 或 {@code \r\n}。
+     */
+    @Override
+    public synchronized String readLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c = IOUtils.EOF;
+        while ((c = read()) != IOUtils.EOF && c != '\n') {
+            if (c == '\r') {
+                if (position < length && read() != '\n')
+                    position--;
+                break;
+            }
+            line.append((char) c);
+        }
+        if (c == IOUtils.EOF && line.length() == 0)
+            return null;
+        return line.toString();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return DataInputStream.readUTF(this);
+    }
+
+    @Override
+    public void writeBoolean(boolean v) throws IOException {
+        write(v ? 1 : 0);
+    }
+
+    @Override
+    public void writeByte(int v) throws IOException {
+        write(v);
+    }
+
+    @Override
+    public synchronized void writeShort(int v) throws IOException {
+        tmp[0] = (byte) (v >>> 8);
+        tmp[1] = (byte) v;
+        write(tmp, 0, Short.BYTES);
+    }
+
+    @Override
+    public void writeChar(int v) throws IOException {
+        writeShort(v);
+    }
+
+    @Override
+    public synchronized void writeInt(int v) throws IOException {
+        tmp[0] = (byte) (v >>> 24);
+        tmp[1] = (byte) (v >>> 16);
+        tmp[2] = (byte) (v >>> 8);
+        tmp[3] = (byte) v;
+        write(tmp, 0, Integer.BYTES);
+    }
+
+    @Override
+    public synchronized void writeLong(long v) throws IOException {
+        for (int i = 0; i < Long.BYTES; i++)
+            tmp[i] = (byte) (v >>> (56 - 8 * i));
+        write(tmp, 0, Long.BYTES);
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        writeInt(Float.floatToIntBits(v));
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        writeLong(Double.doubleToLongBits(v));
+    }
+
+    /**
+     * 写入字符串中每个字符的低 8 位，和 {@link RandomAccessFile#writeBytes(String)} 一致。
+     */
+    @Override
+    public void writeBytes(String s) throws IOException {
+        byte[] b = new byte[s.length()];
+        for (int i = 0; i < b.length; i++)
+            b[i] = (byte) s.charAt(i);
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void writeChars(String s) throws IOException {
+        byte[] b = new byte[s.length() * Character.BYTES];
+        for (int i = 0, pos = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            b[pos++] = (byte) (c >>> 8);
+            b[pos++] = (byte) c;
+        }
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public void writeUTF(String s) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(s.length() + Short.BYTES);
+        new DataOutputStream(out).writeUTF(s);
+        write(out.toByteArray(), 0, out.size());
+    }
+
+    private void afterWrite() throws IOException {
+        if (durability == Durability.EVERY_WRITE) {
+            flush();
+            channel.force(false);
+        }
+    }
+
+    /**
+     * @return 当前读写位置
+     */
+    public synchronized long getFilePointer() {
+        return position;
+    }
+
+    /**
+     * 设置读写位置，可以超出文件末尾，超出部分在写入时才会改变文件长度。
+     */
+    public synchronized void seek(long pos) throws IOException {
+        if (pos < 0)
+            throw new IOException("Negative seek offset");
+        position = pos;
+    }
+
+    /**
+     * @return 文件长度，包含还没有写回的数据
+     */
+    public synchronized long length() {
+        return length;
+    }
+
+    /**
+     * 写回所有脏页后修改文件长度，并清空页缓存。
+     */
+    public synchronized void setLength(long newLength) throws IOException {
+        flush();
+        pages.clear();
+        current = null;
+        file.setLength(newLength);
+        length = diskLength = newLength;
+        position = Math.min(position, newLength);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        if (syncTask != null)
+            syncTask.cancel(false);
+        try {
+            flush();
+            if (durability != Durability.NONE)
+                channel.force(true);
+        } finally {
+            pages.clear();
+            current = null;
+            file.close();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return StringUtils.strwfmt("BufferedRandomAccessFile[pageSize=%s, cachedPages=%s, durability=%s]",
+                pageMask + 1, pages.size(), durability);
+    }
+
+}
@@ -20,13 +20,34 @@ package org.karatsuba.io;
 
 /* Creates on 2023/5/8. */
 
+import org.karatsuba.exception.AssertException;
+import org.karatsuba.exception.IOReadException;
+import org.karatsuba.utils.ArrayUtils;
+import org.karatsuba.utils.Assert;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
 /**
- * ByteBuffer 接口对象（大端模式）
+ * ByteBuffer 接口对象（默认大端模式，可以通过 {@link #order(ByteOrder)} 切换字节序）
  *
  * @author Red Gogh
  */
 @SuppressWarnings("UnusedReturnValue")
-public abstract class ByteBuffer {
+public abstract class ByteBuffer implements Closeable {
+
+    private static final AtomicIntegerFieldUpdater<ByteBuffer> REFCNT_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(ByteBuffer.class, "refCnt");
+
+    /** 引用计数，计数归 0 时缓冲区会被回收 */
+    private volatile int refCnt = 1;
 
     /**
      * @return 分配一个默认 4kb 大小的 {@link ByteBuffer} 缓冲区。
@@ -44,8 +65,8 @@ public abstract class ByteBuffer {
      * 的新 GC 机制对于特大内存（如几百G、几TB的内存）、大数据来说后续 JVM 的内存可能已经足够使用了
      * 并不需要在使用之前的 Unsafe 类去堆外分配新的内存。而且这种情况也不是安全的。
      * <p>
-     * 所以通常来说在堆中分配的内存就足以完成 90% 的使用需求了，这个类后续应该也不会扩展 DirectByteBuffer
-     * 实现类。
+     * 所以通常来说在堆中分配的内存就足以完成 90% 的使用需求了，如果需要长期持有的大缓冲区或者需要直接
+     * 交给 NIO 通道读写，请使用 {@link #allocateDirect(int)} 分配堆外内存。
      *
      * @return 创建一个 {@link HeapByteBuffer} 子类对象实例，内部的缓冲区默认大小为
      *         参数 {@code size} 的值。
@@ -54,12 +75,71 @@ public abstract class ByteBuffer {
         return new HeapByteBuffer(size);
     }
 
+    /**
+     * 分配一个默认 {@code size} 大小的堆内 {@link ByteBuffer} 缓冲区，并且使用指定的扩容策略。
+     *
+     * @param size 初始大小
+     * @param growthPolicy 容量不足时的扩容策略
+     * @return 创建一个 {@link HeapByteBuffer} 子类对象实例
+     * @see GrowthPolicy
+     */
+    public static ByteBuffer allocate(int size, GrowthPolicy growthPolicy) {
+        return new HeapByteBuffer(size, growthPolicy);
+    }
+
+    /**
+     * 分配一个按固定大小分块存储的 {@link ChunkedByteBuffer} 缓冲区。追加数据时只会链接新的块，
+     * 不会重新分配和拷贝已有数据，适合构建几 MB 以上的大数据块。
+     *
+     * @param chunkSize 每个块的大小，必须是 2 的幂
+     * @return 创建一个 {@link ChunkedByteBuffer} 子类对象实例
+     */
+    public static ByteBuffer allocateChunked(int chunkSize) {
+        return new ChunkedByteBuffer(chunkSize);
+    }
+
+    /**
+     * @return 分配一个默认 4kb 大小的堆外 {@link ByteBuffer} 缓冲区。
+     */
+    public static ByteBuffer allocateDirect() {
+        return allocateDirect(IOUtils.DEFAULT_BYTE_BUFFER_SIZE);
+    }
+
+    /**
+     * 分配一个默认 {@code size} 大小的堆外 {@link ByteBuffer} 缓冲区。该缓冲区使用操作系统的本地内存
+     * 储存数据，不占用 JVM 堆内存，也不会被 GC 搬运，适合大块、长期持有的缓冲区。
+     * <p>
+     * 通过 {@link #nioBuffer()} 得到的视图可以直接交给 {@code FileChannel}、{@code SocketChannel}
+     * 读写，避免 JDK 内部再拷贝一次到临时的堆外缓冲区。
+     * <p>
+     * 堆外内存使用完毕后需要调用 {@link #close()} 立即释放。
+     *
+     * @return 创建一个 {@link DirectByteBuffer} 子类对象实例，内部的缓冲区默认大小为
+     *         参数 {@code size} 的值。
+     */
+    public static ByteBuffer allocateDirect(int size) {
+        return new DirectByteBuffer(size);
+    }
+
+    /**
+     * 从默认的 {@link ByteBufferPool} 缓冲池中分配一个至少 {@code size} 大小的 {@link ByteBuffer}
+     * 缓冲区。使用完毕后需要调用 {@link #release()} 将缓冲区归还到缓冲池中。
+     *
+     * @return 缓冲池中的缓冲区对象实例
+     * @see ByteBufferPool#allocate(int)
+     */
+    public static ByteBuffer allocatePooled(int size) {
+        return ByteBufferPool.getDefault().allocate(size);
+    }
+
     /**
      * #brief：传入一个字节数组，将字节数组封装成 ByteBuf 对象。读写指针默认在最后一位。<p>
      *
      * 传入一个字节数组，将字节数组封装成 ByteBuf 对象。这个字节数组可以是
      * 任意大小。封装后读写指针位置将重置在最后一位方便数据写入。<p>
      *
+     * 封装不会拷贝数据，缓冲区和 {@code b} 共享同一个数组，详见 {@link #wrap(byte[], int, int)}。<p>
+     *
      * @param b
      *        字节数组
      *
@@ -75,6 +155,13 @@ public abstract class ByteBuffer {
      * 传入一个字节数组，将字节数组封装成 ByteBuf 对象。这个字节数组可以是
      * 任意大小。封装后读写指针位置将重置在最后一位方便数据写入。<p>
      *
+     * 封装不会拷贝数据，缓冲区直接共享 {@code b[off, off + len)} 区域，对缓冲区的修改
+     * 会反映到 {@code b} 中，之后对 {@code b} 的修改同样会反映到缓冲区中。当写入的数据超出
+     * 这个区域时，缓冲区会扩容并拷贝到新的数组，之后就不再和 {@code b} 共享数据了。<p>
+     *
+     * <b>注意：</b>旧版本的 {@code wrap} 会把数据拷贝到新的数组中。如果封装后还会继续修改
+     * 或者复用 {@code b}，需要独立副本时请使用 {@code ByteBuffer.wrap(b, off, len).duplicate()}。<p>
+     *
      * @param b
      *        要写入数据的字节数组
      *
@@ -87,9 +174,8 @@ public abstract class ByteBuffer {
      * @return 封装了 {@code b} 字节数组的缓冲区对象实例。
      */
     public static ByteBuffer wrap(byte[] b, int off, int len) {
-        ByteBuffer buffer = allocate();
-        buffer.writeBytes(b, off, len);
-        return buffer;
+        ArrayUtils.checkIndexSize(off, len, b.length);
+        return new HeapByteBuffer(b, off, len);
     }
 
     /**
@@ -102,6 +188,56 @@ public abstract class ByteBuffer {
      */
     public abstract ByteBuffer duplicate();
 
+    /**
+     * #brief: 创建共享当前缓冲区全部有效数据的切片。<p>
+     *
+     * 等同于 {@code slice(0, capacity())}。
+     *
+     * @return 切片缓冲区
+     * @see #slice(int, int)
+     */
+    public ByteBuffer slice() {
+        return slice(0, capacity());
+    }
+
+    /**
+     * #brief: 创建共享当前缓冲区指定区域的切片，不拷贝数据。<p>
+     *
+     * 切片和当前缓冲区共享 {@code [off, off + len)} 这段内存，读写指针、标记位置相互独立，
+     * 切片的读写指针从 0 开始。切片大小固定，不能写入超出区域范围的数据。切片和当前缓冲区
+     * 共享引用计数，对切片调用 {@link #release()} 等同于对当前缓冲区调用。
+     * <p>
+     * 当前缓冲区扩容、压缩以后切片会继续引用旧的内存，关闭以后切片不可再使用。
+     *
+     * @param off
+     *        切片在当前缓冲区中的起始位置
+     *
+     * @param len
+     *        切片长度
+     *
+     * @return 切片缓冲区
+     */
+    public ByteBuffer slice(int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, capacity());
+        if (!isContiguous())
+            return new ViewByteBuffer(this, off, len, false).order(order());
+        return new ViewByteBuffer(this, nioBuffer().slice(off, len), false).order(order());
+    }
+
+    /**
+     * #brief: 创建当前缓冲区全部有效数据的只读视图，不拷贝数据。<p>
+     *
+     * 视图的读写指针从 0 开始，任何写入操作都会抛出异常。其他特性与 {@link #slice(int, int)}
+     * 一致。
+     *
+     * @return 只读视图
+     */
+    public ByteBuffer asReadOnly() {
+        if (!isContiguous())
+            return new ViewByteBuffer(this, 0, capacity(), true).order(order());
+        return new ViewByteBuffer(this, nioBuffer().asReadOnlyBuffer(), true).order(order());
+    }
+
     /**
      * 获取缓冲区的总大小（单位：字节）。
      *
@@ -133,6 +269,19 @@ public abstract class ByteBuffer {
      */
     public abstract int capacity();
 
+    /**
+     * @return 当前缓冲区读写基本类型时使用的字节序，默认为 {@link ByteOrder#BIG_ENDIAN}。
+     */
+    public abstract ByteOrder order();
+
+    /**
+     * 设置读写基本类型（char、short、int、long、float、double）时使用的字节序。
+     *
+     * @param order 字节序
+     * @return 当前缓冲区
+     */
+    public abstract ByteBuffer order(ByteOrder order);
+
     /**
      * 将缓冲区的读取/写入位置设置到指定的偏移量（相对于起始位置）。
      *
@@ -266,6 +415,83 @@ public abstract class ByteBuffer {
      */
     public abstract double readDouble();
 
+    /**
+     * #brief: 批量读取 int 数组。<p>
+     *
+     * 从当前位置开始读取 {@code dst.length} 个 int 值，每个占用 4 个字节。数据在连续的
+     * 数组中时会直接批量读取，不需要逐个经过临时缓冲区。
+     *
+     * @param dst 读取的目标数组
+     * @return {@code dst}
+     */
+    public int[] readInts(int[] dst) {
+        return readInts(dst, 0, dst.length);
+    }
+
+    /**
+     * #brief: 批量读取 {@code len} 个 int 值到 {@code dst[off]} 开始的位置。<p>
+     *
+     * @see #readInts(int[])
+     */
+    public abstract int[] readInts(int[] dst, int off, int len);
+
+    /**
+     * #brief: 批量读取 long 数组。<p>
+     *
+     * 从当前位置开始读取 {@code dst.length} 个 long 值，每个占用 8 个字节。
+     *
+     * @param dst 读取的目标数组
+     * @return {@code dst}
+     */
+    public long[] readLongs(long[] dst) {
+        return readLongs(dst, 0, dst.length);
+    }
+
+    /**
+     * #brief: 批量读取 {@code len} 个 long 值到 {@code dst[off]} 开始的位置。<p>
+     *
+     * @see #readLongs(long[])
+     */
+    public abstract long[] readLongs(long[] dst, int off, int len);
+
+    /**
+     * #brief: 批量读取 float 数组。<p>
+     *
+     * 从当前位置开始读取 {@code dst.length} 个 float 值，每个占用 4 个字节。
+     *
+     * @param dst 读取的目标数组
+     * @return {@code dst}
+     */
+    public float[] readFloats(float[] dst) {
+        return readFloats(dst, 0, dst.length);
+    }
+
+    /**
+     * #brief: 批量读取 {@code len} 个 float 值到 {@code dst[off]} 开始的位置。<p>
+     *
+     * @see #readFloats(float[])
+     */
+    public abstract float[] readFloats(float[] dst, int off, int len);
+
+    /**
+     * #brief: 批量读取 double 数组。<p>
+     *
+     * 从当前位置开始读取 {@code dst.length} 个 double 值，每个占用 8 个字节。
+     *
+     * @param dst 读取的目标数组
+     * @return {@code dst}
+     */
+    public double[] readDoubles(double[] dst) {
+        return readDoubles(dst, 0, dst.length);
+    }
+
+    /**
+     * #brief: 批量读取 {@code len} 个 double 值到 {@code dst[off]} 开始的位置。<p>
+     *
+     * @see #readDoubles(double[])
+     */
+    public abstract double[] readDoubles(double[] dst, int off, int len);
+
     /**
      * #brief: 从字节数组中读取指定长度的字节数据。<p>
      *
@@ -378,6 +604,256 @@ public abstract class ByteBuffer {
      */
     public abstract ByteBuffer writeDouble(double d);
 
+    /**
+     * #brief: 批量写入 int 数组。<p>
+     *
+     * 写入 {@code src} 中所有的 int 值，每个占用 4 个字节。数据在连续的数组中时会直接批量
+     * 写入，不需要逐个经过临时缓冲区。
+     *
+     * @param src 要写入的数组
+     */
+    public ByteBuffer writeInts(int[] src) {
+        return writeInts(src, 0, src.length);
+    }
+
+    /**
+     * #brief: 批量写入 {@code src[off]} 开始的 {@code len} 个 int 值。<p>
+     *
+     * @see #writeInts(int[])
+     */
+    public abstract ByteBuffer writeInts(int[] src, int off, int len);
+
+    /**
+     * #brief: 批量写入 long 数组。<p>
+     *
+     * 写入 {@code src} 中所有的 long 值，每个占用 8 个字节。
+     *
+     * @param src 要写入的数组
+     */
+    public ByteBuffer writeLongs(long[] src) {
+        return writeLongs(src, 0, src.length);
+    }
+
+    /**
+     * #brief: 批量写入 {@code src[off]} 开始的 {@code len} 个 long 值。<p>
+     *
+     * @see #writeLongs(long[])
+     */
+    public abstract ByteBuffer writeLongs(long[] src, int off, int len);
+
+    /**
+     * #brief: 批量写入 float 数组。<p>
+     *
+     * 写入 {@code src} 中所有的 float 值，每个占用 4 个字节。
+     *
+     * @param src 要写入的数组
+     */
+    public ByteBuffer writeFloats(float[] src) {
+        return writeFloats(src, 0, src.length);
+    }
+
+    /**
+     * #brief: 批量写入 {@code src[off]} 开始的 {@code len} 个 float 值。<p>
+     *
+     * @see #writeFloats(float[])
+     */
+    public abstract ByteBuffer writeFloats(float[] src, int off, int len);
+
+    /**
+     * #brief: 批量写入 double 数组。<p>
+     *
+     * 写入 {@code src} 中所有的 double 值，每个占用 8 个字节。
+     *
+     * @param src 要写入的数组
+     */
+    public ByteBuffer writeDoubles(double[] src) {
+        return writeDoubles(src, 0, src.length);
+    }
+
+    /**
+     * #brief: 批量写入 {@code src[off]} 开始的 {@code len} 个 double 值。<p>
+     *
+     * @see #writeDoubles(double[])
+     */
+    public abstract ByteBuffer writeDoubles(double[] src, int off, int len);
+
+    /**
+     * #brief: 以 varint 格式写入 int 值。<p>
+     *
+     * 每个字节保存 7 位数据，最高位表示后面是否还有字节，小于 128 的值只占用 1 个字节，
+     * 最多占用 5 个字节。负数总是占用 5 个字节，有符号的值请使用 {@link #writeZigZagInt(int)}。
+     *
+     * @param v int 值
+     */
+    public ByteBuffer writeVarInt(int v) {
+        return writeVarLong(v & 0xFFFFFFFFL);
+    }
+
+    /**
+     * #brief: 以 varint 格式写入 long 值，最多占用 10 个字节。<p>
+     *
+     * @see #writeVarInt(int)
+     */
+    public ByteBuffer writeVarLong(long v) {
+        while ((v & ~0x7FL) != 0) {
+            writeByte((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        return writeByte((byte) v);
+    }
+
+    /**
+     * #brief: 以 zigzag + varint 格式写入有符号的 int 值。<p>
+     *
+     * zigzag 编码把有符号数映射成无符号数（0, -1, 1, -2 -> 0, 1, 2, 3），绝对值小的负数
+     * 也只占用很少的字节。
+     *
+     * @param v int 值
+     */
+    public ByteBuffer writeZigZagInt(int v) {
+        return writeVarInt((v << 1) ^ (v >> 31));
+    }
+
+    /**
+     * #brief: 以 zigzag + varint 格式写入有符号的 long 值。<p>
+     *
+     * @see #writeZigZagInt(int)
+     */
+    public ByteBuffer writeZigZagLong(long v) {
+        return writeVarLong((v << 1) ^ (v >> 63));
+    }
+
+    /**
+     * #brief: 读取 varint 格式的 int 值。<p>
+     *
+     * @see #writeVarInt(int)
+     */
+    public int readVarInt() {
+        long v = readVarLong();
+        Assert.isTrue((v >>> 32) == 0, "varint too long: %s", v);
+        return (int) v;
+    }
+
+    /**
+     * #brief: 读取 varint 格式的 long 值。<p>
+     *
+     * @see #writeVarLong(long)
+     */
+    public long readVarLong() {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return v;
+        }
+        throw new AssertException("malformed varint");
+    }
+
+    /**
+     * #brief: 读取 zigzag + varint 格式的 int 值。<p>
+     *
+     * @see #writeZigZagInt(int)
+     */
+    public int readZigZagInt() {
+        int v = readVarInt();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * #brief: 读取 zigzag + varint 格式的 long 值。<p>
+     *
+     * @see #writeZigZagLong(long)
+     */
+    public long readZigZagLong() {
+        long v = readVarLong();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /**
+     * #brief: 计算 long 值编码成 varint 后的字节数。<p>
+     *
+     * @param v long 值
+     * @return varint 编码的字节数，1 到 10
+     * @see #writeVarLong(long)
+     */
+    public static int varLongLength(long v) {
+        return (63 - Long.numberOfLeadingZeros(v)) / 7 + 1;
+    }
+
+    /**
+     * #brief: 计算字符序列编码成 UTF-8 后的字节数。<p>
+     *
+     * 可以在 {@link #writeUtf8(CharSequence)} 之前先写入长度，读取时再传给
+     * {@link #readUtf8(int)}。不成对的代理字符按 {@code '?'} 计算，和
+     * {@link String#getBytes(java.nio.charset.Charset)} 的行为一致。
+     *
+     * @param cs 字符序列
+     * @return UTF-8 编码的字节数
+     */
+    public static int utf8Length(CharSequence cs) {
+        int len = cs.length();
+        int n = len;
+        for (int i = 0; i < len; i++) {
+            char c = cs.charAt(i);
+            if (c < 0x80)
+                continue;
+            if (c < 0x800) {
+                n += 1;
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(cs.charAt(i + 1))) {
+                n += 2;
+                i++;
+            } else if (!Character.isSurrogate(c)) {
+                n += 2;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * #brief: 以 UTF-8 编码写入字符序列，不写入长度。<p>
+     *
+     * 字符直接编码到缓冲区的底层存储中，不会像 {@link String#getBytes()} 一样创建临时数组。
+     * 写入的字节数可以通过 {@link #utf8Length(CharSequence)} 计算。
+     *
+     * @param cs 字符序列
+     */
+    public ByteBuffer writeUtf8(CharSequence cs) {
+        int len = cs.length();
+        for (int i = 0; i < len; i++) {
+            char c = cs.charAt(i);
+            if (c < 0x80) {
+                writeByte((byte) c);
+            } else if (c < 0x800) {
+                writeByte((byte) (0xC0 | (c >> 6)));
+                writeByte((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(cs.charAt(i + 1))) {
+                int cp = Character.toCodePoint(c, cs.charAt(++i));
+                writeByte((byte) (0xF0 | (cp >> 18)));
+                writeByte((byte) (0x80 | ((cp >> 12) & 0x3F)));
+                writeByte((byte) (0x80 | ((cp >> 6) & 0x3F)));
+                writeByte((byte) (0x80 | (cp & 0x3F)));
+            } else if (Character.isSurrogate(c)) {
+                writeByte((byte) '?');
+            } else {
+                writeByte((byte) (0xE0 | (c >> 12)));
+                writeByte((byte) (0x80 | ((c >> 6) & 0x3F)));
+                writeByte((byte) (0x80 | (c & 0x3F)));
+            }
+        }
+        return this;
+    }
+
+    /**
+     * #brief: 读取 {@code nb} 个字节并按 UTF-8 解码成字符串。<p>
+     *
+     * @param nb UTF-8 编码的字节数
+     * @return 解码后的字符串
+     */
+    public String readUtf8(int nb) {
+        return new String(readBytes(nb), StandardCharsets.UTF_8);
+    }
+
     /**
      * 将整个字节缓冲的内容写入到 {@link ByteBuffer} 中。
      */
@@ -443,6 +919,235 @@ public abstract class ByteBuffer {
      */
     abstract void write0(byte[] b, int off, int len);
 
+    /** 没有直接访问底层存储时，适配器中转数据使用的临时缓冲区大小 */
+    static final int TRANSFER_BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * #brief: 以 {@link InputStream} 的形式读取缓冲区<p>
+     *
+     * 从当前读写索引开始读取，读取会移动缓冲区的索引。流直接从底层存储拷贝数据到调用方的数组，
+     * 不会像 {@code new ByteArrayInputStream(toByteArray())} 那样先拷贝一份完整的数据。关闭流
+     * 不会关闭缓冲区。
+     *
+     * @return 共享当前缓冲区的输入流
+     */
+    public InputStream asInputStream() {
+        return new InputStream() {
+            @Override
+            public int read() {
+                return readableBytes() > 0 ? readByte() & 0xff : IOUtils.EOF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (len == 0)
+                    return 0;
+                return readBytes(b, off, len);
+            }
+
+            @Override
+            public long skip(long n) {
+                int skip = (int) Math.min(Math.max(n, 0), readableBytes());
+                skipBytes(skip);
+                return skip;
+            }
+
+            @Override
+            public int available() {
+                return readableBytes();
+            }
+        };
+    }
+
+    /**
+     * #brief: 以 {@link OutputStream} 的形式写入缓冲区<p>
+     *
+     * 写入的数据从当前读写索引开始直接写入底层存储，容量不足时按缓冲区的规则扩容。关闭流不会
+     * 关闭缓冲区。
+     *
+     * @return 共享当前缓冲区的输出流
+     */
+    public OutputStream asOutputStream() {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+                writeByte((byte) b);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                writeBytes(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * #brief: 以 {@link ReadableByteChannel} 的形式读取缓冲区<p>
+     *
+     * 和 {@link #asInputStream()} 相同，从当前读写索引开始读取。堆内和堆外缓冲区会直接从底层
+     * 存储拷贝到目标 {@link java.nio.ByteBuffer}。关闭通道不会关闭缓冲区。
+     *
+     * @return 共享当前缓冲区的可读通道
+     */
+    public ReadableByteChannel asReadableChannel() {
+        return new ReadableByteChannel() {
+            private boolean open = true;
+
+            @Override
+            public int read(java.nio.ByteBuffer dst) throws IOException {
+                if (!open)
+                    throw new java.nio.channels.ClosedChannelException();
+                if (readableBytes() == 0)
+                    return dst.hasRemaining() ? IOUtils.EOF : 0;
+                return transferTo(dst);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return open;
+            }
+
+            @Override
+            public void close() {
+                open = false;
+            }
+        };
+    }
+
+    /**
+     * #brief: 以 {@link WritableByteChannel} 的形式写入缓冲区<p>
+     *
+     * 和 {@link #asOutputStream()} 相同，从当前读写索引开始写入，每次调用都会写完 {@code src}
+     * 中的全部数据。关闭通道不会关闭缓冲区。
+     *
+     * @return 共享当前缓冲区的可写通道
+     */
+    public WritableByteChannel asWritableChannel() {
+        return new WritableByteChannel() {
+            private boolean open = true;
+
+            @Override
+            public int write(java.nio.ByteBuffer src) throws IOException {
+                if (!open)
+                    throw new java.nio.channels.ClosedChannelException();
+                return transferFrom(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return open;
+            }
+
+            @Override
+            public void close() {
+                open = false;
+            }
+        };
+    }
+
+    /**
+     * #brief: 从输入流中读取最多 {@code n} 个字节写入缓冲区<p>
+     *
+     * 数据从当前读写索引开始直接读入底层存储，直到读满 {@code n} 个字节或者输入流结束。
+     * 不会关闭输入流。
+     *
+     * @param in 输入流
+     * @param n 最多读取的字节数
+     * @return 实际读取的字节数，输入流已经结束时返回 {@link IOUtils#EOF}
+     */
+    public int readFrom(InputStream in, int n) {
+        Assert.isTrue(n >= 0, "n must not be negative: %s", n);
+        byte[] b = new byte[Math.min(n, TRANSFER_BUFFER_SIZE)];
+        int total = 0;
+        try {
+            while (total < n) {
+                int r = in.read(b, 0, Math.min(b.length, n - total));
+                if (r < 0)
+                    break;
+                writeBytes(b, 0, r);
+                total += r;
+            }
+        } catch (IOException e) {
+            throw new IOReadException(e);
+        }
+        return total == 0 && n > 0 ? IOUtils.EOF : total;
+    }
+
+    /**
+     * #brief: 从通道中读取最多 {@code n} 个字节写入缓冲区<p>
+     *
+     * 数据从当前读写索引开始直接读入底层存储，直到读满 {@code n} 个字节、通道结束，或者非阻塞
+     * 通道暂时没有数据可读。不会关闭通道。
+     *
+     * @param channel 可读通道
+     * @param n 最多读取的字节数
+     * @return 实际读取的字节数，通道已经结束时返回 {@link IOUtils#EOF}
+     */
+    public int readFrom(ReadableByteChannel channel, int n) {
+        Assert.isTrue(n >= 0, "n must not be negative: %s", n);
+        java.nio.ByteBuffer b = java.nio.ByteBuffer.allocate(Math.min(n, TRANSFER_BUFFER_SIZE));
+        int total = 0;
+        try {
+            while (total < n) {
+                b.clear().limit(Math.min(b.capacity(), n - total));
+                int r = channel.read(b);
+                if (r <= 0) {
+                    if (r < 0 && total == 0)
+                        return IOUtils.EOF;
+                    break;
+                }
+                writeBytes(b.array(), 0, r);
+                total += r;
+            }
+        } catch (IOException e) {
+            throw new IOReadException(e);
+        }
+        return total;
+    }
+
+    /**
+     * 读取数据到 {@code dst}，最多读取 {@code dst.remaining()} 个字节，子类可以覆盖这个函数直接
+     * 访问底层存储。
+     *
+     * @return 读取的字节数
+     */
+    int transferTo(java.nio.ByteBuffer dst) {
+        int n = Math.min(dst.remaining(), readableBytes());
+        if (dst.hasArray()) {
+            readBytes(dst.array(), dst.arrayOffset() + dst.position(), n);
+            dst.position(dst.position() + n);
+        } else {
+            byte[] b = new byte[Math.min(n, TRANSFER_BUFFER_SIZE)];
+            for (int remaining = n; remaining > 0; ) {
+                int r = readBytes(b, 0, Math.min(b.length, remaining));
+                dst.put(b, 0, r);
+                remaining -= r;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * 写入 {@code src} 中的全部数据，子类可以覆盖这个函数直接访问底层存储。
+     *
+     * @return 写入的字节数
+     */
+    int transferFrom(java.nio.ByteBuffer src) {
+        int n = src.remaining();
+        if (src.hasArray()) {
+            writeBytes(src.array(), src.arrayOffset() + src.position(), n);
+            src.position(src.limit());
+        } else {
+            byte[] b = new byte[Math.min(n, TRANSFER_BUFFER_SIZE)];
+            while (src.hasRemaining()) {
+                int r = Math.min(b.length, src.remaining());
+                src.get(b, 0, r);
+                writeBytes(b, 0, r);
+            }
+        }
+        return n;
+    }
+
     /**
      * @return 分配一个新的 {@code byte} 字节数组，将 {@link ByteBuffer} 缓冲区中
      *         有效的数据拷贝到新分配的字节数组，并返回。
@@ -457,4 +1162,94 @@ public abstract class ByteBuffer {
      */
     public abstract ByteBuffer compact();
 
+    /**
+     * #brief: 获取缓冲区有效数据的 NIO 视图<p>
+     *
+     * 返回一个共享当前缓冲区内存的 {@link java.nio.ByteBuffer}，范围为 {@code [0, capacity())}，
+     * 不会拷贝数据。视图在缓冲区扩容、压缩或关闭后失效，需要重新获取。
+     *
+     * @return 共享内存的 {@link java.nio.ByteBuffer} 视图
+     */
+    public abstract java.nio.ByteBuffer nioBuffer();
+
+    /**
+     * #brief: 释放缓冲区占用的内存<p>
+     *
+     * 堆内缓冲区由 GC 回收，默认什么都不做。堆外缓冲区等需要手动管理内存的子类会在
+     * 这里释放内存，释放后缓冲区不可再使用。
+     */
+    @Override
+    public void close() {
+        /* do nothing... */
+    }
+
+    /**
+     * @return 当前缓冲区的引用计数，计数为 0 表示缓冲区已经被回收。
+     */
+    public int refCnt() {
+        return refCnt;
+    }
+
+    /**
+     * #brief: 引用计数加 1<p>
+     *
+     * 当缓冲区需要交给其他组件持有时调用，每次 {@code retain()} 都需要对应一次
+     * {@link #release()}。
+     *
+     * @return 当前缓冲区
+     */
+    public ByteBuffer retain() {
+        for (;;) {
+            int cnt = refCnt;
+            Assert.isTrue(cnt > 0, "ByteBuffer already released.");
+            if (REFCNT_UPDATER.compareAndSet(this, cnt, cnt + 1))
+                return this;
+        }
+    }
+
+    /**
+     * #brief: 引用计数减 1，计数归 0 时回收缓冲区<p>
+     *
+     * 缓冲池分配的缓冲区会被归还到缓冲池中，其他缓冲区则会调用 {@link #close()} 释放内存。
+     * 缓冲区回收后就不能再继续使用了。
+     *
+     * @return 如果引用计数归 0 并且缓冲区已经被回收则返回 {@code true}
+     */
+    public boolean release() {
+        for (;;) {
+            int cnt = refCnt;
+            Assert.isTrue(cnt > 0, "ByteBuffer already released.");
+            if (REFCNT_UPDATER.compareAndSet(this, cnt, cnt - 1)) {
+                if (cnt == 1) {
+                    deallocate();
+                    return true;
+                }
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 有效数据是否在一段连续的内存中，{@link #nioBuffer()} 可以不拷贝直接共享。内存不连续的缓冲区
+     * 创建切片、视图时按偏移量转发读写。
+     */
+    boolean isContiguous() {
+        return true;
+    }
+
+    /** 缓冲区内存是否仍然可以访问，切片、视图访问内存前会检查 */
+    boolean isAccessible() {
+        return true;
+    }
+
+    /** 重置引用计数，缓冲池复用缓冲区时调用 */
+    void resetRefCnt() {
+        REFCNT_UPDATER.set(this, 1);
+    }
+
+    /** 引用计数归 0 时回收缓冲区 */
+    void deallocate() {
+        close();
+    }
+
 }
@@ -0,0 +1,354 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.string.StringUtils;
+import org.karatsuba.utils.Assert;
+
+import java.lang.ref.Cleaner;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * `ByteBufferPool` 是一个 {@link ByteBuffer} 缓冲池，用于在高频分配的场景下复用缓冲区，避免每次
+ * 分配都创建新的字节数组或堆外内存。
+ *
+ * <p>缓冲池的实现方式如下：
+ * <ul>
+ *     <li>按 2 的幂划分大小等级（默认 256B ~ 1MB），分配时向上取整到最近的等级，超过最大等级的
+ *         请求不走缓冲池，直接分配。</li>
+ *     <li>每个线程为每个大小等级维护一个本地弹匣（magazine），分配和归还优先在本地完成，不需要
+ *         任何同步操作。本地弹匣满了以后溢出到全局共享队列，全局队列也满了则直接丢弃。</li>
+ *     <li>缓冲区使用引用计数管理生命周期，调用 {@link ByteBuffer#release()} 计数归 0 时归还到
+ *         缓冲池。</li>
+ *     <li>可选的泄漏检测：按采样间隔记录分配时的调用栈，如果缓冲区在没有 {@code release()} 的情况下
+ *         被 GC 回收，则会打印分配时的调用栈。</li>
+ * </ul>
+ *
+ * <p>通过 {@link #hitCount()}、{@link #missCount()}、{@link #outstandingBytes()} 等计数器可以在
+ * 生产环境负载下观察命中率以及调整缓冲池大小。
+ *
+ * <h2>使用示例</h2>
+ * <pre>
+ *     ByteBuffer buffer = ByteBuffer.allocatePooled(4 * IOUtils.KB);
+ *     try {
+ *         buffer.writeInt(12138);
+ *         ...
+ *     } finally {
+ *         buffer.release();
+ *     }
+ * </pre>
+ *
+ * @author Red Gogh
+ */
+public class ByteBufferPool {
+
+    /** 最小大小等级 256B */
+    private static final int MIN_SHIFT = 8;
+
+    /** 最大大小等级 1MB */
+    private static final int MAX_SHIFT = 20;
+
+    /** 每个线程每个大小等级最多缓存的缓冲区数量 */
+    private static final int DEFAULT_MAGAZINE_SIZE = 32;
+
+    /** 全局共享队列中每个大小等级最多缓存的缓冲区数量 */
+    private static final int DEFAULT_SHARED_SIZE = 256;
+
+    private static final Cleaner leakCleaner = Cleaner.create();
+
+    private static final ByteBufferPool defaultPool = new ByteBufferPool(false);
+
+    /** 是否分配堆外缓冲区 */
+    private final boolean direct;
+
+    private final int magazineSize;
+
+    private final int sharedSize;
+
+    /** 线程本地弹匣，下标为大小等级 */
+    private final ThreadLocal<Magazine[]> magazines;
+
+    /** 全局共享队列，下标为大小等级 */
+    private final ConcurrentLinkedQueue<AbstractByteBuffer>[] shared;
+    private final AtomicInteger[] sharedCounts;
+
+    /** 泄漏检测采样间隔，0 表示关闭，1 表示每次分配都记录 */
+    private volatile int leakSampleInterval = 0;
+
+    /* 统计计数器 */
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder outstanding = new LongAdder();
+    private final LongAdder leaks = new LongAdder();
+
+    /**
+     * 线程本地弹匣，只会被所属线程访问。
+     */
+    private static class Magazine {
+        final AbstractByteBuffer[] buffers;
+        int count;
+
+        Magazine(int size) {
+            buffers = new AbstractByteBuffer[size];
+        }
+
+        AbstractByteBuffer pop() {
+            if (count == 0)
+                return null;
+            AbstractByteBuffer buffer = buffers[--count];
+            buffers[count] = null;
+            return buffer;
+        }
+
+        boolean push(AbstractByteBuffer buffer) {
+            if (count == buffers.length)
+                return false;
+            buffers[count++] = buffer;
+            return true;
+        }
+    }
+
+    /**
+     * 泄漏检测记录，保存分配时的调用栈。记录本身不能引用缓冲区，否则缓冲区永远不会被回收。
+     */
+    static class LeakTracker implements Runnable {
+        private final LongAdder leaks;
+        private final Throwable site;
+        private volatile boolean released;
+        private Cleaner.Cleanable cleanable;
+
+        LeakTracker(LongAdder leaks, int size) {
+            this.leaks = leaks;
+            this.site = new Throwable(StringUtils.strwfmt("LEAK: ByteBuffer(size=%s) was garbage collected " +
+                    "before release() was called, allocated at:", size));
+        }
+
+        @Override
+        public void run() {
+            if (!released) {
+                leaks.increment();
+                site.printStackTrace();
+            }
+        }
+
+        void close() {
+            released = true;
+            cleanable.clean();
+        }
+    }
+
+    /**
+     * @return 默认的堆内缓冲池
+     */
+    public static ByteBufferPool getDefault() {
+        return defaultPool;
+    }
+
+    /**
+     * 创建一个使用默认弹匣大小的缓冲池。
+     *
+     * @param direct 是否分配堆外缓冲区
+     */
+    public ByteBufferPool(boolean direct) {
+        this(direct, DEFAULT_MAGAZINE_SIZE, DEFAULT_SHARED_SIZE);
+    }
+
+    /**
+     * 创建一个缓冲池。
+     *
+     * @param direct       是否分配堆外缓冲区
+     * @param magazineSize 每个线程每个大小等级最多缓存的缓冲区数量
+     * @param sharedSize   全局共享队列中每个大小等级最多缓存的缓冲区数量
+     */
+    public ByteBufferPool(boolean direct, int magazineSize, int sharedSize) {
+        Assert.isTrue(magazineSize >= 0 && sharedSize >= 0, "Invalid pool size, magazine=%s, shared=%s", magazineSize, sharedSize);
+        int nclass = MAX_SHIFT - MIN_SHIFT + 1;
+        this.direct = direct;
+        this.magazineSize = magazineSize;
+        this.sharedSize = sharedSize;
+        this.magazines = ThreadLocal.withInitial(() -> {
+            Magazine[] retval = new Magazine[nclass];
+            for (int i = 0; i < nclass; i++)
+                retval[i] = new Magazine(this.magazineSize);
+            return retval;
+        });
+        this.shared = newQueues(nclass);
+        this.sharedCounts = new AtomicInteger[nclass];
+        for (int i = 0; i < nclass; i++) {
+            shared[i] = new ConcurrentLinkedQueue<>();
+            sharedCounts[i] = new AtomicInteger();
+        }
+    }
+
+    /**
+     * 创建每个大小等级共享的缓冲区队列，泛型数组只能通过通配符数组转换得到。
+     */
+    @SuppressWarnings("unchecked")
+    private static ConcurrentLinkedQueue<AbstractByteBuffer>[] newQueues(int n) {
+        return (ConcurrentLinkedQueue<AbstractByteBuffer>[]) new ConcurrentLinkedQueue<?>[n];
+    }
+
+    /**
+     * 计算 {@code size} 向上取整后所属的大小等级，超过最大等级返回 -1。
+     */
+    private static int sizeClass(int size) {
+        if (size <= (1 << MIN_SHIFT))
+            return 0;
+        int shift = 32 - Integer.numberOfLeadingZeros(size - 1);
+        return shift > MAX_SHIFT ? -1 : shift - MIN_SHIFT;
+    }
+
+    /**
+     * 缓冲区大小正好等于某个大小等级时返回该等级，否则返回 -1。
+     */
+    private static int exactSizeClass(int size) {
+        if (Integer.bitCount(size) != 1)
+            return -1;
+        int shift = Integer.numberOfTrailingZeros(size);
+        return shift < MIN_SHIFT || shift > MAX_SHIFT ? -1 : shift - MIN_SHIFT;
+    }
+
+    private AbstractByteBuffer newBuffer(int size) {
+        return direct ? new DirectByteBuffer(size) : new HeapByteBuffer(size);
+    }
+
+    /**
+     * #brief: 从缓冲池中分配一个至少 {@code size} 大小的缓冲区
+     *
+     * <p>分配时优先从当前线程的本地弹匣中获取，然后是全局共享队列，都没有的时候才会创建新的
+     * 缓冲区。超过最大大小等级的请求不走缓冲池，{@code release()} 时直接释放。
+     *
+     * @param size 最小缓冲区大小
+     * @return 缓冲区对象实例，引用计数为 1
+     */
+    public ByteBuffer allocate(int size) {
+        Assert.isTrue(size >= 0, "Invalid buffer size: %s", size);
+
+        int sizeClass = sizeClass(size);
+        if (sizeClass < 0) {
+            misses.increment();
+            return newBuffer(size);
+        }
+
+        AbstractByteBuffer buffer = magazines.get()[sizeClass].pop();
+        if (buffer == null && (buffer = shared[sizeClass].poll()) != null)
+            sharedCounts[sizeClass].decrementAndGet();
+
+        if (buffer != null) {
+            hits.increment();
+            buffer.clear0();
+            buffer.resetRefCnt();
+        } else {
+            misses.increment();
+            buffer = newBuffer(1 << (sizeClass + MIN_SHIFT));
+            buffer.pool = this;
+        }
+
+        buffer.pooledSize = buffer.size();
+        outstanding.add(buffer.pooledSize);
+
+        int interval = leakSampleInterval;
+        if (interval > 0 && ThreadLocalRandom.current().nextInt(interval) == 0) {
+            buffer.leak = new LeakTracker(leaks, buffer.pooledSize);
+            buffer.leak.cleanable = leakCleaner.register(buffer, buffer.leak);
+        }
+
+        return buffer;
+    }
+
+    /**
+     * 归还缓冲区，由 {@link ByteBuffer#release()} 在引用计数归 0 时调用。
+     */
+    void recycle(AbstractByteBuffer buffer) {
+        outstanding.add(-buffer.pooledSize);
+
+        if (buffer.leak != null) {
+            buffer.leak.close();
+            buffer.leak = null;
+        }
+
+        /* 按归还时的实际大小重新确定大小等级：写入时按默认的两倍策略扩容过的缓冲区大小仍然是 2 的幂，
+         * 归入更大的等级继续复用；大小不是 2 的幂或者超出等级范围的缓冲区直接释放 */
+        int sizeClass = exactSizeClass(buffer.size());
+        if (sizeClass < 0) {
+            buffer.close();
+            return;
+        }
+
+        if (magazines.get()[sizeClass].push(buffer))
+            return;
+
+        if (sharedCounts[sizeClass].incrementAndGet() <= sharedSize) {
+            shared[sizeClass].offer(buffer);
+        } else {
+            sharedCounts[sizeClass].decrementAndGet();
+            buffer.close();
+        }
+    }
+
+    /**
+     * 设置泄漏检测采样间隔，每 {@code interval} 次分配（随机采样）记录一次调用栈。
+     *
+     * @param interval 采样间隔，0 表示关闭泄漏检测，1 表示每次分配都记录
+     */
+    public void setLeakDetection(int interval) {
+        Assert.isTrue(interval >= 0, "Invalid leak sample interval: %s", interval);
+        leakSampleInterval = interval;
+    }
+
+    /**
+     * @return 从缓冲池中复用缓冲区的次数
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return 缓冲池中没有可复用的缓冲区，新分配缓冲区的次数
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return 已经分配出去但还没有归还的字节数
+     */
+    public long outstandingBytes() {
+        return outstanding.sum();
+    }
+
+    /**
+     * @return 泄漏检测发现的泄漏次数
+     */
+    public long leakCount() {
+        return leaks.sum();
+    }
+
+    @Override
+    public String toString() {
+        return StringUtils.strwfmt("%s [direct=%s, hits=%s, misses=%s, outstanding=%s, leaks=%s]", super.toString(),
+                direct, hitCount(), missCount(), outstandingBytes(), leakCount());
+    }
+
+}
@@ -0,0 +1,171 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.string.StringUtils;
+import org.karatsuba.utils.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 按固定大小分块存储数据的 {@link ByteBuffer}，适合追加写入大量数据的场景。
+ * <p>
+ * {@link HeapByteBuffer} 容量不足时需要重新分配一个更大的数组并拷贝全部数据，而这个类只会在
+ * 末尾链接一个新的块，已经写入的数据永远不会被拷贝。块大小必须是 2 的幂，定位时只需要移位和
+ * 掩码运算。
+ * <p>
+ * 多个块的数据在内存中不连续，{@link #nioBuffer()} 在多于一个块时需要拷贝，写入通道时请使用
+ * {@link #nioBuffers()}。
+ *
+ * @author Red Gogh
+ */
+public class ChunkedByteBuffer extends AbstractByteBuffer {
+
+    /** 默认块大小 8KB */
+    public static final int DEFAULT_CHUNK_SIZE = 8 * IOUtils.KB;
+
+    /** 块列表 */
+    private final List<byte[]> chunks = new ArrayList<>();
+
+    /** 块大小的位移量 */
+    private final int chunkShift;
+
+    /** 块大小掩码 */
+    private final int chunkMask;
+
+    ChunkedByteBuffer(int chunkSize) {
+        Assert.isTrue(chunkSize > 0 && Integer.bitCount(chunkSize) == 1, "Chunk size must be a power of two: %s", chunkSize);
+        this.chunkShift = Integer.numberOfTrailingZeros(chunkSize);
+        this.chunkMask = chunkSize - 1;
+    }
+
+    /**
+     * 确保数据写入时缓冲区内部容量足够，只追加新的块。容量上限是不超过 {@link GrowthPolicy#MAX_ARRAY_SIZE}
+     * 的最大整块数，保证 {@link #size()} 不会溢出。
+     */
+    private void ensureCapacity(int len) {
+        long required = (long) index + len;
+        long max = GrowthPolicy.MAX_ARRAY_SIZE & ~(long) chunkMask;
+        Assert.isTrue(required <= max, "ByteBuffer capacity exceeds max capacity, required=%s", required);
+        while ((long) chunks.size() << chunkShift < required)
+            chunks.add(new byte[chunkMask + 1]);
+    }
+
+    /**
+     * @return 块数量
+     */
+    public int numChunks() {
+        return chunks.size();
+    }
+
+    @Override
+    public int size() {
+        return chunks.size() << chunkShift;
+    }
+
+    @Override
+    byte[] directArray(int nb, boolean write) {
+        int pos = index & chunkMask;
+        if (pos + nb > chunkMask + 1)
+            return null;
+        if (write) {
+            ensureCapacity(nb);
+        } else if (capacity - index < nb) {
+            return null;
+        }
+        arrayPos = pos;
+        return chunks.get(index >>> chunkShift);
+    }
+
+    @Override
+    void read0(byte[] b, int off, int len) {
+        while (len > 0) {
+            int pos = index & chunkMask;
+            int n = Math.min(len, chunkMask + 1 - pos);
+            System.arraycopy(chunks.get(index >>> chunkShift), pos, b, off, n);
+            index += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    void write0(byte[] b, int off, int len) {
+        ensureCapacity(len);
+        while (len > 0) {
+            int pos = index & chunkMask;
+            int n = Math.min(len, chunkMask + 1 - pos);
+            System.arraycopy(b, off, chunks.get(index >>> chunkShift), pos, n);
+            index += n;
+            off += n;
+            len -= n;
+        }
+        capacity = Math.max(capacity, index);
+    }
+
+    /**
+     * 释放有效数据之后多余的块，已有的数据不会被拷贝。
+     */
+    @Override
+    public ByteBuffer compact() {
+        int n = (capacity + chunkMask) >>> chunkShift;
+        while (chunks.size() > n)
+            chunks.remove(chunks.size() - 1);
+        return this;
+    }
+
+    @Override
+    boolean isContiguous() {
+        return capacity <= chunkMask + 1;
+    }
+
+    /**
+     * 只有一个块时返回共享内存的视图，多个块时需要把数据拷贝到新的数组中。{@link #slice(int, int)}
+     * 和 {@link #asReadOnly()} 不受影响，多个块时通过转发读写共享内存。
+     */
+    @Override
+    public java.nio.ByteBuffer nioBuffer() {
+        if (capacity <= chunkMask + 1)
+            return java.nio.ByteBuffer.wrap(chunks.isEmpty() ? new byte[0] : chunks.get(0), 0, capacity).slice();
+        return java.nio.ByteBuffer.wrap(toByteArray());
+    }
+
+    /**
+     * @return 每个块有效数据的 NIO 视图数组，不拷贝数据，可以直接交给
+     *         {@code GatheringByteChannel#write(java.nio.ByteBuffer[])} 使用。
+     */
+    public java.nio.ByteBuffer[] nioBuffers() {
+        int n = (capacity + chunkMask) >>> chunkShift;
+        java.nio.ByteBuffer[] retval = new java.nio.ByteBuffer[n];
+        for (int i = 0; i < n; i++) {
+            int len = Math.min(chunkMask + 1, capacity - (i << chunkShift));
+            retval[i] = java.nio.ByteBuffer.wrap(chunks.get(i), 0, len).slice();
+        }
+        return retval;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtils.strwfmt("%s [chunks=%s, chunkSize=%s]", super.toString(), chunks.size(), chunkMask + 1);
+    }
+
+}
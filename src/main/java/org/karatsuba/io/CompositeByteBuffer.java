@@ -0,0 +1,261 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.utils.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 将多个 {@link ByteBuffer} 组合成一个逻辑上连续的缓冲区，组合过程不会拷贝任何数据。
+ * <p>
+ * 典型的使用场景是消息帧的组装：帧头和消息体分别在不同的缓冲区中，通过组合缓冲区可以直接把它们
+ * 当成一个整体读取，或者通过 {@link #nioBuffers()} 交给 {@code GatheringByteChannel} 一次性写出，
+ * 不需要先把它们拷贝到同一个数组中。
+ * <p>
+ * 添加的组件按照添加时的有效数据（{@code [0, capacity())}）参与组合。添加组件时会调用
+ * {@link ByteBuffer#retain()}，组合缓冲区关闭时再对所有组件调用 {@link ByteBuffer#release()}，
+ * 调用者仍然持有自己的那一份引用，使用完后照常释放即可，不会重复释放。写入超出已有数据的部分
+ * 会追加到组合缓冲区内部新分配的组件中。
+ *
+ * <h2>使用示例</h2>
+ * <pre>
+ *     CompositeByteBuffer frame = new CompositeByteBuffer()
+ *             .addComponent(header)
+ *             .addComponent(body);
+ *     channel.write(frame.nioBuffers());
+ * </pre>
+ *
+ * @author Red Gogh
+ */
+public class CompositeByteBuffer extends AbstractByteBuffer {
+
+    /**
+     * 组合缓冲区中的组件
+     */
+    private static class Component {
+        /** 组件所属的缓冲区，内部追加的组件为 null */
+        final ByteBuffer owner;
+        /** 组件内存的 NIO 视图 */
+        final java.nio.ByteBuffer buf;
+        /** 组件在组合缓冲区中的起始位置 */
+        final int offset;
+        /** 组件中有效数据长度 */
+        int length;
+
+        Component(ByteBuffer owner, java.nio.ByteBuffer buf, int offset, int length) {
+            this.owner = owner;
+            this.buf = buf;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    /** 组件列表，按 offset 升序排列 */
+    private final List<Component> components = new ArrayList<>();
+
+    /** 所有组件的内存总大小 */
+    private int size;
+
+    public CompositeByteBuffer() {
+    }
+
+    public CompositeByteBuffer(ByteBuffer... buffers) {
+        for (ByteBuffer buffer : buffers)
+            append(buffer);
+    }
+
+    /**
+     * #brief: 在末尾追加一个组件
+     *
+     * <p>组件的有效数据 {@code [0, buffer.capacity())} 会追加到组合缓冲区的末尾，不拷贝数据。
+     * 组合缓冲区的读写指针不会改变。组件的引用计数会加 1，组合缓冲区关闭时释放这份引用，
+     * 调用者自己的引用不受影响。
+     * <p>
+     * {@link ChunkedByteBuffer} 和 {@link CompositeByteBuffer} 按照 {@code nioBuffers()} 返回的
+     * 每一段内存分别加入，仍然共享内存。内存不连续的切片、视图无法共享，不能作为组件加入，需要
+     * 先通过 {@link ByteBuffer#duplicate()} 拷贝。
+     *
+     * @param buffer 要追加的缓冲区
+     * @return 当前组合缓冲区
+     */
+    public CompositeByteBuffer addComponent(ByteBuffer buffer) {
+        append(buffer);
+        return this;
+    }
+
+    /** 构造函数也通过这里加入组件，避免在对象构造完成前调用可被重写的 {@link #addComponent(ByteBuffer)} */
+    private void append(ByteBuffer buffer) {
+        Assert.notNull(buffer, "component buffer cannot be null");
+        java.nio.ByteBuffer[] views;
+        if (buffer instanceof ChunkedByteBuffer) {
+            views = ((ChunkedByteBuffer) buffer).nioBuffers();
+        } else if (buffer instanceof CompositeByteBuffer) {
+            views = ((CompositeByteBuffer) buffer).nioBuffers();
+        } else {
+            Assert.isTrue(buffer.isContiguous(), "Non-contiguous buffer view cannot be shared as a component.");
+            views = new java.nio.ByteBuffer[] { buffer.nioBuffer() };
+        }
+        /* 每一段都持有一份引用，组合缓冲区关闭时逐个释放 */
+        for (java.nio.ByteBuffer view : views)
+            addComponent0(buffer.retain(), view, view.remaining());
+    }
+
+    private Component addComponent0(ByteBuffer owner, java.nio.ByteBuffer buf, int length) {
+        /* 末尾组件中没有写满的部分不再参与组合，新组件紧跟在有效数据后面 */
+        Component last = lastComponent();
+        if (last != null)
+            size = last.offset + last.length;
+        Component component = new Component(owner, buf, capacity, length);
+        components.add(component);
+        size += buf.capacity();
+        capacity += length;
+        return component;
+    }
+
+    /**
+     * @return 组件数量
+     */
+    public int numComponents() {
+        return components.size();
+    }
+
+    private Component lastComponent() {
+        return components.isEmpty() ? null : components.get(components.size() - 1);
+    }
+
+    /**
+     * 二分查找 {@code pos} 所在的组件，{@code pos} 必须小于 {@code capacity}。
+     */
+    private Component componentAt(int pos) {
+        int lo = 0, hi = components.size() - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (components.get(mid).offset <= pos) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return components.get(lo);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    void read0(byte[] b, int off, int len) {
+        while (len > 0) {
+            Component component = componentAt(index);
+            int pos = index - component.offset;
+            int n = Math.min(len, component.length - pos);
+            component.buf.get(pos, b, off, n);
+            index += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    void write0(byte[] b, int off, int len) {
+        Assert.isTrue(index <= capacity, "CompositeByteBuffer write out of range, index=%s, cap=%s", index, capacity);
+        while (len > 0) {
+            Component component = index < capacity ? componentAt(index) : lastComponent();
+            boolean tail = component == lastComponent();
+            int pos = component != null ? index - component.offset : 0;
+            int room = component == null ? 0 : (tail ? component.buf.capacity() : component.length) - pos;
+            if (room <= 0) {
+                component = addComponent0(null, java.nio.ByteBuffer.allocate(Math.max(len, IOUtils.DEFAULT_BYTE_BUFFER_SIZE)), 0);
+                pos = 0;
+                room = component.buf.capacity();
+            }
+            int n = Math.min(len, room);
+            component.buf.put(pos, b, off, n);
+            index += n;
+            off += n;
+            len -= n;
+            if (pos + n > component.length) {
+                capacity += pos + n - component.length;
+                component.length = pos + n;
+            }
+        }
+    }
+
+    /**
+     * 组合缓冲区不支持压缩，直接返回当前缓冲区。如果需要连续的内存请使用 {@link #toByteArray()}。
+     */
+    @Override
+    public ByteBuffer compact() {
+        return this;
+    }
+
+    @Override
+    boolean isContiguous() {
+        return components.size() <= 1;
+    }
+
+    /**
+     * 只有一个组件时返回共享内存的视图，多个组件时需要把数据拷贝到新的缓冲区中。如果需要
+     * 写入通道请使用 {@link #nioBuffers()} 避免拷贝。{@link #slice(int, int)} 和
+     * {@link #asReadOnly()} 不受影响，多个组件时通过转发读写共享内存。
+     */
+    @Override
+    public java.nio.ByteBuffer nioBuffer() {
+        if (components.size() == 1) {
+            Component component = components.get(0);
+            return component.buf.slice(0, component.length);
+        }
+        return java.nio.ByteBuffer.wrap(toByteArray());
+    }
+
+    /**
+     * @return 每个组件有效数据的 NIO 视图数组，不拷贝数据，可以直接交给
+     *         {@code GatheringByteChannel#write(java.nio.ByteBuffer[])} 使用。
+     */
+    public java.nio.ByteBuffer[] nioBuffers() {
+        java.nio.ByteBuffer[] retval = new java.nio.ByteBuffer[components.size()];
+        for (int i = 0; i < retval.length; i++) {
+            Component component = components.get(i);
+            retval[i] = component.buf.slice(0, component.length);
+        }
+        return retval;
+    }
+
+    /**
+     * 释放添加组件时获取的引用，并清空组合缓冲区。
+     */
+    @Override
+    public void close() {
+        for (Component component : components) {
+            if (component.owner != null)
+                component.owner.release();
+        }
+        components.clear();
+        index = 0;
+        capacity = 0;
+        markIndex = 0;
+        size = 0;
+    }
+
+}
@@ -0,0 +1,88 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.string.StringUtils;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * `CopyResult` 记录一次数据拷贝的统计信息，包括拷贝的字节数、耗时以及底层拷贝调用的次数，
+ * 可以用来计算吞吐量，定位比较慢的数据源。
+ *
+ * @author Red Gogh
+ */
+public class CopyResult {
+
+    /** 拷贝的字节总数 */
+    private final long bytes;
+
+    /** 耗时（纳秒） */
+    private final long elapsedNanos;
+
+    /** 底层 read/write 或 transferTo/transferFrom 的调用次数 */
+    private final long copyCount;
+
+    CopyResult(long bytes, long elapsedNanos, long copyCount) {
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+        this.copyCount = copyCount;
+    }
+
+    /**
+     * @return 拷贝的字节总数
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    /**
+     * @return 耗时（纳秒）
+     */
+    public long elapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * @return 底层拷贝调用的次数
+     */
+    public long copyCount() {
+        return copyCount;
+    }
+
+    /**
+     * #brief: 计算吞吐量。<p>
+     *
+     * @return 每秒拷贝的字节数，耗时为 0 时返回 0
+     */
+    public double throughput() {
+        if (elapsedNanos <= 0)
+            return 0;
+        return bytes * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtils.strwfmt("CopyResult[bytes=%s, elapsed=%sms, copies=%s, throughput=%.2fMB/s]",
+                bytes, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), copyCount, throughput() / IOUtils.MB);
+    }
+
+}
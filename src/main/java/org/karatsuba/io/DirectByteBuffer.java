@@ -0,0 +1,220 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.exception.IOReadException;
+import org.karatsuba.utils.Assert;
+import org.karatsuba.utils.Captor;
+import org.karatsuba.utils.Optional;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * 基于堆外内存（native memory）实现的 {@link ByteBuffer}。
+ * <p>
+ * 内部使用 {@link java.nio.ByteBuffer#allocateDirect(int)} 分配内存，数据不在 JVM 堆中，
+ * 不会增加 GC 的扫描和拷贝压力。可以通过 {@link #nioBuffer()} 直接交给 {@code FileChannel}
+ * 或者 {@code SocketChannel} 使用，不需要再拷贝一次到临时的堆外缓冲区。
+ * <p>
+ * 堆外内存需要手动调用 {@link #close()} 释放，释放后缓冲区不可再使用。如果忘记释放，内存
+ * 会在对象被 GC 回收时由 JDK 自带的 Cleaner 兜底释放。
+ *
+ * @author Red Gogh
+ */
+public class DirectByteBuffer extends AbstractByteBuffer {
+
+    /** 堆外内存释放函数（Unsafe#invokeCleaner），获取失败时为 null，交给 GC 释放 */
+    private static final MethodHandle cleaner = Optional.ifError(DirectByteBuffer::lookupCleaner, null);
+
+    /** 堆外内存缓冲区 */
+    private java.nio.ByteBuffer buf;
+
+    /** 是否通过 {@link #nioBuffer()} 交出过共享堆外内存的视图 */
+    private boolean shared;
+
+    DirectByteBuffer(int capacity) {
+        buf = java.nio.ByteBuffer.allocateDirect(capacity);
+    }
+
+    private static MethodHandle lookupCleaner() throws Throwable {
+        Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+        Field field = unsafeClass.getDeclaredField("theUnsafe");
+        field.setAccessible(true);
+        return MethodHandles.lookup()
+                .findVirtual(unsafeClass, "invokeCleaner", MethodType.methodType(void.class, java.nio.ByteBuffer.class))
+                .bindTo(field.get(null));
+    }
+
+    /** 立即释放 {@code buffer} 占用的堆外内存，{@code buffer} 不能是其他缓冲区的切片视图 */
+    static void free(java.nio.ByteBuffer buffer) {
+        if (cleaner != null)
+            Captor.icall(() -> { cleaner.invokeExact(buffer); });
+    }
+
+    /** 检查缓冲区是否已经被释放 */
+    private void checkClosed() {
+        Assert.isTrue(buf != null, "DirectByteBuffer already closed.");
+    }
+
+    /**
+     * 确保数据写入时缓冲区内部容量足够，扩容时按两倍增长以减少堆外内存的分配次数。旧的内存可能
+     * 还被切片引用着，所以不会立即释放，交给 GC 回收。
+     */
+    private void ensureCapacity(int size) {
+        checkClosed();
+        int required = index + size;
+        if (buf.capacity() < required) {
+            java.nio.ByteBuffer n = java.nio.ByteBuffer.allocateDirect(Math.max(buf.capacity() << 1, required));
+            n.put(0, buf, 0, capacity);
+            buf = n;
+        }
+    }
+
+    @Override
+    public ByteBuffer duplicate() {
+        checkClosed();
+        DirectByteBuffer n = new DirectByteBuffer(capacity);
+        n.buf.put(0, buf, 0, capacity);
+        n.capacity = capacity;
+        n.index = capacity;
+        return n;
+    }
+
+    @Override
+    public int size() {
+        return buf != null ? buf.capacity() : 0;
+    }
+
+    @Override
+    void read0(byte[] b, int off, int len) {
+        checkClosed();
+        buf.get(index, b, off, len);
+        index += len;
+    }
+
+    @Override
+    void write0(byte[] b, int off, int len) {
+        ensureCapacity(len);
+        buf.put(index, b, off, len);
+        index += len;
+        capacity = Math.max(capacity, index);
+    }
+
+    @Override
+    int transferTo(java.nio.ByteBuffer dst) {
+        checkClosed();
+        int n = Math.min(dst.remaining(), readableBytes());
+        dst.put(buf.slice(index, n));
+        index += n;
+        return n;
+    }
+
+    @Override
+    int transferFrom(java.nio.ByteBuffer src) {
+        int n = src.remaining();
+        ensureCapacity(n);
+        buf.put(index, src, src.position(), n);
+        src.position(src.limit());
+        index += n;
+        capacity = Math.max(capacity, index);
+        return n;
+    }
+
+    /** 通道的数据直接读入堆外内存，不经过堆内的临时数组 */
+    @Override
+    public int readFrom(ReadableByteChannel channel, int n) {
+        Assert.isTrue(n >= 0, "n must not be negative: %s", n);
+        int total = 0;
+        try {
+            while (total < n) {
+                int len = Math.min(n - total, Math.max(writeableBytes(), TRANSFER_BUFFER_SIZE));
+                ensureCapacity(len);
+                int r = channel.read(buf.slice(index, len));
+                if (r <= 0) {
+                    if (r < 0 && total == 0)
+                        return IOUtils.EOF;
+                    break;
+                }
+                index += r;
+                capacity = Math.max(capacity, index);
+                total += r;
+            }
+        } catch (IOException e) {
+            throw new IOReadException(e);
+        }
+        return total;
+    }
+
+    @Override
+    public ByteBuffer compact() {
+        checkClosed();
+        if (size() > capacity) {
+            java.nio.ByteBuffer n = java.nio.ByteBuffer.allocateDirect(capacity);
+            n.put(0, buf, 0, capacity);
+            buf = n;
+        }
+        return this;
+    }
+
+    /**
+     * 返回共享当前堆外内存的 {@link java.nio.ByteBuffer} 视图，范围为 {@code [0, capacity)}。
+     * <p>
+     * 视图不会拷贝数据，在缓冲区扩容、压缩或者关闭以后失效，需要重新获取。交出过视图的缓冲区
+     * 在 {@link #close()} 时不会立即释放堆外内存，而是等视图和缓冲区都被 GC 回收后再释放。
+     */
+    @Override
+    public java.nio.ByteBuffer nioBuffer() {
+        checkClosed();
+        shared = true;
+        return buf.slice(0, capacity);
+    }
+
+    @Override
+    boolean isAccessible() {
+        return buf != null;
+    }
+
+    /**
+     * 释放堆外内存，重复调用不会有任何影响。
+     * <p>
+     * 只有在没有其他持有者（引用计数不大于 1，或者由最后一次 {@link #release()} 触发）并且没有
+     * 交出过 {@link #nioBuffer()} 视图（包括 {@link #slice(int, int)}、{@link #asReadOnly()}
+     * 和 {@link CompositeByteBuffer} 的组件）时才立即释放。否则只关闭缓冲区本身，内存交给 GC 在
+     * 视图不再被引用后回收，避免访问已经释放的内存导致 JVM 崩溃。
+     */
+    @Override
+    public void close() {
+        if (buf != null) {
+            if (!shared && refCnt() <= 1)
+                free(buf);
+            buf = null;
+            index = 0;
+            capacity = 0;
+            markIndex = 0;
+        }
+    }
+
+}
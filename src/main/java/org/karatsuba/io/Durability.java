@@ -0,0 +1,51 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+/**
+ * `Durability` 定义了 {@link BufferedRandomAccessFile} 把缓存中的数据同步到磁盘的策略。
+ *
+ * @author Red Gogh
+ * @see MutableFile#openBuffered(int, int, Durability, long)
+ */
+public enum Durability {
+
+    /**
+     * 不主动同步，脏页只在被淘汰或者调用 {@code flush()} 时写回，由操作系统决定何时落盘。
+     */
+    NONE,
+
+    /**
+     * 关闭文件时写回所有脏页并调用 fsync。
+     */
+    ON_CLOSE,
+
+    /**
+     * 按固定的时间间隔在后台写回脏页并调用 fsync，关闭时也会同步一次。
+     */
+    PERIODIC,
+
+    /**
+     * 每次写入后立即写回并调用 fsync，和 {@code "rwd"} 模式的持久性相同。
+     */
+    EVERY_WRITE
+
+}
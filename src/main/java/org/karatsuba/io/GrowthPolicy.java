@@ -0,0 +1,87 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.utils.Assert;
+
+/**
+ * `GrowthPolicy` 定义了 {@link ByteBuffer} 容量不足时的扩容策略。
+ *
+ * <p>实现该接口需要根据当前大小和最小需要的大小计算出新的缓冲区大小，返回值不能小于
+ * {@code required}。库中提供了两种常用实现：
+ * <ul>
+ *     <li>{@link #doubling(int)}：按两倍增长，追加 N 个字节的总拷贝量为 O(N)，默认策略。</li>
+ *     <li>{@link #linear(int)}：每次只增长固定大小，内存占用更紧凑，但频繁追加时拷贝量为 O(N²)。</li>
+ * </ul>
+ *
+ * @author Red Gogh
+ */
+public interface GrowthPolicy {
+
+    /**
+     * 数组最大长度，部分 JVM 会在数组头部保留几个字节
+     */
+    int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * 默认扩容策略，按两倍增长，最大不超过 {@link #MAX_ARRAY_SIZE}
+     */
+    GrowthPolicy DEFAULT = doubling(MAX_ARRAY_SIZE);
+
+    /**
+     * #brief: 计算扩容后的缓冲区大小
+     *
+     * @param size 当前缓冲区大小
+     * @param required 写入数据最少需要的缓冲区大小
+     * @return 扩容后的缓冲区大小，不能小于 {@code required}
+     */
+    int grow(int size, int required);
+
+    /**
+     * 按两倍增长的扩容策略，超过 {@code maxCapacity} 时抛出异常。
+     *
+     * @param maxCapacity 缓冲区最大容量
+     * @return 扩容策略
+     */
+    static GrowthPolicy doubling(int maxCapacity) {
+        return (size, required) -> {
+            Assert.isTrue(required >= 0 && required <= maxCapacity,
+                    "ByteBuffer capacity exceeds max capacity, required=%s, max=%s", required, maxCapacity);
+            long n = Math.max((long) size << 1, IOUtils.DEFAULT_BYTE_BUFFER_SIZE);
+            return (int) Math.min(Math.max(n, required), maxCapacity);
+        };
+    }
+
+    /**
+     * 每次增长 {@code increment} 大小的扩容策略，超过 {@link #MAX_ARRAY_SIZE} 时抛出异常。
+     *
+     * @param increment 每次扩容额外增加的大小
+     * @return 扩容策略
+     */
+    static GrowthPolicy linear(int increment) {
+        return (size, required) -> {
+            Assert.isTrue(required >= 0 && required <= MAX_ARRAY_SIZE,
+                    "ByteBuffer capacity exceeds max capacity, required=%s, max=%s", required, MAX_ARRAY_SIZE);
+            return (int) Math.min((long) required + increment, MAX_ARRAY_SIZE);
+        };
+    }
+
+}
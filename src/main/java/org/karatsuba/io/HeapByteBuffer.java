@@ -20,6 +20,8 @@ package org.karatsuba.io;
 
 /* Creates on 2023/5/8. */
 
+import org.karatsuba.string.StringUtils;
+
 /**
  * @author Red Gogh
  */
@@ -27,49 +29,103 @@ public class HeapByteBuffer extends AbstractByteBuffer {
 
     /** 字节缓冲区 */
     private byte[] buf;
-    /** 每次扩容大小为初始分配大小 */
-    private static final int initializeCapacity = IOUtils.DEFAULT_BYTE_BUFFER_SIZE;
+    /** 数据在 {@code buf} 中的起始偏移，封装外部数组时可能不为 0 */
+    private int offset;
+    /** 缓冲区大小，封装外部数组时只使用 {@code buf[offset, offset + size)} 区域 */
+    private int size;
+    /** 扩容策略 */
+    private GrowthPolicy growthPolicy = GrowthPolicy.DEFAULT;
+    /** 扩容次数 */
+    private int growCount;
+    /** 扩容时累计拷贝的字节数 */
+    private long copiedBytes;
 
     HeapByteBuffer(int capacity) {
         buf = new byte[capacity];
+        size = capacity;
+    }
+
+    HeapByteBuffer(int capacity, GrowthPolicy growthPolicy) {
+        this(capacity);
+        this.growthPolicy = growthPolicy;
+    }
+
+    /**
+     * 封装外部字节数组，不拷贝数据。读写指针在最后一位，缓冲区扩容时会拷贝到新的数组中，
+     * 之后就不再和外部数组共享数据了。
+     */
+    HeapByteBuffer(byte[] buf, int offset, int length) {
+        this.buf = buf;
+        this.offset = offset;
+        this.size = length;
+        this.index = length;
+        this.capacity = length;
     }
 
-    /** 确保数据写入时缓冲区内部容量足够 */
-    private void ensureCapacity(int size) {
-        if (buf.length < (capacity + size)) {
-            byte[] n = new byte[(buf.length + size) + initializeCapacity];
-            System.arraycopy(buf, 0, n, 0, buf.length);
+    /** 确保数据写入时缓冲区内部容量足够，只拷贝有效数据 */
+    private void ensureCapacity(int len) {
+        long required = (long) index + len;
+        if (size < required) {
+            byte[] n = new byte[growthPolicy.grow(size, (int) Math.min(required, Integer.MAX_VALUE))];
+            System.arraycopy(buf, offset, n, 0, capacity);
             buf = n;
+            offset = 0;
+            size = n.length;
+            growCount++;
+            copiedBytes += capacity;
         }
     }
 
     @Override
     public int size() {
-        return buf.length;
+        return size;
+    }
+
+    @Override
+    byte[] directArray(int nb, boolean write) {
+        if (write) {
+            ensureCapacity(nb);
+        } else if (capacity - index < nb) {
+            return null;
+        }
+        arrayPos = offset + index;
+        return buf;
     }
 
     @Override
     public void read0(byte[] b, int off, int len) {
-        System.arraycopy(buf, index, b, off, len);
+        System.arraycopy(buf, offset + index, b, off, len);
         index += len;
     }
 
     @Override
     void write0(byte[] a, int off, int len) {
         ensureCapacity(len);
-        System.arraycopy(a, off, buf, index, len);
+        System.arraycopy(a, off, buf, offset + index, len);
         index += len;
-        capacity += len;
+        capacity = Math.max(capacity, index);
     }
 
     @Override
     public ByteBuffer compact() {
         if (size() > capacity) {
             byte[] n = new byte[capacity];
-            System.arraycopy(buf, 0, n, 0, capacity);
+            System.arraycopy(buf, offset, n, 0, capacity);
             buf = n;
+            offset = 0;
+            size = capacity;
         }
         return this;
     }
 
-}
+    @Override
+    public java.nio.ByteBuffer nioBuffer() {
+        return java.nio.ByteBuffer.wrap(buf, offset, capacity).slice();
+    }
+
+    @Override
+    public String toString() {
+        return StringUtils.strwfmt("%s [grows=%s, copied=%s]", super.toString(), growCount, copiedBytes);
+    }
+
+}
\ No newline at end of file
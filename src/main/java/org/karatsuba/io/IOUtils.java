@@ -26,6 +26,8 @@ import org.karatsuba.utils.Assert;
 import org.karatsuba.utils.Captor;
 
 import java.io.*;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
 
 /**
  * IO操作工具包，整合大部分IO操作，使得在Java中更多的IO操作
@@ -55,6 +57,12 @@ public class IOUtils {
      * 推荐缓冲区默认大小
      */
     public static final int DEFAULT_BYTE_BUFFER_SIZE = KB;
+
+    /**
+     * {@link #copy(InputStream, OutputStream)} 使用的最大缓冲区大小
+     */
+    public static final int COPY_BUFFER_SIZE = 64 * KB;
+
     /**
      * 标准输出缓冲区
      */
@@ -106,12 +114,25 @@ public class IOUtils {
      */
     public static byte[] read(InputStream stream) {
         try {
-            ByteArrayOutputStream byteArrayWriter = new ByteArrayOutputStream();
-            byte[] tmp = new byte[DEFAULT_BYTE_BUFFER_SIZE];
+            long hint = lengthHint(stream);
+            Assert.isTrue(hint <= GrowthPolicy.MAX_ARRAY_SIZE, "stream too large: %s", hint);
+            /* 已知长度时直接分配准确大小的数组，数据读完以后不需要再拷贝一次 */
+            byte[] b = new byte[hint > 0 ? (int) hint : 8 * KB];
+            int size = 0;
             int len;
-            while ((len = read(tmp, stream)) != EOF)
-                byteArrayWriter.write(tmp, 0, len);
-            return byteArrayWriter.toByteArray();
+            while (true) {
+                if (size == b.length) {
+                    int c = stream.read();
+                    if (c == EOF)
+                        break;
+                    b = Arrays.copyOf(b, GrowthPolicy.DEFAULT.grow(b.length, size + 1));
+                    b[size++] = (byte) c;
+                }
+                if ((len = stream.read(b, size, b.length - size)) == EOF)
+                    break;
+                size += len;
+            }
+            return size == b.length ? b : Arrays.copyOf(b, size);
         } catch (Exception e) {
             throw new IOReadException(e.getMessage());
         } finally {
@@ -250,6 +271,31 @@ public class IOUtils {
         }
     }
 
+    /**
+     * 读取整个 {@code input} 输入流的数据，并行压缩后以 gzip 格式写入到文件中。
+     * 压缩过程参考 {@link ParallelGzipOutputStream}。<p>
+     *
+     * 这个函数会自动关闭 {@code input} 输入流，无需调用者手动关闭输入流。
+     *
+     * @param input
+     *        输入流
+     *
+     * @param mutableFile
+     *        {@link MutableFile} 文件对象实例（如果文件不存在，则会创建）
+     */
+    public static void writeGzip(InputStream input, MutableFile mutableFile) {
+        ParallelGzipOutputStream writer = null;
+        try {
+            writer = mutableFile.openGzipWriter();
+            write(input, writer);
+            writer.close();
+        } catch (Exception e) {
+            throw new IOWriteException(e);
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
     /**
      * 写入字符串 {@code input} 到指定的文件输出流中，字符串以字节流的形式写入。
      * 如果比较关注字符串编码建议使用 {@link #write(byte[], OutputStream)}
@@ -300,6 +346,9 @@ public class IOUtils {
      * 缓冲区中。
      * <p>
      * 这个函数会自动关闭 {@code input} 输入流，无需调用者手动关闭输入流。
+     * <p>
+     * 如果输入输出两端都是文件流，则会通过 {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+     * 直接在内核中拷贝，不经过 JVM 的缓冲区。
      *
      * @param input
      *        输入流
@@ -309,12 +358,7 @@ public class IOUtils {
      */
     public static void write(InputStream input, OutputStream stream) {
         try {
-            byte[] buf = new byte[DEFAULT_BYTE_BUFFER_SIZE];
-            int len;
-            while ((len = read(buf, input)) != EOF)
-                write(buf, 0, len, stream);
-        } catch (Throwable e) {
-            throw new IOWriteException(e);
+            copy(input, stream);
         } finally {
             /* 如果出现异常关闭输入流，因为输入流中的数据已经被读取，所以
              * 这个函数可以替开发者将输入流关闭。 */
@@ -322,6 +366,90 @@ public class IOUtils {
         }
     }
 
+    /**
+     * #brief: 拷贝 {@code input} 中的全部数据到 {@code stream}，并返回拷贝的统计信息<p>
+     *
+     * 拷贝缓冲区的大小根据数据长度自适应：先通过 {@link #lengthHint(InputStream)} 估计数据长度，
+     * 每次读取的长度从估计值开始（未知时从 8KB 开始），读满以后翻倍，最大 {@link #COPY_BUFFER_SIZE}。
+     * 缓冲区在每次拷贝时按需分配，小数据量的拷贝只分配小数组。输出流在 {@code write} 中再次调用
+     * 这个函数（例如包装流、分流）也是安全的。
+     * <p>
+     * 如果输入输出两端都是文件流，则会先通过 {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)}
+     * 直接在内核中拷贝，不经过 JVM 的缓冲区。
+     * <p>
+     * 这个函数不会关闭 {@code input} 和 {@code stream}。
+     *
+     * @param input
+     *        输入流
+     *
+     * @param stream
+     *        指定输出流
+     *
+     * @return 拷贝的字节数、耗时以及 read/write 调用次数
+     */
+    public static CopyResult copy(InputStream input, OutputStream stream) {
+        long start = System.nanoTime();
+        long bytes = 0;
+        long copies = 0;
+        try {
+            if (input instanceof FileInputStream && stream instanceof FileOutputStream) {
+                CopyResult result = transfer((FileInputStream) input, (FileOutputStream) stream);
+                bytes = result.bytes();
+                copies = result.copyCount();
+            }
+            long hint = lengthHint(input);
+            byte[] buf = new byte[hint > 0 ? (int) Math.max(DEFAULT_BYTE_BUFFER_SIZE, Math.min(hint, COPY_BUFFER_SIZE)) : 8 * KB];
+            int len;
+            while ((len = input.read(buf, 0, buf.length)) != EOF) {
+                stream.write(buf, 0, len);
+                bytes += len;
+                copies++;
+                /* 读满说明数据还有很多，换成两倍大小的数组 */
+                if (len == buf.length && buf.length < COPY_BUFFER_SIZE)
+                    buf = new byte[Math.min(buf.length << 1, COPY_BUFFER_SIZE)];
+            }
+        } catch (Throwable e) {
+            throw new IOWriteException(e);
+        }
+        return new CopyResult(bytes, System.nanoTime() - start, copies);
+    }
+
+    /**
+     * #brief: 估计输入流中剩余的数据长度<p>
+     *
+     * 文件流返回文件长度减去当前位置，其他流返回 {@link InputStream#available()}。
+     *
+     * @param input
+     *        输入流
+     *
+     * @return 估计的剩余长度，未知时返回 0
+     */
+    public static long lengthHint(InputStream input) {
+        long hint = 0;
+        try {
+            if (input instanceof FileInputStream) {
+                FileChannel channel = ((FileInputStream) input).getChannel();
+                hint = channel.size() - channel.position();
+            }
+            return Math.max(hint, input.available());
+        } catch (IOException e) {
+            return Math.max(hint, 0);
+        }
+    }
+
+    /**
+     * 文件流之间通过 {@link FileChannel} 拷贝，从输入流的当前位置一直拷贝到文件末尾，
+     * 拷贝完成后两个流的位置都会前移。管道等非普通文件的长度为 0，不会拷贝任何数据。
+     */
+    private static CopyResult transfer(FileInputStream input, FileOutputStream stream) throws IOException {
+        FileChannel in = input.getChannel();
+        long position = in.position();
+        CopyResult result = MutableFile.transfer(in, position, Math.max(0, in.size() - position),
+                stream.getChannel(), null);
+        in.position(position + result.bytes());
+        return result;
+    }
+
     /**
      * 写入字符串 {@code input} 到指定的输出流中，字符串以字节流的形式写入。如果比较
      * 关注字符串编码建议使用 {@link #write(byte[], OutputStream)} 函数来代替当前
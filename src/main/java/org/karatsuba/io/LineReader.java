@@ -0,0 +1,347 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.exception.IOReadException;
+import org.karatsuba.utils.ArrayUtils;
+import org.karatsuba.utils.Assert;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * `LineReader` 按行流式读取文件，适合处理无法一次性加载到内存中的大文件（例如日志文件）。
+ *
+ * <p>文件内容通过 {@link FileChannel} 读取到一个可复用的缓冲区中，每一行以 {@link Line} 视图的
+ * 形式返回，视图直接引用缓冲区中的字节，不会为每一行创建新的字符串。{@link Line} 只有在访问字符时
+ * 才会按 UTF-8 解码，纯 ASCII 的行不需要解码。视图在读取下一行之前一直有效，如果需要保存某一行，
+ * 请调用 {@link Line#toString()} 拷贝一份。
+ *
+ * <p>行分隔符为 {@code '\n'}，行尾的 {@code '\r'} 会被去掉。文件末尾的分隔符不会产生一个额外的
+ * 空行，和 {@link java.io.BufferedReader#readLine()} 的行为一致。
+ *
+ * <h2>使用示例</h2>
+ * <pre>
+ *     try (LineReader reader = mutableFile.lines()) {
+ *         for (LineReader.Line line : reader) {
+ *             if (line.startsWith("ERROR"))
+ *                 errors.add(line.toString());
+ *         }
+ *     }
+ * </pre>
+ *
+ * @author Red Gogh
+ */
+public class LineReader implements Iterator<LineReader.Line>, Iterable<LineReader.Line>, Closeable {
+
+    /** 默认缓冲区大小 */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * IOUtils.KB;
+
+    private final FileChannel channel;
+
+    /** 读取缓冲区，一行比缓冲区长时会扩容 */
+    private byte[] buf;
+
+    /** 缓冲区中未处理数据的起始位置 */
+    private int start;
+
+    /** 缓冲区中有效数据的结束位置 */
+    private int limit;
+
+    /** 文件是否已经读完 */
+    private boolean eof;
+
+    /** 下一行是否已经定位好 */
+    private boolean ready;
+
+    /** 复用的行视图 */
+    private final Line line = new Line();
+
+    LineReader(MutableFile file, int bufferSize) {
+        Assert.isTrue(bufferSize > 0, "bufferSize must be positive: %s", bufferSize);
+        try {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            throw new IOReadException(e);
+        }
+        this.buf = new byte[bufferSize];
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (!ready)
+            ready = advance();
+        return ready;
+    }
+
+    /**
+     * 返回下一行，返回的视图在下一次调用 {@code next()} 之前有效。
+     */
+    @Override
+    public Line next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+        ready = false;
+        return line;
+    }
+
+    /**
+     * 返回当前对象本身，只能遍历一次。
+     */
+    @Override
+    public Iterator<Line> iterator() {
+        return this;
+    }
+
+    /** 定位下一行，更新 {@link #line} 的范围，没有更多行时返回 false */
+    private boolean advance() {
+        int scan = start;
+        while (true) {
+            for (int i = scan; i < limit; i++) {
+                if (buf[i] == '\n') {
+                    setLine(start, i);
+                    start = i + 1;
+                    return true;
+                }
+            }
+            if (eof) {
+                if (start == limit)
+                    return false;
+                setLine(start, limit);
+                start = limit;
+                return true;
+            }
+            scan = limit - start;
+            fill();
+        }
+    }
+
+    private void setLine(int from, int to) {
+        if (to > from && buf[to - 1] == '\r')
+            to--;
+        line.set(buf, from, to - from);
+    }
+
+    /** 将未处理的数据移动到缓冲区开头，必要时扩容，然后从文件中读取更多数据 */
+    private void fill() {
+        int remaining = limit - start;
+        if (remaining == buf.length)
+            buf = Arrays.copyOf(buf, GrowthPolicy.DEFAULT.grow(buf.length, buf.length + 1));
+        else if (start > 0)
+            System.arraycopy(buf, start, buf, 0, remaining);
+        start = 0;
+        limit = remaining;
+        try {
+            int n = channel.read(java.nio.ByteBuffer.wrap(buf, limit, buf.length - limit));
+            if (n < 0) {
+                eof = true;
+            } else {
+                limit += n;
+            }
+        } catch (IOException e) {
+            throw new IOReadException(e);
+        }
+    }
+
+    @Override
+    public void close() {
+        IOUtils.closeQuietly(channel);
+    }
+
+    /**
+     * `Line` 是 {@link LineReader} 中一行数据的视图，直接引用读取缓冲区中的字节。
+     *
+     * <p>字节相关的函数（{@link #byteAt(int)}、{@link #byteLength()} 等）不会解码；字符相关的函数
+     * （{@link #charAt(int)}、{@link #length()}）第一次调用时才会解码，纯 ASCII 的行直接把字节当作字符
+     * 使用，不需要解码。
+     */
+    public static class Line implements CharSequence {
+
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        private byte[] bytes;
+        private int offset;
+        private int length;
+
+        /** 0 未解码，1 纯 ASCII，2 已经解码到 chars 中 */
+        private int state;
+
+        /** 复用的解码缓冲区 */
+        private CharBuffer chars = CharBuffer.allocate(256);
+
+        void set(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+            this.state = 0;
+        }
+
+        /**
+         * @return 这一行所在的数组，行内容从 {@link #arrayOffset()} 开始
+         */
+        public byte[] array() {
+            return bytes;
+        }
+
+        /**
+         * @return 这一行在 {@link #array()} 中的起始下标
+         */
+        public int arrayOffset() {
+            return offset;
+        }
+
+        /**
+         * @return 这一行的字节数（不包含行分隔符）
+         */
+        public int byteLength() {
+            return length;
+        }
+
+        /**
+         * @return 这一行中的第 {@code index} 个字节
+         */
+        public byte byteAt(int index) {
+            ArrayUtils.checkIndexSize(index, 1, length);
+            return bytes[offset + index];
+        }
+
+        /**
+         * #brief: 判断这一行是否以 {@code prefix} 开头，按字节比较，不需要解码
+         *
+         * @param prefix 前缀
+         * @return 是否以 {@code prefix} 开头
+         */
+        public boolean startsWith(byte[] prefix) {
+            return prefix.length <= length
+                    && Arrays.equals(bytes, offset, offset + prefix.length, prefix, 0, prefix.length);
+        }
+
+        /**
+         * #brief: 判断这一行是否以 {@code prefix} 开头
+         *
+         * <p>{@code prefix} 是 ASCII 字符串时按字节比较，不需要解码。
+         *
+         * @param prefix 前缀
+         * @return 是否以 {@code prefix} 开头
+         */
+        public boolean startsWith(String prefix) {
+            int n = prefix.length();
+            if (n > length)
+                return false;
+            for (int i = 0; i < n; i++) {
+                char c = prefix.charAt(i);
+                if (c >= 0x80)
+                    return toString().startsWith(prefix);
+                if (bytes[offset + i] != (byte) c)
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * @return 拷贝这一行的字节
+         */
+        public byte[] toByteArray() {
+            return Arrays.copyOfRange(bytes, offset, offset + length);
+        }
+
+        private void decode() {
+            if (state != 0)
+                return;
+            state = 1;
+            for (int i = offset, end = offset + length; i < end; i++) {
+                if (bytes[i] < 0) {
+                    state = 2;
+                    break;
+                }
+            }
+            if (state == 1)
+                return;
+            if (chars.capacity() < length)
+                chars = CharBuffer.allocate(GrowthPolicy.DEFAULT.grow(chars.capacity(), length));
+            chars.clear();
+            decoder.reset();
+            java.nio.ByteBuffer in = java.nio.ByteBuffer.wrap(bytes, offset, length);
+            /* UTF-8 解码后的字符数不会超过字节数，输出缓冲区不会溢出 */
+            CoderResult result = decoder.decode(in, chars, true);
+            Assert.isTrue(!result.isOverflow(), "line decode overflow");
+            decoder.flush(chars);
+            chars.flip();
+        }
+
+        @Override
+        public int length() {
+            decode();
+            return state == 1 ? length : chars.limit();
+        }
+
+        @Override
+        public char charAt(int index) {
+            decode();
+            if (state == 1) {
+                ArrayUtils.checkIndexSize(index, 1, length);
+                return (char) bytes[offset + index];
+            }
+            return chars.get(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            decode();
+            if (state == 1)
+                return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+            return chars.toString();
+        }
+
+    }
+
+    /**
+     * 按字符处理每一行的函数
+     */
+    public interface LineConsumer {
+        void accept(CharSequence line) throws Exception;
+    }
+
+    /**
+     * 按字节处理每一行的函数，{@code b[off, off + len)} 为一行的内容，只在调用期间有效
+     */
+    public interface ByteLineConsumer {
+        void accept(byte[] b, int off, int len) throws Exception;
+    }
+
+}
@@ -0,0 +1,573 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.string.StringUtils;
+import org.karatsuba.utils.ArrayUtils;
+import org.karatsuba.utils.Assert;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * 基于内存映射文件（{@link java.nio.MappedByteBuffer}）实现的 {@link ByteBuffer}。
+ * <p>
+ * 读写操作直接作用在操作系统的页缓存上，不需要每次读写都发起一次系统调用。单个 NIO 映射最大
+ * 只能到 2GB，所以这个类会把大于 1GB 的区域切分成多段映射并串联起来，对外表现为一个连续的
+ * 缓冲区。超过 2GB 的区域请使用 {@link #position()}、{@link #seek(long)}、{@link #length()}
+ * 这些 long 类型的函数访问，{@code int} 类型的索引函数只适用于 2GB 以内的区域。
+ * <p>
+ * 映射区域的大小在创建时就已经固定，写入超出区域范围的数据会抛出异常。使用 {@link #force()}
+ * 将修改的数据刷新到磁盘，使用 {@link #close()} 立即解除映射。
+ *
+ * @author Red Gogh
+ * @see MutableFile#map(FileChannel.MapMode, long, long)
+ */
+public class MappedByteBuffer extends ByteBuffer {
+
+    /** 单段映射大小（1GB），必须是 2 的幂 */
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+
+    /** 映射模式 */
+    private final FileChannel.MapMode mode;
+
+    /** 映射区域总长度 */
+    private final long length;
+
+    /** 串联的映射段 */
+    private java.nio.MappedByteBuffer[] segments;
+
+    /** 是否通过 {@link #nioBuffer()} 交出过共享映射内存的视图 */
+    private boolean shared;
+
+    /** 读写指针 */
+    private long position;
+
+    /** 标记当前索引位置 */
+    private long markPosition = 0;
+
+    /* 跨段读写基本类型时使用的临时缓冲区 */
+    private final byte[] tmp = new byte[16];
+    private final java.nio.ByteBuffer tmpView = java.nio.ByteBuffer.wrap(tmp);
+
+    /** 字节序 */
+    private ByteOrder order = ByteOrder.BIG_ENDIAN;
+
+    /* 最近一次 source()/sink() 返回的缓冲区中数据的起始偏移 */
+    private int locateOffset;
+
+    MappedByteBuffer(FileChannel channel, FileChannel.MapMode mode, long offset, long length) throws IOException {
+        Assert.isTrue(offset >= 0 && length >= 0, "Invalid mapping range, offset=%s, length=%s", offset, length);
+        this.mode = mode;
+        this.length = length;
+        this.segments = new java.nio.MappedByteBuffer[(int) ((length + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT)];
+        for (int i = 0; i < segments.length; i++) {
+            long segmentOffset = (long) i << SEGMENT_SHIFT;
+            segments[i] = channel.map(mode, offset + segmentOffset, Math.min(SEGMENT_SIZE, length - segmentOffset));
+        }
+    }
+
+    /** 检查映射是否已经解除 */
+    private void checkClosed() {
+        Assert.isTrue(segments != null, "MappedByteBuffer already unmapped.");
+    }
+
+    /** 检查从当前位置开始是否还有 {@code nb} 个字节 */
+    private void checkRemaining(long nb) {
+        checkClosed();
+        Assert.isTrue(position + nb <= length, "Mapped buffer out of range, position=%s, length=%s", position, length);
+    }
+
+    /** 检查映射区域是否可写 */
+    private void checkWritable() {
+        Assert.isTrue(mode != FileChannel.MapMode.READ_ONLY, "MappedByteBuffer is read only.");
+    }
+
+    /**
+     * 返回从当前位置开始 {@code nb} 个字节所在的缓冲区，数据起始偏移保存在 {@code locateOffset}
+     * 中。如果数据没有跨段，则直接返回映射段，否则先拷贝到临时缓冲区。该函数不移动读写指针。
+     */
+    private java.nio.ByteBuffer source(int nb) {
+        checkRemaining(nb);
+        java.nio.ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+        int off = (int) (position & (SEGMENT_SIZE - 1));
+        if (off + nb <= segment.limit()) {
+            locateOffset = off;
+            return segment;
+        }
+        long mark = position;
+        read0(tmp, 0, nb);
+        position = mark;
+        locateOffset = 0;
+        return tmpView;
+    }
+
+    /**
+     * 返回可以写入从当前位置开始 {@code nb} 个字节的缓冲区，写入后需要调用 {@link #commit(int, java.nio.ByteBuffer)}
+     * 移动读写指针。
+     */
+    private java.nio.ByteBuffer sink(int nb) {
+        checkWritable();
+        checkRemaining(nb);
+        java.nio.ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+        int off = (int) (position & (SEGMENT_SIZE - 1));
+        if (off + nb <= segment.limit()) {
+            locateOffset = off;
+            return segment;
+        }
+        locateOffset = 0;
+        return tmpView;
+    }
+
+    private ByteBuffer commit(int nb, java.nio.ByteBuffer dst) {
+        if (dst == tmpView) {
+            write0(tmp, 0, nb);
+        } else {
+            position += nb;
+        }
+        return this;
+    }
+
+    /**
+     * @return 映射区域的总长度（单位：字节）。
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @return 当前读写指针位置，支持超过 2GB 的区域。
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * 将读写指针设置到指定的位置（相对于映射区域起始位置）。
+     *
+     * @param pos 读写指针位置
+     * @return 当前缓冲区
+     */
+    public ByteBuffer seek(long pos) {
+        Assert.isTrue(pos >= 0 && pos <= length, "Mapped buffer out of range, position=%s, length=%s", pos, length);
+        position = pos;
+        return this;
+    }
+
+    /**
+     * 将映射区域内所有修改过的数据强制刷新到磁盘。只读映射调用该函数不会有任何影响。
+     */
+    public void force() {
+        checkClosed();
+        if (mode == FileChannel.MapMode.READ_WRITE) {
+            for (java.nio.MappedByteBuffer segment : segments)
+                segment.force();
+        }
+    }
+
+    @Override
+    public ByteBuffer duplicate() {
+        return wrap(toByteArray());
+    }
+
+    @Override
+    public int size() {
+        return Math.toIntExact(length);
+    }
+
+    @Override
+    public int readableBytes() {
+        return (int) Math.min(length - position, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int writeableBytes() {
+        return mode == FileChannel.MapMode.READ_ONLY ? 0 : readableBytes();
+    }
+
+    @Override
+    public int index() {
+        return Math.toIntExact(position);
+    }
+
+    @Override
+    public int capacity() {
+        return Math.toIntExact(length);
+    }
+
+    @Override
+    public ByteOrder order() {
+        return order;
+    }
+
+    @Override
+    public ByteBuffer order(ByteOrder order) {
+        checkClosed();
+        this.order = order;
+        for (java.nio.MappedByteBuffer segment : segments)
+            segment.order(order);
+        tmpView.order(order);
+        return this;
+    }
+
+    @Override
+    public ByteBuffer seekSet(int off) {
+        return seek(off);
+    }
+
+    @Override
+    public ByteBuffer seekCur(int off) {
+        return seek(position + off);
+    }
+
+    @Override
+    public ByteBuffer seekEnd(int off) {
+        return seek(length - off);
+    }
+
+    @Override
+    public void skipBytes(int len) {
+        seekCur(len);
+    }
+
+    @Override
+    public ByteBuffer markIndex() {
+        markPosition = position;
+        return this;
+    }
+
+    @Override
+    public ByteBuffer reset() {
+        position = markPosition;
+        return this;
+    }
+
+    @Override
+    public ByteBuffer rewind() {
+        position = 0;
+        return this;
+    }
+
+    @Override
+    public byte readByte() {
+        byte value = source(Byte.BYTES).get(locateOffset);
+        position += Byte.BYTES;
+        return value;
+    }
+
+    @Override
+    public char readChar() {
+        char value = source(Character.BYTES).getChar(locateOffset);
+        position += Character.BYTES;
+        return value;
+    }
+
+    @Override
+    public char[] readChars(int n) {
+        char[] c = new char[n];
+        for (int i = 0; i < n; i++)
+            c[i] = readChar();
+        return c;
+    }
+
+    @Override
+    public short readShort() {
+        short value = source(Short.BYTES).getShort(locateOffset);
+        position += Short.BYTES;
+        return value;
+    }
+
+    @Override
+    public int readInt() {
+        int value = source(Integer.BYTES).getInt(locateOffset);
+        position += Integer.BYTES;
+        return value;
+    }
+
+    @Override
+    public long readLong() {
+        long value = source(Long.BYTES).getLong(locateOffset);
+        position += Long.BYTES;
+        return value;
+    }
+
+    @Override
+    public float readFloat() {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    @Override
+    public double readDouble() {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    @Override
+    public int[] readInts(int[] dst, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, dst.length);
+        for (int i = 0; i < len; i++)
+            dst[off + i] = readInt();
+        return dst;
+    }
+
+    @Override
+    public long[] readLongs(long[] dst, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, dst.length);
+        for (int i = 0; i < len; i++)
+            dst[off + i] = readLong();
+        return dst;
+    }
+
+    @Override
+    public float[] readFloats(float[] dst, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, dst.length);
+        for (int i = 0; i < len; i++)
+            dst[off + i] = readFloat();
+        return dst;
+    }
+
+    @Override
+    public double[] readDoubles(double[] dst, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, dst.length);
+        for (int i = 0; i < len; i++)
+            dst[off + i] = readDouble();
+        return dst;
+    }
+
+    @Override
+    public byte[] readBytes(int nb) {
+        byte[] buf = new byte[nb];
+        readBytes(buf, 0, nb);
+        return buf;
+    }
+
+    @Override
+    public int readBytes(byte[] b, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, b.length);
+        checkClosed();
+        long remcap = length - position;
+        if (remcap == 0)
+            return IOUtils.EOF;
+        if (len > remcap)
+            len = (int) remcap;
+        read0(b, off, len);
+        return len;
+    }
+
+    @Override
+    public ByteBuffer writeByte(byte b) {
+        java.nio.ByteBuffer dst = sink(Byte.BYTES);
+        dst.put(locateOffset, b);
+        return commit(Byte.BYTES, dst);
+    }
+
+    @Override
+    public ByteBuffer writeChar(char c) {
+        java.nio.ByteBuffer dst = sink(Character.BYTES);
+        dst.putChar(locateOffset, c);
+        return commit(Character.BYTES, dst);
+    }
+
+    @Override
+    public ByteBuffer writeChars(char[] ch) {
+        for (char c : ch)
+            writeChar(c);
+        return this;
+    }
+
+    @Override
+    public ByteBuffer writeShort(short v) {
+        java.nio.ByteBuffer dst = sink(Short.BYTES);
+        dst.putShort(locateOffset, v);
+        return commit(Short.BYTES, dst);
+    }
+
+    @Override
+    public ByteBuffer writeInt(int i) {
+        java.nio.ByteBuffer dst = sink(Integer.BYTES);
+        dst.putInt(locateOffset, i);
+        return commit(Integer.BYTES, dst);
+    }
+
+    @Override
+    public ByteBuffer writeLong(long l) {
+        java.nio.ByteBuffer dst = sink(Long.BYTES);
+        dst.putLong(locateOffset, l);
+        return commit(Long.BYTES, dst);
+    }
+
+    @Override
+    public ByteBuffer writeFloat(float f) {
+        return writeInt(Float.floatToIntBits(f));
+    }
+
+    @Override
+    public ByteBuffer writeDouble(double d) {
+        return writeLong(Double.doubleToLongBits(d));
+    }
+
+    @Override
+    public ByteBuffer writeInts(int[] src, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, src.length);
+        for (int i = 0; i < len; i++)
+            writeInt(src[off + i]);
+        return this;
+    }
+
+    @Override
+    public ByteBuffer writeLongs(long[] src, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, src.length);
+        for (int i = 0; i < len; i++)
+            writeLong(src[off + i]);
+        return this;
+    }
+
+    @Override
+    public ByteBuffer writeFloats(float[] src, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, src.length);
+        for (int i = 0; i < len; i++)
+            writeFloat(src[off + i]);
+        return this;
+    }
+
+    @Override
+    public ByteBuffer writeDoubles(double[] src, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, src.length);
+        for (int i = 0; i < len; i++)
+            writeDouble(src[off + i]);
+        return this;
+    }
+
+    @Override
+    public ByteBuffer writeBytes(byte[] b) {
+        return writeBytes(b, 0, b.length);
+    }
+
+    @Override
+    public ByteBuffer writeBytes(byte[] b, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, b.length);
+        checkWritable();
+        checkRemaining(len);
+        write0(b, off, len);
+        return this;
+    }
+
+    @Override
+    void read0(byte[] b, int off, int len) {
+        while (len > 0) {
+            java.nio.ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+            int segmentOffset = (int) (position & (SEGMENT_SIZE - 1));
+            int n = Math.min(len, segment.limit() - segmentOffset);
+            segment.get(segmentOffset, b, off, n);
+            position += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    void write0(byte[] b, int off, int len) {
+        while (len > 0) {
+            java.nio.ByteBuffer segment = segments[(int) (position >>> SEGMENT_SHIFT)];
+            int segmentOffset = (int) (position & (SEGMENT_SIZE - 1));
+            int n = Math.min(len, segment.limit() - segmentOffset);
+            segment.put(segmentOffset, b, off, n);
+            position += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    @Override
+    public byte[] toByteArray() {
+        checkClosed();
+        byte[] retval = new byte[Math.toIntExact(length)];
+        long mark = position;
+        position = 0;
+        read0(retval, 0, retval.length);
+        position = mark;
+        return retval;
+    }
+
+    /**
+     * 映射区域的大小在创建时就已经固定，不支持压缩，直接返回当前缓冲区。
+     */
+    @Override
+    public ByteBuffer compact() {
+        return this;
+    }
+
+    /**
+     * 返回映射区域的 NIO 视图，只有区域没有被切分成多段（小于等于 1GB）时才可以使用。
+     * <p>
+     * 视图直接指向映射的内存，映射解除以后再访问视图会导致 JVM 崩溃。所以交出过视图的缓冲区
+     * 在 {@link #close()} 时不会立即解除映射，而是等视图和缓冲区都被 GC 回收后再解除。
+     */
+    @Override
+    public java.nio.ByteBuffer nioBuffer() {
+        checkClosed();
+        Assert.isTrue(segments.length <= 1, "Mapped region spans %s segments, nio view unavailable.", segments.length);
+        shared = true;
+        return segments.length == 0 ? java.nio.ByteBuffer.allocate(0) : segments[0].slice(0, segments[0].limit());
+    }
+
+    /**
+     * 被切分成多段的映射不是一段连续的内存，切片、视图按偏移量转发读写。
+     */
+    @Override
+    boolean isContiguous() {
+        return segments != null && segments.length <= 1;
+    }
+
+    @Override
+    boolean isAccessible() {
+        return segments != null;
+    }
+
+    /**
+     * 立即解除映射，解除后缓冲区不可再使用，重复调用不会有任何影响。解除映射前不会自动
+     * 调用 {@link #force()}，修改的数据由操作系统在合适的时机写回磁盘。
+     * <p>
+     * 和 {@link DirectByteBuffer#close()} 一样，只有在没有其他持有者（引用计数不大于 1，或者由最后一次
+     * {@link #release()} 触发）并且没有交出过 {@link #nioBuffer()} 视图（包括 {@link #slice(int, int)}、
+     * {@link #asReadOnly()} 这些基于视图的函数）时才立即解除映射。否则只关闭缓冲区本身，映射交给 GC
+     * 在不再被引用后解除。
+     */
+    @Override
+    public void close() {
+        if (segments != null) {
+            /* 视图还指向映射内存时不能提前解除映射，否则访问视图会让 JVM 崩溃 */
+            if (!shared && refCnt() <= 1) {
+                for (java.nio.MappedByteBuffer segment : segments)
+                    DirectByteBuffer.free(segment);
+            }
+            segments = null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return StringUtils.strwfmt("%s [length=%s, position=%s, segments=%s]", super.toString(), length, position,
+                segments != null ? segments.length : 0);
+    }
+
+}
@@ -20,6 +20,7 @@ package org.karatsuba.io;
 
 import org.karatsuba.collection.Lists;
 import org.karatsuba.exception.IOReadException;
+import org.karatsuba.exception.IOWriteException;
 import org.karatsuba.string.StringUtils;
 import org.karatsuba.system.SystemUtils;
 import org.karatsuba.utils.Assert;
@@ -27,11 +28,29 @@ import org.karatsuba.utils.Captor;
 import org.karatsuba.utils.Optional;
 import org.jetbrains.annotations.Nullable;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.net.URI;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * 扩展了 `java.io.File` 的自定义文件类，提供了增强的文件操作功能。
@@ -70,6 +89,21 @@ public class MutableFile extends java.io.File {
      */
     private RandomAccessFile accessFile;
 
+    /**
+     * 带页缓存的随机读写访问对象，通过 openBuffered() 打开，和 accessFile 不会同时存在
+     */
+    private BufferedRandomAccessFile bufferedFile;
+
+    /**
+     * 异步读取通道，第一次调用 readAsync() 时打开
+     */
+    private AsynchronousFileChannel asyncReadChannel;
+
+    /**
+     * 异步写入通道，第一次调用 writeAsync() 时打开
+     */
+    private AsynchronousFileChannel asyncWriteChannel;
+
     /**
      * #brief: 快速访问指定路径
      *
@@ -352,39 +386,45 @@ public class MutableFile extends java.io.File {
         return StringUtils.strcut(getName(), index, 0);
     }
 
-    private boolean forceDeleteDirectory(MutableFile dir) {
-        List<MutableFile> children = Lists.map(dir.listFiles(), MutableFile::new);
-        for (MutableFile child : children) {
-            if (child.isFile()) {
-                child.forceDeleteFile();
-            } else {
-                child.forceDeleteDirectory();
+    private boolean forceDeleteDirectory() {
+        LongAdder failures = new LongAdder();
+        WalkVisitor delete = (path, attrs) -> {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                failures.increment();
             }
+        };
+        try {
+            walk(toPath(), WalkFilter.ALL, delete, delete, ForkJoinPool.commonPool());
+        } catch (IOReadException e) {
+            /* 目录无法读取（没有权限或者被其他进程删除）时和删除失败一样返回 false */
+            return false;
         }
-        return dir.forceDeleteFile();
-    }
-
-    private boolean forceDeleteDirectory() {
-        return forceDeleteDirectory(this);
+        return failures.sum() == 0 && !exists();
     }
 
     private boolean forceDeleteFile() {
-        boolean retval;
-        if (!(retval = delete())) {
-            System.gc();
-            retval = delete();
+        try {
+            return Files.deleteIfExists(toPath());
+        } catch (IOException e) {
+            return false;
         }
-        return retval;
     }
 
     /**
      * 强制删除一个文件或目录，文件或目录必须存在，否则将什么都不做。如果是目录
-     * 会先递归删除目录下的所有文件，然后再删除目录本身。
+     * 会先并行删除目录下的所有文件，然后再删除目录本身。符号链接（包括指向目录的符号链接和
+     * 目录中的符号链接）只删除链接本身，不会删除链接目标。
+     * 删除或者读取目录失败时不会抛出异常，只返回 {@code false}。
      *
      * @return 是否删除成功
      */
     @SuppressWarnings("UnusedReturnValue")
     public boolean forceDelete() {
+        /* 指向目录的符号链接不能遍历，否则会删除链接目标里的文件 */
+        if (Files.isSymbolicLink(toPath()))
+            return forceDeleteFile();
         if (exists())
             return isFile() ? forceDeleteFile() : forceDeleteDirectory();
         return false;
@@ -470,6 +510,32 @@ public class MutableFile extends java.io.File {
         return openByteWriter(false);
     }
 
+    /**
+     * #brief: 打开并行压缩的 gzip 输出流
+     *
+     * <p>写入的数据分块后在线程池中并行压缩，输出标准的多成员 gzip 文件。如果文件不存在则会
+     * 自动创建。
+     *
+     * @return gzip 输出流
+     * @see ParallelGzipOutputStream
+     */
+    public ParallelGzipOutputStream openGzipWriter() {
+        return new ParallelGzipOutputStream(openByteWriter());
+    }
+
+    /**
+     * #brief: 打开并行解压的 gzip 输入流
+     *
+     * <p>由 {@link #openGzipWriter()} 写出的文件可以并行解压，其它 gzip 文件按顺序解压。
+     * 文件不存在时抛出异常。
+     *
+     * @return gzip 输入流
+     * @see ParallelGzipInputStream
+     */
+    public ParallelGzipInputStream openGzipReader() {
+        return new ParallelGzipInputStream(openByteReaderDisabled());
+    }
+
     /**
      * 将整个文件以字符串的形式读取到内存中，并将字符串对象引用返回
      * 出去。
@@ -499,6 +565,690 @@ public class MutableFile extends java.io.File {
         return b;
     }
 
+    //////////////////////////////////////////////////////////////////////////////
+    /// Walk
+    //////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * 并行遍历目录下的所有文件。
+     *
+     * @see #walk(WalkFilter, WalkVisitor, int)
+     */
+    public long walk(WalkVisitor visitor, int parallelism) {
+        return walk(WalkFilter.ALL, visitor, parallelism);
+    }
+
+    /**
+     * #brief: 并行遍历目录下所有满足过滤条件的文件
+     *
+     * <p>每个子目录作为一个 ForkJoin 任务在 {@code parallelism} 个线程中并行遍历，目录通过
+     * {@link Files#newDirectoryStream(Path)} 读取，文件属性不跟随符号链接，符号链接被当作文件处理，
+     * 不会进入链接指向的目录。
+     *
+     * <p>{@code visitor} 抛出的异常会中止遍历，并包装成 {@link IOReadException} 重新抛出。
+     *
+     * @param filter
+     *        文件过滤条件
+     *
+     * @param visitor
+     *        文件处理函数，会被多个线程并发调用
+     *
+     * @param parallelism
+     *        并行线程数
+     *
+     * @return 处理的文件数量
+     */
+    public long walk(WalkFilter filter, WalkVisitor visitor, int parallelism) {
+        Assert.isTrue(isDirectory(), "%s is not a directory", this);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return walk(toPath(), filter, visitor, null, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * #brief: 计算文件或目录的大小
+     *
+     * <p>目录会在 {@link ForkJoinPool#commonPool()} 中并行遍历，累加所有普通文件的大小，符号链接
+     * 不计算在内。
+     *
+     * @return 文件或目录下所有文件的字节数
+     */
+    public long sizeOf() {
+        if (!isDirectory())
+            return length();
+        LongAdder size = new LongAdder();
+        walk(toPath(), WalkFilter.ALL, (path, attrs) -> {
+            if (attrs.isRegularFile())
+                size.add(attrs.size());
+        }, null, ForkJoinPool.commonPool());
+        return size.sum();
+    }
+
+    private static long walk(Path root, WalkFilter filter, WalkVisitor visitor,
+                             @Nullable WalkVisitor postDirectory, ForkJoinPool pool) {
+        LongAdder count = new LongAdder();
+        pool.invoke(new WalkTask(root, root, filter, visitor, postDirectory, count));
+        return count.sum();
+    }
+
+    /** 遍历一个目录的 ForkJoin 任务，子目录分叉成新的任务 */
+    private static class WalkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path root;
+        private final Path dir;
+        private final WalkFilter filter;
+        private final WalkVisitor visitor;
+        private final WalkVisitor postDirectory;
+        private final LongAdder count;
+
+        WalkTask(Path root, Path dir, WalkFilter filter, WalkVisitor visitor,
+                 WalkVisitor postDirectory, LongAdder count) {
+            this.root = root;
+            this.dir = dir;
+            this.filter = filter;
+            this.visitor = visitor;
+            this.postDirectory = postDirectory;
+            this.count = count;
+        }
+
+        @Override
+        protected void compute() {
+            List<WalkTask> subtasks = new ArrayList<>();
+            try {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                    for (Path child : stream) {
+                        BasicFileAttributes attrs = Files.readAttributes(child,
+                                BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        if (attrs.isDirectory()) {
+                            WalkTask task = new WalkTask(root, child, filter, visitor, postDirectory, count);
+                            task.fork();
+                            subtasks.add(task);
+                        } else if (filter.accept(root, child, attrs)) {
+                            visitor.visit(child, attrs);
+                            count.increment();
+                        }
+                    }
+                }
+                for (WalkTask task : subtasks)
+                    task.join();
+                if (postDirectory != null)
+                    postDirectory.visit(dir, null);
+            } catch (IOReadException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOReadException(e);
+            }
+        }
+
+    }
+
+    //////////////////////////////////////////////////////////////////////////////
+    /// Lines
+    //////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * #brief: 按行流式读取文件
+     *
+     * <p>和 {@link #strread()} 不同，文件不会被一次性读取到内存中，只使用一个可复用的缓冲区，
+     * 适合处理很大的日志文件。返回的 {@link LineReader} 使用完毕后需要关闭。
+     *
+     * @return 行读取器
+     * @see LineReader
+     */
+    public LineReader lines() {
+        return new LineReader(this, LineReader.DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * #brief: 按行遍历文件，每一行以 {@link CharSequence} 视图的形式交给 {@code consumer}
+     *
+     * <p>视图只在 {@code consumer} 调用期间有效，需要保存时请调用 {@code toString()}。只有在访问
+     * 字符时才会按 UTF-8 解码。
+     *
+     * @param consumer
+     *        行处理函数
+     *
+     * @return 行数
+     */
+    public long forEachLine(LineReader.LineConsumer consumer) {
+        long count = 0;
+        try (LineReader reader = lines()) {
+            for (LineReader.Line line : reader) {
+                consumer.accept(line);
+                count++;
+            }
+        } catch (IOReadException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOReadException(e);
+        }
+        return count;
+    }
+
+    /**
+     * #brief: 按行遍历文件，每一行以字节数组区间的形式交给 {@code consumer}，不做任何解码
+     *
+     * @param consumer
+     *        行处理函数，数组区间只在调用期间有效
+     *
+     * @return 行数
+     */
+    public long forEachLineBytes(LineReader.ByteLineConsumer consumer) {
+        long count = 0;
+        try (LineReader reader = lines()) {
+            for (LineReader.Line line : reader) {
+                consumer.accept(line.array(), line.arrayOffset(), line.byteLength());
+                count++;
+            }
+        } catch (IOReadException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOReadException(e);
+        }
+        return count;
+    }
+
+    //////////////////////////////////////////////////////////////////////////////
+    /// MappedByteBuffer
+    //////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * 以只读模式将整个文件映射到内存中。
+     *
+     * @return 映射整个文件的 {@link MappedByteBuffer} 缓冲区
+     * @see #map(FileChannel.MapMode, long, long)
+     */
+    public MappedByteBuffer map() {
+        return map(FileChannel.MapMode.READ_ONLY);
+    }
+
+    /**
+     * 以指定模式将整个文件映射到内存中。
+     *
+     * @param mode 映射模式
+     * @return 映射整个文件的 {@link MappedByteBuffer} 缓冲区
+     * @see #map(FileChannel.MapMode, long, long)
+     */
+    public MappedByteBuffer map(FileChannel.MapMode mode) {
+        return map(mode, 0, length());
+    }
+
+    /**
+     * #brief: 将文件的指定区域映射到内存中
+     *
+     * <p>映射后的读写直接作用在操作系统的页缓存上，随机访问大文件时不需要每次读取都发起一次
+     * 系统调用，也不需要把整个文件读到一个字节数组中。大于 1GB 的区域会被切分成多段映射并
+     * 串联起来，所以支持超过 2GB 的文件。
+     *
+     * <p>{@code READ_WRITE} 模式下文件不存在时会被创建，如果区域超出文件末尾，文件会被自动扩展。映射建立后文件通道
+     * 就会被关闭，映射本身在调用 {@link MappedByteBuffer#close()} 或者被 GC 回收之前一直有效。
+     *
+     * @param mode
+     *        映射模式，{@code READ_ONLY}、{@code READ_WRITE} 或 {@code PRIVATE}（写时复制，修改只在
+     *        当前映射中可见，不会写回文件，区域不能超出文件末尾）
+     *
+     * @param offset
+     *        映射区域在文件中的起始位置
+     *
+     * @param length
+     *        映射区域的长度
+     *
+     * @return 映射指定区域的 {@link MappedByteBuffer} 缓冲区
+     */
+    public MappedByteBuffer map(FileChannel.MapMode mode, long offset, long length) {
+        StandardOpenOption[] options;
+        if (mode == FileChannel.MapMode.READ_WRITE) {
+            options = new StandardOpenOption[] { StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE };
+        } else if (mode == FileChannel.MapMode.PRIVATE) {
+            /* 写时复制映射要求通道可读可写，但修改不会写回文件 */
+            options = new StandardOpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE };
+        } else {
+            options = new StandardOpenOption[] { StandardOpenOption.READ };
+        }
+        try (FileChannel channel = FileChannel.open(toPath(), options)) {
+            return new MappedByteBuffer(channel, mode, offset, length);
+        } catch (IOException e) {
+            throw new IOReadException(e);
+        }
+    }
+
+    //////////////////////////////////////////////////////////////////////////////
+    /// FileChannel
+    //////////////////////////////////////////////////////////////////////////////
+
+    /** 单次 transferTo/transferFrom 调用最多拷贝的字节数，同时也是进度通知的粒度 */
+    private static final long TRANSFER_CHUNK_SIZE = 8L * IOUtils.MB;
+
+    /**
+     * 将当前文件拷贝到 {@code target}。
+     *
+     * @see #copyTo(MutableFile, ProgressListener)
+     */
+    public CopyResult copyTo(MutableFile target) {
+        return copyTo(target, null);
+    }
+
+    /**
+     * #brief: 通过 {@link FileChannel} 将当前文件拷贝到 {@code target}
+     *
+     * <p>拷贝使用 {@link FileChannel#transferTo(long, long, WritableByteChannel)} 完成，Linux 上
+     * 会由内核通过 sendfile/copy_file_range 直接拷贝，数据不需要经过 JVM 堆内存。目标文件不存在时
+     * 会自动创建，已存在时会被覆盖。
+     *
+     * @param target
+     *        目标文件
+     *
+     * @param listener
+     *        进度回调，可以为 null
+     *
+     * @return 拷贝的统计信息
+     */
+    public CopyResult copyTo(MutableFile target, @Nullable ProgressListener listener) {
+        try (FileChannel out = FileChannel.open(target.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            return transferTo(out, listener);
+        } catch (IOException e) {
+            throw new IOWriteException(e);
+        }
+    }
+
+    /**
+     * 将整个文件的内容写入到 {@code target} 通道中。
+     *
+     * @see #transferTo(WritableByteChannel, ProgressListener)
+     */
+    public CopyResult transferTo(WritableByteChannel target) {
+        return transferTo(target, null);
+    }
+
+    /**
+     * #brief: 将整个文件的内容写入到 {@code target} 通道中
+     *
+     * <p>使用 {@link FileChannel#transferTo(long, long, WritableByteChannel)} 实现零拷贝传输，
+     * 目标是文件或 socket 时数据直接在内核中传输。函数不会关闭 {@code target}。
+     *
+     * @param target
+     *        目标通道
+     *
+     * @param listener
+     *        进度回调，可以为 null
+     *
+     * @return 拷贝的统计信息
+     */
+    public CopyResult transferTo(WritableByteChannel target, @Nullable ProgressListener listener) {
+        try (FileChannel in = FileChannel.open(toPath(), StandardOpenOption.READ)) {
+            return transfer(in, 0, in.size(), target, listener);
+        } catch (IOException e) {
+            throw new IOWriteException(e);
+        }
+    }
+
+    /**
+     * 读取 {@code source} 通道中的全部数据写入到当前文件。
+     *
+     * @see #transferFrom(ReadableByteChannel, ProgressListener)
+     */
+    public CopyResult transferFrom(ReadableByteChannel source) {
+        return transferFrom(source, null);
+    }
+
+    /**
+     * #brief: 读取 {@code source} 通道中的全部数据写入到当前文件
+     *
+     * <p>使用 {@link FileChannel#transferFrom(ReadableByteChannel, long, long)} 实现，一直读取到
+     * {@code source} 没有更多数据为止，所以 {@code source} 必须是阻塞模式的通道。文件不存在时会自动
+     * 创建，已存在时会被覆盖。函数不会关闭 {@code source}。
+     *
+     * @param source
+     *        数据来源通道
+     *
+     * @param listener
+     *        进度回调，可以为 null，总长度未知所以回调中的 {@code total} 为 -1
+     *
+     * @return 拷贝的统计信息
+     */
+    public CopyResult transferFrom(ReadableByteChannel source, @Nullable ProgressListener listener) {
+        long start = System.nanoTime();
+        try (FileChannel out = FileChannel.open(toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            long copies = 0;
+            long n;
+            while ((n = out.transferFrom(source, position, TRANSFER_CHUNK_SIZE)) > 0) {
+                position += n;
+                copies++;
+                if (listener != null)
+                    listener.onProgress(position, -1);
+            }
+            return new CopyResult(position, System.nanoTime() - start, copies);
+        } catch (IOException e) {
+            throw new IOWriteException(e);
+        }
+    }
+
+    /**
+     * 将 {@code in} 中从 {@code position} 开始的 {@code count} 个字节写入到 {@code out}，
+     * 按 {@link #TRANSFER_CHUNK_SIZE} 分批调用 transferTo 并通知进度。
+     */
+    static CopyResult transfer(FileChannel in, long position, long count,
+                               WritableByteChannel out, @Nullable ProgressListener listener) throws IOException {
+        long start = System.nanoTime();
+        long transferred = 0;
+        long copies = 0;
+        while (transferred < count) {
+            long n = in.transferTo(position + transferred,
+                    Math.min(count - transferred, TRANSFER_CHUNK_SIZE), out);
+            // 文件在拷贝过程中被截断
+            if (n <= 0)
+                break;
+            transferred += n;
+            copies++;
+            if (listener != null)
+                listener.onProgress(transferred, count);
+        }
+        return new CopyResult(transferred, System.nanoTime() - start, copies);
+    }
+
+    //////////////////////////////////////////////////////////////////////////////
+    /// ParallelRanges
+    //////////////////////////////////////////////////////////////////////////////
+
+    /** 查找分隔符时每次读取的字节数 */
+    private static final int DELIMITER_SCAN_SIZE = 4 * IOUtils.KB;
+
+    /**
+     * 按 {@code chunkSize} 切分文件，在 {@link ForkJoinPool#commonPool()} 中并发处理每个区域，
+     * 区域边界不做对齐。
+     *
+     * @see #parallelRanges(long, int, ForkJoinPool, RangeConsumer)
+     */
+    public int parallelRanges(long chunkSize, RangeConsumer consumer) {
+        return parallelRanges(chunkSize, -1, ForkJoinPool.commonPool(), consumer);
+    }
+
+    /**
+     * 按 {@code chunkSize} 切分文件，区域边界对齐到 {@code delimiter} 之后，在
+     * {@link ForkJoinPool#commonPool()} 中并发处理每个区域。
+     *
+     * @see #parallelRanges(long, int, ForkJoinPool, RangeConsumer)
+     */
+    public int parallelRanges(long chunkSize, byte delimiter, RangeConsumer consumer) {
+        return parallelRanges(chunkSize, delimiter & 0xFF, ForkJoinPool.commonPool(), consumer);
+    }
+
+    /**
+     * #brief: 将文件切分成多个区域并发处理
+     *
+     * <p>文件按 {@code chunkSize} 切分成多个区域，每个区域以只读内存映射的方式交给 {@code consumer}
+     * 处理，所有区域在 {@code pool} 中并发执行，处理大文件时可以充分利用多核。
+     *
+     * <p>如果指定了 {@code delimiter}，每个区域的结束位置会向后移动到下一个分隔符之后（例如按行
+     * 切分时使用 {@code '\n'}），保证一条记录不会被切分到两个区域中。最后一个区域一直到文件末尾。
+     *
+     * <p>任意一个区域处理失败时，其他还没开始的区域会被取消，异常包装成 {@link IOReadException}
+     * 重新抛出。
+     *
+     * @param chunkSize
+     *        每个区域的大小（对齐前）
+     *
+     * @param delimiter
+     *        区域边界对齐的分隔符，取值 0~255，小于 0 表示不对齐
+     *
+     * @param pool
+     *        执行区域处理的线程池
+     *
+     * @param consumer
+     *        区域处理函数，会被多个线程并发调用
+     *
+     * @return 处理的区域数量
+     */
+    public int parallelRanges(long chunkSize, int delimiter, ForkJoinPool pool, RangeConsumer consumer) {
+        Assert.isTrue(chunkSize > 0, "chunkSize must be positive: %s", chunkSize);
+        try (FileChannel channel = FileChannel.open(toPath(), StandardOpenOption.READ)) {
+            List<long[]> ranges = splitRanges(channel, chunkSize, delimiter);
+            pool.invoke(new RangeTask(channel, ranges, 0, ranges.size(), consumer));
+            return ranges.size();
+        } catch (IOException e) {
+            throw new IOReadException(e);
+        } catch (RuntimeException e) {
+            throw e instanceof IOReadException ? e : new IOReadException(e);
+        }
+    }
+
+    /** 计算每个区域的 [起始位置, 长度] */
+    private static List<long[]> splitRanges(FileChannel channel, long chunkSize, int delimiter) throws IOException {
+        long size = channel.size();
+        List<long[]> ranges = new ArrayList<>();
+        java.nio.ByteBuffer scan = delimiter < 0 ? null : java.nio.ByteBuffer.allocate(DELIMITER_SCAN_SIZE);
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(size, start + chunkSize);
+            if (scan != null && end < size)
+                end = nextDelimiter(channel, end - 1, size, (byte) delimiter, scan);
+            ranges.add(new long[] { start, end - start });
+            start = end;
+        }
+        return ranges;
+    }
+
+    /** 从 {@code position} 开始查找分隔符，返回分隔符之后的位置，找不到时返回文件末尾 */
+    private static long nextDelimiter(FileChannel channel, long position, long size,
+                                      byte delimiter, java.nio.ByteBuffer scan) throws IOException {
+        while (position < size) {
+            scan.clear();
+            int n = channel.read(scan, position);
+            if (n <= 0)
+                break;
+            for (int i = 0; i < n; i++) {
+                if (scan.get(i) == delimiter)
+                    return position + i + 1;
+            }
+            position += n;
+        }
+        return size;
+    }
+
+    /** 二分切分区域列表的 ForkJoin 任务 */
+    private static class RangeTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final List<long[]> ranges;
+        private final int lo;
+        private final int hi;
+        private final RangeConsumer consumer;
+
+        RangeTask(FileChannel channel, List<long[]> ranges, int lo, int hi, RangeConsumer consumer) {
+            this.channel = channel;
+            this.ranges = ranges;
+            this.lo = lo;
+            this.hi = hi;
+            this.consumer = consumer;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo > 1) {
+                int mid = (lo + hi) >>> 1;
+                invokeAll(new RangeTask(channel, ranges, lo, mid, consumer),
+                        new RangeTask(channel, ranges, mid, hi, consumer));
+                return;
+            }
+            if (lo == hi)
+                return;
+            long[] range = ranges.get(lo);
+            try (MappedByteBuffer buffer = new MappedByteBuffer(channel, FileChannel.MapMode.READ_ONLY, range[0], range[1])) {
+                consumer.accept(range[0], buffer);
+            } catch (Exception e) {
+                throw new IOReadException(e);
+            }
+        }
+
+    }
+
+    //////////////////////////////////////////////////////////////////////////////
+    /// AsynchronousFileChannel
+    //////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * #brief: 异步读取文件中从 {@code position} 开始的 {@code length} 个字节
+     *
+     * <p>读取通过 {@link AsynchronousFileChannel} 完成，调用线程不会被阻塞。读到文件末尾时
+     * 返回的缓冲区长度会小于 {@code length}。读写通道在第一次调用时打开，使用完毕后需要调用
+     * {@link #closeAsync()} 或者 {@link #close()} 关闭。
+     *
+     * @param position
+     *        文件中的起始位置
+     *
+     * @param length
+     *        读取的字节数
+     *
+     * @return 包含读取数据的 {@link ByteBuffer}，读取位置为 0
+     */
+    public CompletableFuture<ByteBuffer> readAsync(long position, int length) {
+        byte[] b = new byte[length];
+        return readAsync(position, java.nio.ByteBuffer.wrap(b))
+                .thenApply(n -> ByteBuffer.wrap(b, 0, n).rewind());
+    }
+
+    /**
+     * #brief: 异步读取文件中从 {@code position} 开始的数据到 {@code dst}
+     *
+     * <p>一直读取到 {@code dst} 没有剩余空间或者文件末尾为止，{@code dst} 的 position 会随着读取
+     * 前移。可以配合 {@link ByteBuffer#allocateDirect(int)} 等复用的缓冲区使用。
+     *
+     * @param position
+     *        文件中的起始位置
+     *
+     * @param dst
+     *        读取的目标缓冲区
+     *
+     * @return 读取的字节总数
+     */
+    public CompletableFuture<Integer> readAsync(long position, java.nio.ByteBuffer dst) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        try {
+            AsynchronousFileChannel channel = asyncChannel(false);
+            channel.read(dst, position, 0, new CompletionHandler<>() {
+                @Override
+                public void completed(Integer n, Integer total) {
+                    if (n < 0 || !dst.hasRemaining()) {
+                        future.complete(total + Math.max(n, 0));
+                        return;
+                    }
+                    channel.read(dst, position + total + n, total + n, this);
+                }
+
+                @Override
+                public void failed(Throwable e, Integer total) {
+                    future.completeExceptionally(new IOReadException(e));
+                }
+            });
+        } catch (Throwable e) {
+            future.completeExceptionally(new IOReadException(e));
+        }
+        return future;
+    }
+
+    /**
+     * #brief: 异步写入 {@code src} 中可读的数据到文件的 {@code position} 位置
+     *
+     * <p>写入的是 {@code src} 从当前读取位置到末尾的数据，{@code src} 自身的读取位置不会改变，
+     * 写入完成前不要修改 {@code src}。文件不存在时会自动创建。
+     *
+     * @param position
+     *        文件中的起始位置
+     *
+     * @param src
+     *        要写入的数据
+     *
+     * @return 写入的字节总数
+     */
+    public CompletableFuture<Integer> writeAsync(long position, ByteBuffer src) {
+        java.nio.ByteBuffer buf = src.nioBuffer();
+        buf.position(src.index());
+        return writeAsync(position, buf);
+    }
+
+    /**
+     * #brief: 异步写入 {@code src} 中剩余的数据到文件的 {@code position} 位置
+     *
+     * <p>一直写入到 {@code src} 没有剩余数据为止，{@code src} 的 position 会随着写入前移。
+     *
+     * @param position
+     *        文件中的起始位置
+     *
+     * @param src
+     *        要写入的数据
+     *
+     * @return 写入的字节总数
+     */
+    public CompletableFuture<Integer> writeAsync(long position, java.nio.ByteBuffer src) {
+        CompletableFuture<Integer> future = new CompletableFuture<>();
+        try {
+            AsynchronousFileChannel channel = asyncChannel(true);
+            channel.write(src, position, 0, new CompletionHandler<>() {
+                @Override
+                public void completed(Integer n, Integer total) {
+                    if (!src.hasRemaining()) {
+                        future.complete(total + n);
+                        return;
+                    }
+                    channel.write(src, position + total + n, total + n, this);
+                }
+
+                @Override
+                public void failed(Throwable e, Integer total) {
+                    future.completeExceptionally(new IOWriteException(e));
+                }
+            });
+        } catch (Throwable e) {
+            future.completeExceptionally(new IOWriteException(e));
+        }
+        return future;
+    }
+
+    /**
+     * 关闭 {@link #readAsync(long, int)} 和 {@link #writeAsync(long, ByteBuffer)} 打开的
+     * 异步通道，关闭前需要等待所有异步操作完成。
+     */
+    public void closeAsync() {
+        closeAsync0();
+    }
+
+    /**
+     * @return 关闭异步通道，如果有打开的异步通道返回 {@code true}
+     */
+    private synchronized boolean closeAsync0() {
+        boolean opened = asyncReadChannel != null || asyncWriteChannel != null;
+        IOUtils.closeQuietly(asyncReadChannel);
+        IOUtils.closeQuietly(asyncWriteChannel);
+        asyncReadChannel = null;
+        asyncWriteChannel = null;
+        return opened;
+    }
+
+    /**
+     * 获取异步读取或写入通道，不存在时打开。读写分别使用不同的通道，只读的文件也可以异步读取。
+     */
+    private synchronized AsynchronousFileChannel asyncChannel(boolean write) throws IOException {
+        if (write) {
+            if (asyncWriteChannel == null)
+                asyncWriteChannel = AsynchronousFileChannel.open(toPath(),
+                        StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+            return asyncWriteChannel;
+        }
+        if (asyncReadChannel == null)
+            asyncReadChannel = AsynchronousFileChannel.open(toPath(), StandardOpenOption.READ);
+        return asyncReadChannel;
+    }
+
     //////////////////////////////////////////////////////////////////////////////
     /// RandomAccessFile
     //////////////////////////////////////////////////////////////////////////////
@@ -535,14 +1285,111 @@ public class MutableFile extends java.io.File {
      * @return 描述符是否打开成功
      */
     public boolean open(String mode) {
+        closeAccess();
         return (accessFile = Optional.ifError(() -> new RandomAccessFile(this, mode), null)) != null;
     }
 
+    /**
+     * 以带页缓存的读写模式打开文件，关闭时同步到磁盘。
+     *
+     * @see #openBuffered(int, int, Durability, long)
+     */
+    public boolean openBuffered() {
+        return openBuffered(Durability.ON_CLOSE);
+    }
+
+    /**
+     * 以带页缓存的读写模式打开文件，使用默认的页大小和缓存页数。
+     *
+     * @param durability 同步策略，{@link Durability#PERIODIC} 默认每秒同步一次
+     * @see #openBuffered(int, int, Durability, long)
+     */
+    public boolean openBuffered(Durability durability) {
+        return openBuffered(BufferedRandomAccessFile.DEFAULT_PAGE_SIZE,
+                BufferedRandomAccessFile.DEFAULT_MAX_PAGES, durability, 1000);
+    }
+
+    /**
+     * #brief: 以带页缓存的读写模式打开文件
+     *
+     * <p>和 {@link #open()} 默认的 {@code "rwd"} 模式每次写入都同步到磁盘不同，缓冲模式下的读写都在
+     * 内存中的页缓存上完成，脏页在被 LRU 淘汰、调用 {@link #flush()}/{@link #fsync()} 或者关闭文件时
+     * 才写回。所有随机读写函数（{@code read}、{@code writeInt}、{@code seek} 等）的用法保持不变。
+     *
+     * @param pageSize
+     *        页大小，必须是 2 的幂
+     *
+     * @param maxPages
+     *        最多缓存的页数
+     *
+     * @param durability
+     *        同步策略
+     *
+     * @param syncIntervalMillis
+     *        {@link Durability#PERIODIC} 策略下的同步间隔（毫秒），其他策略忽略
+     *
+     * @return 描述符是否打开成功
+     * @see BufferedRandomAccessFile
+     */
+    public boolean openBuffered(int pageSize, int maxPages, Durability durability, long syncIntervalMillis) {
+        closeAccess();
+        return (bufferedFile = Optional.ifError(() -> new BufferedRandomAccessFile(this, "rw",
+                pageSize, maxPages, durability, syncIntervalMillis), null)) != null;
+    }
+
+    /**
+     * 将缓冲模式下的脏页写回文件，不调用 fsync。非缓冲模式下数据已经直接写入文件，
+     * 不做任何操作。
+     */
+    public void flush() {
+        checkOpen();
+        if (bufferedFile != null)
+            Captor.call(bufferedFile::flush);
+    }
+
+    /**
+     * 将所有写入的数据同步到磁盘，缓冲模式下会先写回所有脏页。
+     */
+    public void fsync() {
+        checkOpen();
+        if (bufferedFile != null) {
+            Captor.call(bufferedFile::fsync);
+        } else {
+            Captor.call(() -> accessFile.getFD().sync());
+        }
+    }
+
     /**
      * 检查文件描述符是否打开
      */
     private void checkOpen() {
-        Assert.isTrue(accessFile != null, "Please call open() before random access methods execute.");
+        Assert.isTrue(accessFile != null || bufferedFile != null, "Please call open() before random access methods execute.");
+    }
+
+    /**
+     * @return 当前打开的随机读写访问对象的读取接口
+     */
+    private DataInput input() {
+        checkOpen();
+        return bufferedFile != null ? bufferedFile : accessFile;
+    }
+
+    /**
+     * @return 当前打开的随机读写访问对象的写入接口
+     */
+    private DataOutput output() {
+        checkOpen();
+        return bufferedFile != null ? bufferedFile : accessFile;
+    }
+
+    /**
+     * 关闭已经打开的随机读写访问对象，缓冲模式下会先写回脏页
+     */
+    private void closeAccess() {
+        IOUtils.closeQuietly(accessFile);
+        IOUtils.closeQuietly(bufferedFile);
+        accessFile = null;
+        bufferedFile = null;
     }
 
     /**
@@ -561,8 +1408,7 @@ public class MutableFile extends java.io.File {
      * @return     the actual number of bytes skipped.
      */
     public int skipBytes(int n) {
-        checkOpen();
-        return Captor.call(() -> accessFile.skipBytes(n));
+        return Captor.call(() -> input().skipBytes(n));
     }
 
     /**
@@ -579,7 +1425,11 @@ public class MutableFile extends java.io.File {
      */
     public void seek(long pos) {
         checkOpen();
-        Captor.call(() -> accessFile.seek(pos));
+        if (bufferedFile != null) {
+            Captor.call(() -> bufferedFile.seek(pos));
+        } else {
+            Captor.call(() -> accessFile.seek(pos));
+        }
     }
 
     /**
@@ -597,7 +1447,7 @@ public class MutableFile extends java.io.File {
      */
     public int read() {
         checkOpen();
-        return Captor.call(() -> accessFile.read());
+        return bufferedFile != null ? Captor.call(() -> bufferedFile.read()) : Captor.call(() -> accessFile.read());
     }
 
     /**
@@ -612,7 +1462,11 @@ public class MutableFile extends java.io.File {
      */
     public void read(byte[] b) {
         checkOpen();
-        Captor.call(() -> accessFile.read(b));
+        if (bufferedFile != null) {
+            Captor.call(() -> bufferedFile.read(b));
+        } else {
+            Captor.call(() -> accessFile.read(b));
+        }
     }
 
     /**
@@ -631,7 +1485,11 @@ public class MutableFile extends java.io.File {
      */
     public void read(byte[] b, int off, int len) {
         checkOpen();
-        Captor.call(() -> accessFile.read(b, off, len));
+        if (bufferedFile != null) {
+            Captor.call(() -> bufferedFile.read(b, off, len));
+        } else {
+            Captor.call(() -> accessFile.read(b, off, len));
+        }
     }
 
     /**
@@ -645,8 +1503,7 @@ public class MutableFile extends java.io.File {
      * @return 返回从文件中读取到的 int 数据
      */
     public int readInt() {
-        checkOpen();
-        return Captor.call(() -> accessFile.readInt());
+        return Captor.call(() -> input().readInt());
     }
 
     /**
@@ -660,8 +1517,7 @@ public class MutableFile extends java.io.File {
      * @return 返回从文件中读取到的 long 数据
      */
     public long readLong() {
-        checkOpen();
-        return Captor.call(() -> accessFile.readLong());
+        return Captor.call(() -> input().readLong());
     }
 
     /**
@@ -675,8 +1531,7 @@ public class MutableFile extends java.io.File {
      * @return 返回从文件中读取到的 float 数据
      */
     public float readFloat() {
-        checkOpen();
-        return Captor.call(() -> accessFile.readFloat());
+        return Captor.call(() -> input().readFloat());
     }
 
     /**
@@ -690,8 +1545,7 @@ public class MutableFile extends java.io.File {
      * @return 返回从文件中读取到的 double 数据
      */
     public double readDouble() {
-        checkOpen();
-        return Captor.call(() -> accessFile.readDouble());
+        return Captor.call(() -> input().readDouble());
     }
 
     /**
@@ -704,8 +1558,7 @@ public class MutableFile extends java.io.File {
      * @param b 需要写入的字节数据
      */
     public void write(byte b) {
-        checkOpen();
-        Captor.call(() -> accessFile.write(b));
+        Captor.call(() -> output().write(b));
     }
 
     /**
@@ -718,8 +1571,7 @@ public class MutableFile extends java.io.File {
      * @param b 需要写入的字节数组
      */
     public void write(byte[] b) {
-        checkOpen();
-        Captor.call(() -> accessFile.write(b));
+        Captor.call(() -> output().write(b));
     }
 
     /**
@@ -737,8 +1589,7 @@ public class MutableFile extends java.io.File {
      *            数据文件中。
      */
     public void write(byte[] b, int off, int len) {
-        checkOpen();
-        Captor.call(() -> accessFile.write(b, off, len));
+        Captor.call(() -> output().write(b, off, len));
     }
 
     /**
@@ -751,8 +1602,7 @@ public class MutableFile extends java.io.File {
      * @param value 需要写入的 Integer 数据。
      */
     public void writeInt(int value) {
-        checkOpen();
-        Captor.call(() -> accessFile.writeInt(value));
+        Captor.call(() -> output().writeInt(value));
     }
 
     /**
@@ -765,8 +1615,7 @@ public class MutableFile extends java.io.File {
      * @param value 需要写入的 Long 数据。
      */
     public void writeLong(long value) {
-        checkOpen();
-        Captor.call(() -> accessFile.writeLong(value));
+        Captor.call(() -> output().writeLong(value));
     }
 
     /**
@@ -779,8 +1628,7 @@ public class MutableFile extends java.io.File {
      * @param value 需要写入的 Float 数据。
      */
     public void writeFloat(float value) {
-        checkOpen();
-        Captor.call(() -> accessFile.writeFloat(value));
+        Captor.call(() -> output().writeFloat(value));
     }
 
     /**
@@ -793,19 +1641,22 @@ public class MutableFile extends java.io.File {
      * @param value 需要写入的 Double 数据。
      */
     public void writeDouble(double value) {
-        checkOpen();
-        Captor.call(() -> accessFile.writeDouble(value));
+        Captor.call(() -> output().writeDouble(value));
     }
 
     /**
      * 关闭文件描述符，当文件描述符被关闭后，<code>File</code> 对象将
      * 不再支持随机读写访问，并释放出文件描述符句柄。如果需要重新使用
      * 随机读写访问功能，重新打开文件描述符即可，
+     * <p>
+     * {@link #readAsync(long, int)}、{@link #writeAsync(long, ByteBuffer)} 打开的异步通道也会
+     * 一起关闭。只使用过异步读写、没有打开随机读写访问时调用这个函数不会抛出异常。
      */
     public void close() {
+        if (closeAsync0() && accessFile == null && bufferedFile == null)
+            return;
         checkOpen();
-        IOUtils.closeQuietly(accessFile);
-        accessFile = null;
+        closeAccess();
     }
 
     /**
@@ -826,4 +1677,42 @@ public class MutableFile extends java.io.File {
         return properties;
     }
 
+    /**
+     * #brief: 从全局缓存中获取配置文件的属性
+     *
+     * <p>和 {@link #loadProperties()} 每次都重新读取并解析文件不同，文件只在第一次调用或者在磁盘上
+     * 被修改以后才会重新加载，其余调用只是一次 Map 查找。返回的对象是共享的，不要修改它。
+     *
+     * @return 缓存的 `Properties` 对象
+     * @see PropertiesCache
+     */
+    public Properties loadPropertiesCached() {
+        return PropertiesCache.getDefault().get(this);
+    }
+
+    /**
+     * #brief: 打开一个持续读取文件新增数据的读取器
+     *
+     * <p>类似 {@code tail -F}，每次只读取文件新增的完整行，并且能够识别文件的轮转和截断。
+     *
+     * @return 文件读取器
+     * @see TailReader
+     */
+    public TailReader tail() {
+        return new TailReader(this);
+    }
+
+    /**
+     * #brief: 打开一个持续读取文件新增数据的读取器，并把读取位置保存到检查点文件
+     *
+     * <p>重新打开时从检查点保存的位置继续读取，进程重启后不需要从头开始读取文件。
+     *
+     * @param checkpoint 检查点文件
+     * @return 文件读取器
+     * @see TailReader
+     */
+    public TailReader tail(MutableFile checkpoint) {
+        return new TailReader(this, checkpoint);
+    }
+
 }
@@ -0,0 +1,273 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.exception.IOReadException;
+import org.karatsuba.thread.ThreadPool;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+import static org.karatsuba.io.ParallelGzipOutputStream.*;
+
+/**
+ * `ParallelGzipInputStream` 并行解压的 gzip 输入流。
+ *
+ * <p>对于 {@link ParallelGzipOutputStream} 写出的数据，每个成员的头部记录了成员的长度，当前线程只负责
+ * 按长度切分读取成员，解压和 CRC 校验在线程池中并行进行，结果按顺序返回给调用方。
+ *
+ * <p>遇到不带长度信息的成员（例如普通的 {@code gzip} 命令生成的文件）时，从这个成员开始退回到
+ * {@link GZIPInputStream} 顺序解压，所以任何标准的 gzip 数据都可以读取。
+ *
+ * <p>成员长度超过 {@link ParallelGzipOutputStream} 能够写出的最大长度时直接报错，损坏或者恶意构造
+ * 的文件不会导致分配超大的数组。和输出流一样，默认在专用的线程池中解压，线程池的使用限制参考
+ * {@link ParallelGzipOutputStream}。
+ *
+ * <h2>使用示例</h2>
+ * <pre>
+ *     try (InputStream in = mutableFile.openGzipReader()) {
+ *         IOUtils.copy(in, output);
+ *     }
+ * </pre>
+ *
+ * @author Red Gogh
+ * @see ParallelGzipOutputStream
+ */
+public class ParallelGzipInputStream extends InputStream {
+
+    /** 池化的 Inflater */
+    private static final CoderPool<Inflater> INFLATERS = new CoderPool<>();
+
+    private final InputStream in;
+
+    private final ExecutorService executor;
+
+    /** 允许同时解压的成员数量 */
+    private final int maxInFlight;
+
+    /** 按顺序排队的解压任务 */
+    private final ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>();
+
+    /** 当前正在读取的解压结果 */
+    private byte[] current = new byte[0];
+
+    private int pos;
+
+    /** 退回顺序解压时使用的输入流 */
+    private InputStream fallback;
+
+    /** 是否已经读取了第一个成员 */
+    private boolean started;
+
+    /** 底层输入流是否已经读完 */
+    private boolean eof;
+
+    private boolean closed;
+
+    public ParallelGzipInputStream(InputStream in) {
+        this(in, null);
+    }
+
+    /**
+     * @param in       gzip 输入流
+     * @param executor 执行解压的线程池，为 {@code null} 时使用专用的默认线程池
+     */
+    public ParallelGzipInputStream(InputStream in, ExecutorService executor) {
+        this.in = in;
+        this.executor = executor != null ? executor : defaultExecutor();
+        this.maxInFlight = ThreadPool.N_THREAD * 2;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill())
+            return fallback != null ? fallback.read() : -1;
+        return current[pos++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0)
+            return 0;
+        if (!fill())
+            return fallback != null ? fallback.read(b, off, len) : -1;
+        int n = Math.min(len, current.length - pos);
+        System.arraycopy(current, pos, b, off, n);
+        pos += n;
+        return n;
+    }
+
+    @Override
+    public int available() throws IOException {
+        if (pos < current.length)
+            return current.length - pos;
+        return fallback != null && inFlight.isEmpty() ? fallback.available() : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        for (Future<byte[]> future : inFlight)
+            future.cancel(false);
+        inFlight.clear();
+        current = new byte[0];
+        if (fallback != null)
+            fallback.close();
+        in.close();
+    }
+
+    /**
+     * 保证 {@code current} 中有可读数据。返回 {@code false} 表示并行部分已经读完，
+     * 剩余的数据（如果有）需要从 {@code fallback} 中读取。
+     */
+    private boolean fill() throws IOException {
+        if (closed)
+            throw new IOException("Stream closed");
+        while (pos == current.length) {
+            while (!eof && fallback == null && inFlight.size() < maxInFlight)
+                readMember();
+            if (inFlight.isEmpty())
+                return false;
+            try {
+                current = inFlight.poll().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOReadException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException)
+                    throw (IOException) e.getCause();
+                throw new IOReadException(e.getCause());
+            }
+            pos = 0;
+        }
+        return true;
+    }
+
+    /** 读取下一个成员并提交解压任务，或者切换到顺序解压 */
+    private void readMember() throws IOException {
+        byte[] header = new byte[HEADER_SIZE];
+        int n = readFully(header, 0, 10);
+        if (n == 0 && started) {
+            eof = true;
+            return;
+        }
+
+        if (n == 10 && (header[0] & 0xff) == 0x1f && (header[1] & 0xff) == 0x8b
+                && header[3] == 0x04 && (n += readFully(header, 10, 10)) == HEADER_SIZE
+                && header[10] == 8 && header[11] == 0 && header[12] == SI1 && header[13] == SI2
+                && header[14] == 4 && header[15] == 0) {
+            int memberSize = readIntLE(header, 16);
+            if (memberSize < HEADER_SIZE + TRAILER_SIZE || memberSize > MAX_MEMBER_SIZE)
+                throw new ZipException("Corrupt gzip member size: " + memberSize);
+            byte[] member = Arrays.copyOf(header, memberSize);
+            if (readFully(member, HEADER_SIZE, memberSize - HEADER_SIZE) != memberSize - HEADER_SIZE)
+                throw new EOFException("Unexpected end of gzip member");
+            Callable<byte[]> task = () -> inflate(member);
+            inFlight.add(executor.submit(task));
+            started = true;
+            return;
+        }
+
+        /* 不是带长度信息的成员，把已经读取的头部放回去交给 GZIPInputStream。第一个成员
+         * 之后的尾部垃圾数据和 GZIPInputStream 的处理方式一致。 */
+        InputStream rest = new SequenceInputStream(new ByteArrayInputStream(header, 0, n), in);
+        if (!started) {
+            fallback = new GZIPInputStream(rest);
+        } else {
+            try {
+                fallback = new GZIPInputStream(rest);
+            } catch (ZipException | EOFException e) {
+                eof = true;
+            }
+        }
+    }
+
+    private int readFully(byte[] b, int off, int len) throws IOException {
+        int total = 0;
+        while (total < len) {
+            int n = in.read(b, off + total, len - total);
+            if (n < 0)
+                break;
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * #brief: 解压一个完整的 gzip 成员并校验 CRC 和长度
+     */
+    static byte[] inflate(byte[] member) throws ZipException {
+        int dataLen = member.length - HEADER_SIZE - TRAILER_SIZE;
+        int crc = readIntLE(member, member.length - TRAILER_SIZE);
+        int size = readIntLE(member, member.length - 4);
+        if (size < 0 || size > MAX_BLOCK_SIZE)
+            throw new ZipException("Corrupt gzip member, size: " + size);
+
+        Inflater inflater = INFLATERS.poll();
+        if (inflater == null)
+            inflater = new Inflater(true);
+        try {
+            byte[] data = new byte[size];
+            inflater.setInput(member, HEADER_SIZE, dataLen);
+            byte[] overflow = new byte[1];
+            int n = 0;
+            while (!inflater.finished()) {
+                /* 数据已经填满时继续读取结束块，多出来的数据说明 ISIZE 不正确 */
+                int r = n < size ? inflater.inflate(data, n, size - n) : inflater.inflate(overflow);
+                if (r == 0 && !inflater.finished() && (inflater.needsInput() || inflater.needsDictionary()))
+                    throw new ZipException("Corrupt gzip member");
+                n += r;
+            }
+            CRC32 checksum = new CRC32();
+            checksum.update(data, 0, n);
+            if (n != size || (int) checksum.getValue() != crc)
+                throw new ZipException("Corrupt gzip member, CRC or size mismatch");
+            return data;
+        } catch (DataFormatException e) {
+            throw new ZipException(e.getMessage());
+        } finally {
+            inflater.reset();
+            if (!INFLATERS.offer(inflater))
+                inflater.end();
+        }
+    }
+
+    static int readIntLE(byte[] b, int off) {
+        return (b[off] & 0xff) | (b[off + 1] & 0xff) << 8 | (b[off + 2] & 0xff) << 16 | (b[off + 3] & 0xff) << 24;
+    }
+
+}
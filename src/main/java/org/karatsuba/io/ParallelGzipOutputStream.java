@@ -0,0 +1,331 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.exception.IOWriteException;
+import org.karatsuba.thread.ThreadPool;
+import org.karatsuba.utils.Assert;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * `ParallelGzipOutputStream` 并行压缩的 gzip 输出流（类似 pigz）。
+ *
+ * <p>写入的数据按 {@code blockSize} 切分成块，每个块在线程池中使用池化的 {@link Deflater}
+ * 独立压缩成一个完整的 gzip 成员（member），再按写入顺序输出。多个 gzip 成员首尾相接仍然是
+ * 标准的 gzip 格式，{@code gzip -d} 和 {@link java.util.zip.GZIPInputStream} 都可以直接解压。
+ *
+ * <p>每个成员的头部带有一个 {@code FEXTRA} 扩展字段（子字段 ID 为 {@code 'K' 'B'}），记录了这个
+ * 成员压缩后的总长度，{@link ParallelGzipInputStream} 借助它在不解压的情况下切分成员并行解压。
+ * 其它工具会忽略这个字段。
+ *
+ * <p>因为块之间不共享字典，压缩率会比单个 gzip 流略低，块越大差别越小。同时进行压缩的块数量有
+ * 上限，内存占用约为 {@code blockSize * 2 * 线程数}。
+ *
+ * <p>默认在一个专用的守护线程池中压缩，调用方运行在 {@link ThreadPool} 或者其他线程池的工作线程
+ * 中也不会因为等待压缩结果而死锁。传入自定义的线程池时，不要在同一个有界线程池的工作线程中使用
+ * 这个流，否则工作线程全部阻塞在等待结果上时压缩任务将无法执行。
+ *
+ * <h2>使用示例</h2>
+ * <pre>
+ *     try (OutputStream out = mutableFile.openGzipWriter()) {
+ *         IOUtils.copy(input, out);
+ *     }
+ * </pre>
+ *
+ * @author Red Gogh
+ * @see ParallelGzipInputStream
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    /** 默认的块大小 */
+    public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+    /** 块大小上限，保证成员长度可以用 4 个字节表示 */
+    public static final int MAX_BLOCK_SIZE = 64 * 1024 * 1024;
+
+    /** 头部长度：10 字节固定头部 + 2 字节 XLEN + 8 字节扩展子字段 */
+    static final int HEADER_SIZE = 20;
+
+    /** 尾部长度：CRC32 + ISIZE */
+    static final int TRAILER_SIZE = 8;
+
+    /**
+     * 成员长度上限：{@link #MAX_BLOCK_SIZE} 的数据按 zlib {@code deflateBound} 估算的最大压缩长度
+     * 加上头部和尾部，读取时超过这个长度的成员被认为是损坏的。
+     */
+    static final int MAX_MEMBER_SIZE = HEADER_SIZE + MAX_BLOCK_SIZE + (MAX_BLOCK_SIZE >> 12)
+            + (MAX_BLOCK_SIZE >> 14) + (MAX_BLOCK_SIZE >> 25) + 13 + TRAILER_SIZE;
+
+    /** 扩展子字段 ID */
+    static final byte SI1 = 'K', SI2 = 'B';
+
+    /** 每种 Deflater/Inflater 最多缓存的数量，超出的实例在归还时直接释放 */
+    static final int MAX_POOLED_CODERS = ThreadPool.N_THREAD;
+
+    /** 按压缩级别池化的 Deflater */
+    private static final Map<Integer, CoderPool<Deflater>> DEFLATERS = new ConcurrentHashMap<>();
+
+    /** 默认的压缩、解压线程池，任务只做计算不会阻塞，和调用方使用的线程池互不影响 */
+    private static class DefaultExecutor {
+        static final ExecutorService INSTANCE = Executors.newFixedThreadPool(ThreadPool.N_THREAD, runnable -> {
+            Thread thread = new Thread(runnable, "ParallelGzip-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /** 容量有限的 Deflater/Inflater 池 */
+    static final class CoderPool<T> {
+        private final Queue<T> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+
+        T poll() {
+            T coder = queue.poll();
+            if (coder != null)
+                size.decrementAndGet();
+            return coder;
+        }
+
+        /** @return 池已满时返回 {@code false}，由调用方释放 {@code coder} */
+        boolean offer(T coder) {
+            if (size.incrementAndGet() > MAX_POOLED_CODERS) {
+                size.decrementAndGet();
+                return false;
+            }
+            queue.offer(coder);
+            return true;
+        }
+    }
+
+    private final OutputStream out;
+
+    private final int blockSize;
+
+    private final int level;
+
+    private final ExecutorService executor;
+
+    /** 允许同时压缩的块数量 */
+    private final int maxInFlight;
+
+    /** 按顺序排队的压缩任务 */
+    private final ArrayDeque<Future<byte[]>> inFlight = new ArrayDeque<>();
+
+    private byte[] block;
+
+    private int count;
+
+    /** 是否已经输出过成员 */
+    private boolean written;
+
+    private boolean closed;
+
+    public ParallelGzipOutputStream(OutputStream out) {
+        this(out, DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public ParallelGzipOutputStream(OutputStream out, int blockSize, int level) {
+        this(out, blockSize, level, null);
+    }
+
+    /**
+     * @param out       输出流
+     * @param blockSize 块大小
+     * @param level     压缩级别，参考 {@link Deflater}
+     * @param executor  执行压缩的线程池，为 {@code null} 时使用专用的默认线程池
+     */
+    public ParallelGzipOutputStream(OutputStream out, int blockSize, int level, ExecutorService executor) {
+        Assert.isTrue(blockSize > 0 && blockSize <= MAX_BLOCK_SIZE, "blockSize out of range: %s", blockSize);
+        Assert.isTrue(level == Deflater.DEFAULT_COMPRESSION || (level >= 0 && level <= 9),
+                "invalid compression level: %s", level);
+        this.out = out;
+        this.blockSize = blockSize;
+        this.level = level;
+        this.executor = executor != null ? executor : defaultExecutor();
+        this.maxInFlight = ThreadPool.N_THREAD * 2;
+        this.block = new byte[blockSize];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        ensureOpen();
+        block[count++] = (byte) b;
+        if (count == blockSize)
+            submit();
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        ensureOpen();
+        while (len > 0) {
+            int n = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, block, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == blockSize)
+                submit();
+        }
+    }
+
+    /**
+     * 压缩当前不满一块的数据并等待所有的块写出。频繁调用会产生很多小成员，降低压缩率。
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        if (count > 0)
+            submit();
+        drain(0);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        try {
+            /* 没有写入任何数据时也输出一个空成员，保证结果是合法的 gzip 文件 */
+            if (count > 0 || !written)
+                submit();
+            drain(0);
+        } finally {
+            closed = true;
+            block = null;
+            out.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed)
+            throw new IOException("Stream closed");
+    }
+
+    /** 提交当前块，在途任务过多时先写出最早的块 */
+    private void submit() throws IOException {
+        byte[] data = block;
+        int len = count;
+        Callable<byte[]> task = () -> compress(data, len, level);
+        inFlight.add(executor.submit(task));
+        written = true;
+        block = new byte[blockSize];
+        count = 0;
+        drain(maxInFlight - 1);
+    }
+
+    /** 按顺序写出压缩完的块，直到在途任务不超过 {@code remaining} 个 */
+    private void drain(int remaining) throws IOException {
+        while (inFlight.size() > remaining) {
+            byte[] member;
+            try {
+                member = inFlight.poll().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOWriteException(e);
+            } catch (ExecutionException e) {
+                throw new IOWriteException(e.getCause());
+            }
+            out.write(member);
+        }
+    }
+
+    /**
+     * #brief: 将一个块压缩为完整的 gzip 成员
+     */
+    static byte[] compress(byte[] data, int len, int level) {
+        CoderPool<Deflater> pool = DEFLATERS.computeIfAbsent(level, key -> new CoderPool<>());
+        Deflater deflater = pool.poll();
+        if (deflater == null)
+            deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data, 0, len);
+            deflater.finish();
+
+            byte[] member = new byte[HEADER_SIZE + len + (len >> 6) + 64 + TRAILER_SIZE];
+            int pos = HEADER_SIZE;
+            while (!deflater.finished()) {
+                if (pos == member.length - TRAILER_SIZE)
+                    member = Arrays.copyOf(member, member.length + (member.length >> 1));
+                pos += deflater.deflate(member, pos, member.length - TRAILER_SIZE - pos);
+            }
+
+            CRC32 crc = new CRC32();
+            crc.update(data, 0, len);
+            int size = pos + TRAILER_SIZE;
+            writeHeader(member, size);
+            writeIntLE(member, pos, (int) crc.getValue());
+            writeIntLE(member, pos + 4, len);
+            return size == member.length ? member : Arrays.copyOf(member, size);
+        } finally {
+            deflater.reset();
+            if (!pool.offer(deflater))
+                deflater.end();
+        }
+    }
+
+    /**
+     * @return 默认的压缩、解压线程池
+     */
+    static ExecutorService defaultExecutor() {
+        return DefaultExecutor.INSTANCE;
+    }
+
+    private static void writeHeader(byte[] b, int memberSize) {
+        b[0] = 0x1f;
+        b[1] = (byte) 0x8b;
+        b[2] = Deflater.DEFLATED;
+        b[3] = 0x04;              /* FLG.FEXTRA */
+        b[4] = b[5] = b[6] = b[7] = 0; /* MTIME */
+        b[8] = 0;                 /* XFL */
+        b[9] = (byte) 0xff;       /* OS: unknown */
+        b[10] = 8;                /* XLEN */
+        b[11] = 0;
+        b[12] = SI1;
+        b[13] = SI2;
+        b[14] = 4;                /* 子字段长度 */
+        b[15] = 0;
+        writeIntLE(b, 16, memberSize);
+    }
+
+    static void writeIntLE(byte[] b, int off, int v) {
+        b[off] = (byte) v;
+        b[off + 1] = (byte) (v >>> 8);
+        b[off + 2] = (byte) (v >>> 16);
+        b[off + 3] = (byte) (v >>> 24);
+    }
+
+}
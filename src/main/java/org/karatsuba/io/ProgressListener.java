@@ -0,0 +1,38 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+/**
+ * `ProgressListener` 用于接收数据拷贝的进度通知，每完成一次底层拷贝调用就会通知一次。
+ *
+ * @author Red Gogh
+ */
+public interface ProgressListener {
+
+    /**
+     * #brief: 拷贝进度更新
+     *
+     * @param transferred 已经拷贝的字节数
+     * @param total 需要拷贝的字节总数，未知时为 -1
+     */
+    void onProgress(long transferred, long total);
+
+}
@@ -0,0 +1,296 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.exception.IOReadException;
+import org.karatsuba.string.StringUtils;
+import org.karatsuba.utils.Assert;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * `PropertiesCache` 缓存已经加载的配置文件，按文件的规范路径（canonical path）作为键。
+ *
+ * <p>第一次读取某个文件时加载并缓存，之后的读取只是一次 Map 查找：缓存项同时按文件的绝对路径建立了
+ * 别名，命中别名时不需要再解析规范路径，也就没有任何文件系统调用。别名建立以后，路径中符号链接指向的变化
+ * 不会再被察觉，需要时调用 {@link #close()} 或者使用新的缓存。缓存通过 {@link WatchService}
+ * 监听配置文件所在的目录，文件被修改、创建或删除时标记为待刷新，在 {@code debounce} 时间内没有新的
+ * 变化以后由后台线程重新加载（编辑器保存文件时往往会连续触发多次事件）。重新加载的结果整体替换旧的
+ * {@link Properties} 对象，读取方不会看到加载了一半的配置。
+ *
+ * <p>返回的 {@link Properties} 对象是共享的，不要修改它，需要修改时请先拷贝一份。
+ *
+ * <h2>使用示例</h2>
+ * <pre>
+ *     Properties properties = new MutableFile("app.properties").loadPropertiesCached();
+ *
+ *     PropertiesCache cache = PropertiesCache.getDefault();
+ *     System.out.println(cache.reloadCount(file) + " " + cache.lastReloadTime(file));
+ * </pre>
+ *
+ * @author Red Gogh
+ */
+public class PropertiesCache implements Closeable {
+
+    /** 默认的防抖时间（毫秒） */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 100;
+
+    private static final PropertiesCache DEFAULT = new PropertiesCache(DEFAULT_DEBOUNCE_MILLIS);
+
+    private final long debounceMillis;
+
+    /** 规范路径 -> 缓存项 */
+    private final Map<Path, Entry> entries = new ConcurrentHashMap<>();
+
+    /** 绝对路径 -> 缓存项，读取时的快速路径，未命中时才解析规范路径 */
+    private final Map<String, Entry> aliases = new ConcurrentHashMap<>();
+
+    /** 已经注册监听的目录 */
+    private final Map<Path, WatchKey> directories = new ConcurrentHashMap<>();
+
+    private WatchService watchService;
+
+    private Thread watcher;
+
+    private volatile boolean closed;
+
+    private final LongAdder reloads = new LongAdder();
+
+    /** 缓存的配置文件 */
+    private static class Entry {
+        final MutableFile file;
+        volatile Properties properties;
+        volatile long lastReloadTime;
+        final AtomicLong reloadCount = new AtomicLong();
+        /** 最近一次文件变化的时间，0 表示没有待处理的变化 */
+        volatile long dirtySince;
+
+        Entry(MutableFile file) {
+            this.file = file;
+        }
+    }
+
+    /**
+     * @param debounceMillis 文件变化以后等待的防抖时间（毫秒）
+     */
+    public PropertiesCache(long debounceMillis) {
+        Assert.isTrue(debounceMillis >= 0, "debounceMillis must not be negative: %s", debounceMillis);
+        this.debounceMillis = debounceMillis;
+    }
+
+    /**
+     * @return 默认的全局缓存，{@link MutableFile#loadPropertiesCached()} 使用这个缓存。全局缓存的
+     *         {@link #close()} 不会生效
+     */
+    public static PropertiesCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * #brief: 获取配置文件的属性
+     *
+     * <p>文件已经缓存并且没有变化时直接返回缓存的对象，否则加载文件并开始监听它所在的目录。
+     *
+     * @param file 配置文件
+     * @return 共享的 {@link Properties} 对象，不要修改
+     */
+    public Properties get(MutableFile file) {
+        Assert.isTrue(!closed, "PropertiesCache already closed.");
+        Entry entry = lookup(file);
+        if (entry != null) {
+            Properties properties = entry.properties;
+            if (properties != null)
+                return properties;
+        } else {
+            Path path = canonicalPath(file);
+            entry = entries.computeIfAbsent(path, key -> new Entry(new MutableFile(key.toFile())));
+            aliases.put(file.getAbsolutePath(), entry);
+            watch(path.getParent());
+        }
+        synchronized (entry) {
+            if (entry.properties == null)
+                reload(entry);
+            return entry.properties;
+        }
+    }
+
+    /**
+     * 使缓存失效，下一次 {@link #get(MutableFile)} 时重新加载。
+     */
+    public void invalidate(MutableFile file) {
+        Entry entry = lookup(file);
+        if (entry != null)
+            entry.properties = null;
+    }
+
+    /**
+     * @return 文件被加载的次数（包括第一次加载），没有缓存时返回 0
+     */
+    public long reloadCount(MutableFile file) {
+        Entry entry = lookup(file);
+        return entry == null ? 0 : entry.reloadCount.get();
+    }
+
+    /**
+     * @return 文件最近一次加载的时间（毫秒时间戳），没有缓存时返回 0
+     */
+    public long lastReloadTime(MutableFile file) {
+        Entry entry = lookup(file);
+        return entry == null ? 0 : entry.lastReloadTime;
+    }
+
+    /**
+     * @return 所有文件加载的总次数
+     */
+    public long reloadCount() {
+        return reloads.sum();
+    }
+
+    /**
+     * 查找文件的缓存项，先按绝对路径查找别名，未命中时再解析规范路径，找到后记录别名。
+     * 绝对路径只是字符串拼接，不会访问文件系统。
+     */
+    private Entry lookup(MutableFile file) {
+        String absolutePath = file.getAbsolutePath();
+        Entry entry = aliases.get(absolutePath);
+        if (entry == null && (entry = entries.get(canonicalPath(file))) != null)
+            aliases.put(absolutePath, entry);
+        return entry;
+    }
+
+    private static Path canonicalPath(MutableFile file) {
+        try {
+            return file.getCanonicalFile().toPath();
+        } catch (IOException e) {
+            throw new IOReadException(e);
+        }
+    }
+
+    private void reload(Entry entry) {
+        entry.properties = entry.file.loadProperties();
+        entry.lastReloadTime = System.currentTimeMillis();
+        entry.reloadCount.incrementAndGet();
+        reloads.increment();
+    }
+
+    /** 监听目录，第一次调用时启动后台线程 */
+    private synchronized void watch(Path dir) {
+        if (directories.containsKey(dir))
+            return;
+        try {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+                watcher = new Thread(this::watchLoop, "PropertiesCache-watcher");
+                watcher.setDaemon(true);
+                watcher.start();
+            }
+            directories.put(dir, dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE));
+        } catch (IOException e) {
+            throw new IOReadException(e);
+        }
+    }
+
+    private void watchLoop() {
+        try {
+            while (!closed) {
+                WatchKey key = watchService.poll(Math.max(debounceMillis, 10), TimeUnit.MILLISECONDS);
+                long now = System.currentTimeMillis();
+                if (key != null) {
+                    Path dir = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            markDirectory(dir, now);
+                        } else {
+                            Entry entry = entries.get(dir.resolve((Path) event.context()));
+                            if (entry != null)
+                                entry.dirtySince = now;
+                        }
+                    }
+                    key.reset();
+                }
+                reloadSettled(now);
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 缓存已经关闭
+        }
+    }
+
+    private void markDirectory(Path dir, long now) {
+        for (Map.Entry<Path, Entry> entry : entries.entrySet()) {
+            if (dir.equals(entry.getKey().getParent()))
+                entry.getValue().dirtySince = now;
+        }
+    }
+
+    /** 重新加载超过防抖时间没有再变化的文件 */
+    private void reloadSettled(long now) {
+        for (Entry entry : entries.values()) {
+            long dirtySince = entry.dirtySince;
+            if (dirtySince == 0 || now - dirtySince < debounceMillis)
+                continue;
+            entry.dirtySince = 0;
+            synchronized (entry) {
+                try {
+                    reload(entry);
+                } catch (RuntimeException e) {
+                    /* 文件被删除或者无法读取，下一次 get() 时再加载并把异常抛给调用方 */
+                    entry.properties = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * 停止监听并清空缓存。对 {@link #getDefault()} 返回的全局缓存调用时什么也不做，全局缓存在整个
+     * JVM 生命周期内有效，不能被某个使用方关闭。
+     */
+    @Override
+    public synchronized void close() {
+        if (this == DEFAULT)
+            return;
+        closed = true;
+        IOUtils.closeQuietly(watchService);
+        entries.clear();
+        aliases.clear();
+        directories.clear();
+    }
+
+    @Override
+    public String toString() {
+        return StringUtils.strwfmt("PropertiesCache[files=%s, reloads=%s]", entries.size(), reloadCount());
+    }
+
+}
@@ -0,0 +1,44 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+/**
+ * `RangeConsumer` 用于处理 {@link MutableFile#parallelRanges(long, RangeConsumer)} 切分出来的
+ * 文件区域，会在多个线程中并发调用，实现类需要保证线程安全。{@link TailReader} 也使用它处理
+ * 文件新增的数据，此时只在读取线程中调用。
+ *
+ * @author Red Gogh
+ */
+public interface RangeConsumer {
+
+    /**
+     * #brief: 处理一个文件区域
+     *
+     * <p>{@code range} 是区域的只读内存映射，读取位置为 0，长度为区域长度，函数返回后映射就会被
+     * 解除，不能在函数外继续使用。
+     *
+     * @param offset 区域在文件中的起始位置
+     * @param range 区域中的数据
+     * @throws Exception 处理过程中的异常，会中止所有区域的处理并重新抛出
+     */
+    void accept(long offset, ByteBuffer range) throws Exception;
+
+}
@@ -0,0 +1,451 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.exception.IOReadException;
+import org.karatsuba.exception.IOWriteException;
+import org.karatsuba.string.StringUtils;
+import org.karatsuba.utils.ArrayUtils;
+import org.karatsuba.utils.Assert;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * `RecordLog` 是一个只追加的记录日志文件，适合保存审计日志、事件流水等需要持久化的记录。
+ *
+ * <p>每条记录的格式为 {@code [长度 4 字节][CRC32C 4 字节][数据]}，整数以大端序保存。CRC 覆盖长度字段
+ * 和数据，并且做了掩码处理，全 0 的记录头（例如文件系统在崩溃后补 0 的尾部）不会被当成空记录。追加操作是
+ * 异步的：{@link #append(byte[])} 把记录放入队列后立即返回一个 {@link CompletableFuture}，后台的写入
+ * 线程把队列中所有等待的记录合并成一次写入和一次 {@code force()}（group commit），落盘以后再完成
+ * 对应的 future，所以并发追加时吞吐量不再受限于每条记录一次 fsync。
+ *
+ * <p>打开日志时会先顺序扫描已有的记录，末尾长度非法、数据不完整或者 CRC 校验失败的记录（例如写入
+ * 过程中进程崩溃留下的半条记录）会被截断，之后的追加从截断位置继续。损坏的记录后面还有数据时说明
+ * 文件中间被破坏，这时打开会失败并抛出 {@link IOReadException}，不会丢弃后面的有效记录。
+ *
+ * <h2>使用示例</h2>
+ * <pre>
+ *     try (RecordLog log = new RecordLog(new MutableFile("events.log"))) {
+ *         log.append(bytes).join();  // 返回时记录已经落盘
+ *     }
+ *
+ *     RecordLog.read(new MutableFile("events.log"), (offset, record) -> ...);
+ * </pre>
+ *
+ * @author Red Gogh
+ */
+public class RecordLog implements Closeable {
+
+    /** 记录头长度：长度 + CRC */
+    public static final int HEADER_SIZE = 8;
+
+    /** 单条记录的最大长度，超过这个长度的记录头被认为是损坏的 */
+    public static final int MAX_RECORD_SIZE = 64 * IOUtils.MB;
+
+    /** 恢复读取时使用的缓冲区大小 */
+    private static final int READ_BUFFER_SIZE = 64 * IOUtils.KB;
+
+    /** 通知写入线程退出的标记 */
+    private static final Pending CLOSE = new Pending(null);
+
+    private final MutableFile file;
+
+    private final FileChannel channel;
+
+    /** 收集一批记录的等待时间（纳秒），0 表示只合并已经在队列中的记录 */
+    private final long groupCommitNanos;
+
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    private final Thread writer;
+
+    /** 已经落盘的文件末尾位置 */
+    private volatile long position;
+
+    private volatile boolean closed;
+
+    private final LongAdder records = new LongAdder();
+
+    private final LongAdder commits = new LongAdder();
+
+    /** 等待写入的记录 */
+    private static class Pending {
+        final byte[] frame;
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        Pending(byte[] frame) {
+            this.frame = frame;
+        }
+    }
+
+    /**
+     * 打开记录日志，只合并已经在队列中的记录。
+     *
+     * @see #RecordLog(MutableFile, long)
+     */
+    public RecordLog(MutableFile file) {
+        this(file, 0);
+    }
+
+    /**
+     * #brief: 打开记录日志，文件不存在时创建
+     *
+     * <p>打开时会先执行恢复流程，截断文件末尾不完整的记录。文件中间的记录损坏时抛出 {@link IOReadException}。
+     *
+     * @param file
+     *        日志文件
+     *
+     * @param groupCommitMicros
+     *        写入线程拿到第一条记录以后额外等待的时间（微秒），用来收集更多记录合并提交。
+     *        0 表示不等待，只合并已经在队列中的记录
+     */
+    public RecordLog(MutableFile file, long groupCommitMicros) {
+        Assert.isTrue(groupCommitMicros >= 0, "groupCommitMicros must not be negative: %s", groupCommitMicros);
+        this.file = file;
+        this.groupCommitNanos = TimeUnit.MICROSECONDS.toNanos(groupCommitMicros);
+        try {
+            this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException e) {
+            throw new IOWriteException(e);
+        }
+        try {
+            this.position = scan(channel, null, true);
+        } catch (IOException e) {
+            IOUtils.closeQuietly(channel);
+            throw new IOWriteException(e);
+        } catch (RuntimeException e) {
+            IOUtils.closeQuietly(channel);
+            throw e;
+        }
+        this.writer = new Thread(this::writeLoop, "RecordLog-" + file.getName());
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * 追加一条记录。
+     *
+     * @see #append(byte[], int, int)
+     */
+    public CompletableFuture<Long> append(byte[] b) {
+        return append(b, 0, b.length);
+    }
+
+    /**
+     * #brief: 追加一条记录
+     *
+     * <p>记录数据会被拷贝，调用返回以后可以立即复用 {@code b}。CRC 在调用线程中计算。
+     *
+     * @param b
+     *        记录数据
+     *
+     * @param off
+     *        数据起始位置
+     *
+     * @param len
+     *        数据长度
+     *
+     * @return 记录落盘以后完成的 future，结果是记录在文件中的起始位置；写入失败或者日志已经关闭时
+     *         以 {@link IOWriteException} 完成
+     */
+    public CompletableFuture<Long> append(byte[] b, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, b.length);
+        Assert.isTrue(len <= MAX_RECORD_SIZE, "record too large: %s", len);
+        byte[] frame = new byte[HEADER_SIZE + len];
+        java.nio.ByteBuffer header = java.nio.ByteBuffer.wrap(frame).order(ByteOrder.BIG_ENDIAN);
+        header.putInt(len);
+        header.putInt(crc(len, b, off));
+        System.arraycopy(b, off, frame, HEADER_SIZE, len);
+        Pending pending = new Pending(frame);
+        /* 检查和入队必须和 close()、写入线程退出互斥，否则写入线程退出以后入队的记录永远不会完成 */
+        synchronized (queue) {
+            if (!closed) {
+                queue.add(pending);
+                return pending.future;
+            }
+        }
+        pending.future.completeExceptionally(new IOWriteException("RecordLog already closed"));
+        return pending.future;
+    }
+
+    /**
+     * 计算记录的校验值，覆盖大端序的长度字段和数据。结果再做一次旋转加常量的掩码，保证空记录
+     * 的校验值也不为 0，全 0 的记录头无法通过校验。
+     */
+    private static int crc(int len, byte[] b, int off) {
+        CRC32C crc = new CRC32C();
+        crc.update(len >>> 24);
+        crc.update(len >>> 16);
+        crc.update(len >>> 8);
+        crc.update(len);
+        crc.update(b, off, len);
+        int c = (int) crc.getValue();
+        return ((c >>> 15) | (c << 17)) + 0xa282ead8;
+    }
+
+    /** 写入线程：每次取出队列中所有等待的记录，一次写入，一次 force */
+    private void writeLoop() {
+        List<Pending> batch = new ArrayList<>();
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(queue.take());
+                if (groupCommitNanos > 0)
+                    TimeUnit.NANOSECONDS.sleep(groupCommitNanos);
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            queue.drainTo(batch);
+            if (batch.remove(CLOSE))
+                running = false;
+            if (!batch.isEmpty())
+                commit(batch);
+            batch.clear();
+        }
+        /* 关闭以后进入队列的记录直接失败，写入线程被中断退出时同样不再接受新的记录 */
+        synchronized (queue) {
+            closed = true;
+        }
+        queue.drainTo(batch);
+        for (Pending pending : batch) {
+            if (pending != CLOSE)
+                pending.future.completeExceptionally(new IOWriteException("RecordLog already closed"));
+        }
+    }
+
+    private void commit(List<Pending> batch) {
+        long start = position;
+        java.nio.ByteBuffer[] buffers = new java.nio.ByteBuffer[batch.size()];
+        for (int i = 0; i < buffers.length; i++)
+            buffers[i] = java.nio.ByteBuffer.wrap(batch.get(i).frame);
+        try {
+            channel.position(start);
+            long remaining = 0;
+            for (java.nio.ByteBuffer buffer : buffers)
+                remaining += buffer.remaining();
+            while (remaining > 0)
+                remaining -= channel.write(buffers);
+            channel.force(false);
+        } catch (IOException e) {
+            /* 回滚到上一次提交的位置，避免留下半批记录 */
+            try {
+                channel.truncate(start);
+            } catch (IOException ignored) {
+                // 下次打开时的恢复流程会截断不完整的记录
+            }
+            for (Pending pending : batch)
+                pending.future.completeExceptionally(new IOWriteException(e));
+            return;
+        }
+        long offset = start;
+        for (Pending pending : batch)
+            offset += pending.frame.length;
+        position = offset;
+        records.add(batch.size());
+        commits.increment();
+        offset = start;
+        for (Pending pending : batch) {
+            pending.future.complete(offset);
+            offset += pending.frame.length;
+        }
+    }
+
+    /**
+     * @return 已经落盘的日志长度
+     */
+    public long size() {
+        return position;
+    }
+
+    /**
+     * @return 已经落盘的记录数量（不包含打开前已有的记录）
+     */
+    public long recordCount() {
+        return records.sum();
+    }
+
+    /**
+     * @return group commit 的次数，{@code recordCount() / commitCount()} 是平均每次提交合并的记录数
+     */
+    public long commitCount() {
+        return commits.sum();
+    }
+
+    /**
+     * 关闭日志，等待队列中已有的记录提交完成。
+     */
+    @Override
+    public void close() {
+        synchronized (queue) {
+            if (!closed) {
+                closed = true;
+                queue.add(CLOSE);
+            }
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        IOUtils.closeQuietly(channel);
+    }
+
+    /**
+     * #brief: 顺序读取日志文件中的所有记录
+     *
+     * <p>只读方式打开文件，不会修改文件内容。末尾不完整的记录（写入过程中崩溃留下的半条记录）会被忽略；
+     * 如果损坏的记录后面还有数据，说明文件中间的记录被破坏，抛出 {@link IOReadException}。
+     *
+     * @param file
+     *        日志文件
+     *
+     * @param consumer
+     *        记录处理函数，{@code record} 的读取位置为 0，只在调用期间有效
+     *
+     * @return 有效记录的结束位置
+     *
+     * @see #recover(MutableFile, RecordConsumer)
+     */
+    public static long read(MutableFile file, RecordConsumer consumer) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return scan(channel, consumer, false);
+        } catch (IOException e) {
+            throw new IOReadException(e);
+        }
+    }
+
+    /**
+     * #brief: 顺序读取日志文件中的所有记录，并截断末尾不完整的记录
+     *
+     * <p>和 {@link #read(MutableFile, RecordConsumer)} 一样读取记录，区别是会以写模式打开文件，
+     * 把末尾不完整的记录从文件中截断。文件中间的记录损坏时抛出 {@link IOReadException}，文件不会被修改。
+     * 不能和正在写入同一个文件的 {@link RecordLog} 同时使用。
+     *
+     * @param file
+     *        日志文件
+     *
+     * @param consumer
+     *        记录处理函数，{@code record} 的读取位置为 0，只在调用期间有效
+     *
+     * @return 有效记录的结束位置，也就是截断后的文件长度
+     */
+    public static long recover(MutableFile file, RecordConsumer consumer) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return scan(channel, consumer, true);
+        } catch (IOException e) {
+            throw new IOWriteException(e);
+        }
+    }
+
+    /**
+     * 扫描记录直到文件末尾或者第一条损坏的记录。损坏的记录一直延伸到文件末尾（记录头或数据不完整、
+     * 最后一条记录 CRC 不匹配，或者剩余部分全是 0）时视为末尾不完整的记录，否则视为中间记录损坏。
+     */
+    private static long scan(FileChannel channel, RecordConsumer consumer, boolean truncate) throws IOException {
+        long size = channel.size();
+        long offset = 0;
+        byte[] buf = new byte[READ_BUFFER_SIZE];
+        java.nio.ByteBuffer header = java.nio.ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.BIG_ENDIAN);
+        while (offset + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, offset);
+            int len = header.getInt(0);
+            int crc = header.getInt(4);
+            if (len < 0 || len > MAX_RECORD_SIZE) {
+                if (!zeroFilled(channel, offset, size, buf))
+                    throw new IOReadException("corrupt record length %s at offset %s", len, offset);
+                break;
+            }
+            long end = offset + HEADER_SIZE + len;
+            if (end > size)
+                break;
+            if (buf.length < len)
+                buf = new byte[GrowthPolicy.DEFAULT.grow(buf.length, len)];
+            readFully(channel, java.nio.ByteBuffer.wrap(buf, 0, len), offset + HEADER_SIZE);
+            if (crc(len, buf, 0) != crc) {
+                if (end != size && !zeroFilled(channel, offset, size, buf))
+                    throw new IOReadException("corrupt record checksum at offset %s", offset);
+                break;
+            }
+            if (consumer != null) {
+                try {
+                    consumer.accept(offset, ByteBuffer.wrap(buf, 0, len).rewind());
+                } catch (Exception e) {
+                    throw new IOReadException(e);
+                }
+            }
+            offset = end;
+        }
+        if (truncate && offset < size) {
+            channel.truncate(offset);
+            channel.force(true);
+        }
+        return offset;
+    }
+
+    /** 判断 {@code [offset, size)} 是否全是 0，文件系统在崩溃后可能会把未写完的尾部补 0 */
+    private static boolean zeroFilled(FileChannel channel, long offset, long size, byte[] buf) throws IOException {
+        while (offset < size) {
+            int n = (int) Math.min(buf.length, size - offset);
+            readFully(channel, java.nio.ByteBuffer.wrap(buf, 0, n), offset);
+            for (int i = 0; i < n; i++) {
+                if (buf[i] != 0)
+                    return false;
+            }
+            offset += n;
+        }
+        return true;
+    }
+
+    private static void readFully(FileChannel channel, java.nio.ByteBuffer dst, long position) throws IOException {
+        while (dst.hasRemaining()) {
+            if (channel.read(dst, position + dst.position()) < 0)
+                throw new IOReadException("unexpected end of record log");
+        }
+    }
+
+    @Override
+    public String toString() {
+        return StringUtils.strwfmt("RecordLog[%s, size=%s, records=%s, commits=%s]",
+                file, position, recordCount(), commitCount());
+    }
+
+    /**
+     * 处理日志中每条记录的函数
+     */
+    public interface RecordConsumer {
+        void accept(long offset, ByteBuffer record) throws Exception;
+    }
+
+}
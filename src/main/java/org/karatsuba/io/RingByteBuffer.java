@@ -0,0 +1,371 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.string.StringUtils;
+import org.karatsuba.utils.ArrayUtils;
+import org.karatsuba.utils.Assert;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * `RingByteBuffer` 是一个固定容量的无锁环形字节缓冲区，用于在线程之间传递字节流，例如 I/O 线程
+ * 写入、解码线程读取。
+ *
+ * <p>缓冲区只支持单个消费者，生产者分为两种模式：
+ * <ul>
+ *     <li>{@link #singleProducer(int)}：单生产者（SPSC），写入时不需要 CAS 操作。</li>
+ *     <li>{@link #multiProducer(int)}：多生产者（MPSC），生产者通过 CAS 预留写入区域，写完以后
+ *         按预留的顺序依次发布，每次 {@code offer} 写入的字节保证是连续的，不会和其他生产者交错。</li>
+ * </ul>
+ *
+ * <p>读写位置使用 release/acquire 语义发布：生产者写完数据后以 release 方式更新 tail，消费者以
+ * acquire 方式读取 tail 后就能看到写入的数据；head 同理。整个过程不使用锁，阻塞版本的函数在等待时
+ * 先自旋，再让出 CPU，最后短暂 park。
+ *
+ * <p>除了拷贝数据的 {@code offer/poll}，还可以通过 {@link #claim(int)} 直接拿到底层数组中的一段
+ * 可写区域，写完以后调用 {@link #commit(java.nio.ByteBuffer)} 发布，避免一次额外的拷贝。
+ *
+ * <h2>使用示例</h2>
+ * <pre>
+ *     RingByteBuffer ring = RingByteBuffer.singleProducer(64 * IOUtils.KB);
+ *
+ *     // I/O 线程
+ *     ring.put(bytes, 0, n);
+ *
+ *     // 解码线程
+ *     int n = ring.take(buf, 0, buf.length);
+ * </pre>
+ *
+ * @author Red Gogh
+ */
+public class RingByteBuffer {
+
+    private static final VarHandle HEAD;
+    private static final VarHandle TAIL;
+    private static final VarHandle CLAIM;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            HEAD = lookup.findVarHandle(RingByteBuffer.class, "head", long.class);
+            TAIL = lookup.findVarHandle(RingByteBuffer.class, "tail", long.class);
+            CLAIM = lookup.findVarHandle(RingByteBuffer.class, "claim", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /** 数据存储 */
+    private final byte[] buf;
+
+    /** 容量掩码，容量总是 2 的幂 */
+    private final int mask;
+
+    /** 是否允许多个生产者 */
+    private final boolean multiProducer;
+
+    /** 消费者读取位置，只由消费者修改 */
+    private volatile long head;
+
+    /** 已经发布的写入位置，[head, tail) 之间的数据可以被读取 */
+    private volatile long tail;
+
+    /** 生产者已经预留的写入位置，[tail, claim) 之间的数据正在写入 */
+    private volatile long claim;
+
+    /** 生产者缓存的 head，避免每次写入都读取消费者修改的变量 */
+    private long cachedHead;
+
+    private RingByteBuffer(int capacity, boolean multiProducer) {
+        Assert.isTrue(capacity > 0 && capacity <= (1 << 30),
+                "ring buffer capacity out of range: %s", capacity);
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity)
+            size <<= 1;
+        this.buf = new byte[size];
+        this.mask = size - 1;
+        this.multiProducer = multiProducer;
+    }
+
+    /**
+     * #brief: 创建单生产者单消费者的环形缓冲区。<p>
+     *
+     * @param capacity 容量，会向上取整到 2 的幂
+     */
+    public static RingByteBuffer singleProducer(int capacity) {
+        return new RingByteBuffer(capacity, false);
+    }
+
+    /**
+     * #brief: 创建多生产者单消费者的环形缓冲区。<p>
+     *
+     * @param capacity 容量，会向上取整到 2 的幂
+     */
+    public static RingByteBuffer multiProducer(int capacity) {
+        return new RingByteBuffer(capacity, true);
+    }
+
+    /**
+     * @return 缓冲区容量
+     */
+    public int capacity() {
+        return buf.length;
+    }
+
+    /**
+     * @return 可以读取的字节数
+     */
+    public int readableBytes() {
+        return (int) ((long) TAIL.getAcquire(this) - (long) HEAD.getAcquire(this));
+    }
+
+    /**
+     * @return 可以写入的字节数
+     */
+    public int writeableBytes() {
+        return buf.length - (int) ((long) CLAIM.getAcquire(this) - (long) HEAD.getAcquire(this));
+    }
+
+    /**
+     * @return 缓冲区是否为空
+     */
+    public boolean isEmpty() {
+        return readableBytes() == 0;
+    }
+
+    /**
+     * #brief: 尝试写入 {@code b[off, off + len)}，空间不足时立即返回 false。<p>
+     *
+     * 数据要么全部写入，要么一个字节都不写入。
+     *
+     * @return 是否写入成功
+     */
+    public boolean offer(byte[] b, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, b.length);
+        long seq = reserve(len);
+        if (seq < 0)
+            return false;
+        copyIn(seq, b, off, len);
+        publish(seq, len);
+        return true;
+    }
+
+    /**
+     * #brief: 写入 {@code b[off, off + len)}，空间不足时最多等待 {@code timeout}。<p>
+     *
+     * @return 是否在超时之前写入成功
+     */
+    public boolean offer(byte[] b, int off, int len, long timeout, TimeUnit unit) throws InterruptedException {
+        checkFits(len);
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int spins = 0; !offer(b, off, len); spins++) {
+            if (System.nanoTime() - deadline >= 0)
+                return false;
+            backoff(spins);
+        }
+        return true;
+    }
+
+    /**
+     * #brief: 写入 {@code b[off, off + len)}，空间不足时一直等待。<p>
+     *
+     * {@code len} 不能超过缓冲区容量。
+     */
+    public void put(byte[] b, int off, int len) throws InterruptedException {
+        checkFits(len);
+        for (int spins = 0; !offer(b, off, len); spins++)
+            backoff(spins);
+    }
+
+    /**
+     * #brief: 读取最多 {@code len} 个字节到 {@code b[off]}，没有数据时立即返回 0。<p>
+     *
+     * 只能由唯一的消费者线程调用。
+     *
+     * @return 实际读取的字节数
+     */
+    public int poll(byte[] b, int off, int len) {
+        ArrayUtils.checkIndexSize(off, len, b.length);
+        long h = head;
+        int n = (int) Math.min(len, (long) TAIL.getAcquire(this) - h);
+        if (n <= 0)
+            return 0;
+        int pos = (int) (h & mask);
+        int first = Math.min(n, buf.length - pos);
+        System.arraycopy(buf, pos, b, off, first);
+        System.arraycopy(buf, 0, b, off + first, n - first);
+        HEAD.setRelease(this, h + n);
+        return n;
+    }
+
+    /**
+     * #brief: 读取最多 {@code len} 个字节，没有数据时最多等待 {@code timeout}。<p>
+     *
+     * @return 实际读取的字节数，超时返回 0
+     */
+    public int poll(byte[] b, int off, int len, long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int n;
+        for (int spins = 0; (n = poll(b, off, len)) == 0 && len > 0; spins++) {
+            if (System.nanoTime() - deadline >= 0)
+                return 0;
+            backoff(spins);
+        }
+        return n;
+    }
+
+    /**
+     * #brief: 读取最多 {@code len} 个字节，没有数据时一直等待。<p>
+     *
+     * @return 实际读取的字节数，至少为 1（{@code len} 为 0 时返回 0）
+     */
+    public int take(byte[] b, int off, int len) throws InterruptedException {
+        int n;
+        for (int spins = 0; (n = poll(b, off, len)) == 0 && len > 0; spins++)
+            backoff(spins);
+        return n;
+    }
+
+    /**
+     * #brief: 预留一段可以直接写入的连续区域。<p>
+     *
+     * 返回的缓冲区直接引用底层数组，长度为 {@code len} 和到数组末尾的连续空闲空间中较小的一个，
+     * 调用方通过 {@link java.nio.ByteBuffer#remaining()} 获取实际预留的长度。写满以后调用
+     * {@link #commit(java.nio.ByteBuffer)} 发布，预留的区域发布前消费者不可见。多生产者模式下，
+     * 后预留的区域需要等前面的区域发布以后才能发布，预留以后必须尽快提交。
+     *
+     * @param len 期望预留的字节数
+     * @return 可写入的区域，空间不足时返回 null
+     */
+    public java.nio.ByteBuffer claim(int len) {
+        Assert.isTrue(len > 0, "claim length must be positive: %s", len);
+        long seq;
+        int n;
+        if (multiProducer) {
+            do {
+                seq = (long) CLAIM.getVolatile(this);
+                n = contiguous(seq, len, (long) HEAD.getAcquire(this));
+                if (n == 0)
+                    return null;
+            } while (!CLAIM.compareAndSet(this, seq, seq + n));
+        } else {
+            seq = claim;
+            n = contiguous(seq, len, cachedHead);
+            if (n < len) {
+                cachedHead = (long) HEAD.getAcquire(this);
+                n = contiguous(seq, len, cachedHead);
+            }
+            if (n == 0)
+                return null;
+            claim = seq + n;
+        }
+        return java.nio.ByteBuffer.wrap(buf).slice((int) (seq & mask), n);
+    }
+
+    /**
+     * #brief: 发布 {@link #claim(int)} 预留的区域，区域中的所有字节对消费者可见。<p>
+     *
+     * @param claimed {@link #claim(int)} 返回的缓冲区
+     */
+    public void commit(java.nio.ByteBuffer claimed) {
+        Assert.isTrue(claimed.hasArray() && claimed.array() == buf, "buffer is not claimed from this ring");
+        // 未发布的区域总是在 [tail, tail + capacity) 之间，根据数组下标就能还原出序号
+        long t = (long) TAIL.getAcquire(this);
+        long seq = t + ((claimed.arrayOffset() - t) & mask);
+        publish(seq, claimed.capacity());
+    }
+
+    /** 预留 len 个字节的写入区域，返回起始序号，空间不足返回 -1 */
+    private long reserve(int len) {
+        if (multiProducer) {
+            long seq;
+            do {
+                seq = (long) CLAIM.getVolatile(this);
+                if (seq + len - (long) HEAD.getAcquire(this) > buf.length)
+                    return -1;
+            } while (!CLAIM.compareAndSet(this, seq, seq + len));
+            return seq;
+        }
+        long seq = claim;
+        if (seq + len - cachedHead > buf.length) {
+            cachedHead = (long) HEAD.getAcquire(this);
+            if (seq + len - cachedHead > buf.length)
+                return -1;
+        }
+        claim = seq + len;
+        return seq;
+    }
+
+    /** 从 seq 开始最多可以连续写入的字节数 */
+    private int contiguous(long seq, int len, long h) {
+        long free = buf.length - (seq - h);
+        int toEnd = buf.length - (int) (seq & mask);
+        return (int) Math.min(Math.min(len, free), toEnd);
+    }
+
+    private void copyIn(long seq, byte[] b, int off, int len) {
+        int pos = (int) (seq & mask);
+        int first = Math.min(len, buf.length - pos);
+        System.arraycopy(b, off, buf, pos, first);
+        System.arraycopy(b, off + first, buf, 0, len - first);
+    }
+
+    /** 按顺序发布 [seq, seq + len)，多生产者模式下需要等待前面的生产者发布完成 */
+    private void publish(long seq, int len) {
+        if (multiProducer) {
+            for (int spins = 0; (long) TAIL.getAcquire(this) != seq; spins++) {
+                if (spins < 16) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+        }
+        TAIL.setRelease(this, seq + len);
+    }
+
+    private void checkFits(int len) {
+        Assert.isTrue(len <= buf.length, "length %s exceeds ring capacity %s", len, buf.length);
+    }
+
+    private static void backoff(int spins) throws InterruptedException {
+        if (Thread.interrupted())
+            throw new InterruptedException();
+        if (spins < 64) {
+            Thread.onSpinWait();
+        } else if (spins < 128) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(50_000);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return StringUtils.strwfmt("RingByteBuffer[%s, capacity=%s, readable=%s]",
+                multiProducer ? "mpsc" : "spsc", buf.length, readableBytes());
+    }
+
+}
@@ -0,0 +1,356 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.exception.IOReadException;
+import org.karatsuba.exception.IOWriteException;
+import org.karatsuba.string.StringUtils;
+import org.karatsuba.utils.Assert;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * `TailReader` 持续读取其它进程正在追加写入的文件（类似 {@code tail -F}），每次只读取新增的部分。
+ *
+ * <p>每次 {@link #poll(RangeConsumer)} 时检查文件的标识（Unix 上是 inode）和大小：
+ * <ul>
+ *     <li>文件增长时只读取 {@code [上次位置, 文件末尾)} 这一段，不会重新扫描文件。</li>
+ *     <li>文件标识发生变化（日志被轮转，旧文件被重命名或者删除）时，先把旧文件剩余的数据读完，
+ *         再从头读取新文件。</li>
+ *     <li>文件变小（被截断）时从头开始读取。</li>
+ * </ul>
+ *
+ * <p>设置了分隔符（默认为换行符）时，每次只交给 {@link RangeConsumer} 以分隔符结尾的完整数据，
+ * 文件末尾还没有写完的一行留到下一次读取。超过 {@link #MAX_BUFFER_SIZE} 仍然没有分隔符的数据
+ * （超长的一行或者二进制文件）不再继续扩容，按缓冲区大小分段交出，不以分隔符结尾。
+ *
+ * <p>指定了检查点文件时，每次读取以后把文件标识和读取位置原子地写入检查点文件，重新打开时如果
+ * 文件没有被轮转或截断，就从检查点的位置继续读取。检查点在 {@code consumer} 处理完以后才会更新，
+ * 进程崩溃时最多重复处理最后一次读取的数据，不会丢失数据。
+ *
+ * <h2>使用示例</h2>
+ * <pre>
+ *     try (TailReader reader = mutableFile.tail(new MutableFile("app.log.checkpoint"))) {
+ *         reader.follow((offset, range) -> ..., 100);
+ *     }
+ * </pre>
+ *
+ * @author Red Gogh
+ */
+public class TailReader implements Closeable {
+
+    /** 默认的读取缓冲区大小，遇到更长的行时会自动扩容 */
+    public static final int DEFAULT_BUFFER_SIZE = 64 * IOUtils.KB;
+
+    /** 读取缓冲区最多扩容到的大小，超过这个长度仍然没有分隔符的数据会被分段交出 */
+    public static final int MAX_BUFFER_SIZE = 16 * IOUtils.MB;
+
+    private final Path path;
+
+    /** 检查点文件，为 null 时不保存检查点 */
+    private final MutableFile checkpoint;
+
+    /** 分隔符，小于 0 时不按分隔符对齐 */
+    private final int delimiter;
+
+    private byte[] buf = new byte[DEFAULT_BUFFER_SIZE];
+
+    private FileChannel channel;
+
+    /** 当前打开的文件标识 */
+    private Object fileKey;
+
+    /** 当前文件中已经处理完的位置 */
+    private long position;
+
+    /** 从检查点恢复的文件标识和位置，第一次打开文件时使用 */
+    private String savedKey;
+    private long savedPosition;
+
+    private long rotations;
+    private long truncations;
+    private long bytesRead;
+
+    private volatile boolean closed;
+
+    public TailReader(MutableFile file) {
+        this(file, null);
+    }
+
+    public TailReader(MutableFile file, MutableFile checkpoint) {
+        this(file, checkpoint, '\n');
+    }
+
+    /**
+     * @param file       读取的文件，可以暂时不存在
+     * @param checkpoint 检查点文件，为 {@code null} 时不保存检查点
+     * @param delimiter  分隔符，小于 0 时读取到的数据直接交给 {@code consumer}
+     */
+    public TailReader(MutableFile file, MutableFile checkpoint, int delimiter) {
+        Assert.isTrue(delimiter < 256, "delimiter out of range: %s", delimiter);
+        this.path = file.toPath();
+        this.checkpoint = checkpoint;
+        this.delimiter = delimiter;
+        if (checkpoint != null && checkpoint.exists())
+            loadCheckpoint();
+    }
+
+    /**
+     * #brief: 读取文件新增的数据
+     *
+     * <p>读取从上次位置到当前文件末尾的数据，按缓冲区大小分成多段交给 {@code consumer}。
+     * 文件不存在时返回 0。
+     *
+     * @param consumer 处理读取到的数据，在调用线程中执行
+     * @return 本次读取的字节数
+     */
+    public synchronized long poll(RangeConsumer consumer) {
+        Assert.isTrue(!closed, "TailReader already closed.");
+        long total = 0;
+        try {
+            BasicFileAttributes attrs = attributes();
+            if (channel == null) {
+                if (attrs == null)
+                    return 0;
+                open(attrs);
+            } else if (attrs == null || !identity(attrs).equals(fileKey)) {
+                /* 文件被轮转：旧文件的描述符仍然可以读取，读完剩余的数据再切换到新文件 */
+                total += drain(consumer, true);
+                if (attrs == null)
+                    return total;
+                IOUtils.closeQuietly(channel);
+                channel = null;
+                rotations++;
+                open(attrs);
+            } else if (channel.size() < position) {
+                position = 0;
+                truncations++;
+            }
+            total += drain(consumer, false);
+            return total;
+        } catch (IOException e) {
+            throw new IOReadException(e);
+        } finally {
+            if (total > 0) {
+                bytesRead += total;
+                saveCheckpoint();
+            }
+        }
+    }
+
+    /**
+     * #brief: 持续读取文件，直到读取器被关闭或者线程被中断
+     *
+     * <p>没有新数据时等待 {@code intervalMillis} 毫秒再检查。使用轮询而不是 WatchService，
+     * 是因为部分平台上 WatchService 本身也是轮询实现，而且不会及时报告文件追加。
+     *
+     * @param consumer       处理读取到的数据
+     * @param intervalMillis 没有新数据时的等待时间
+     */
+    public void follow(RangeConsumer consumer, long intervalMillis) {
+        Assert.isTrue(intervalMillis > 0, "intervalMillis must be positive: %s", intervalMillis);
+        while (!closed && !Thread.currentThread().isInterrupted()) {
+            long n;
+            synchronized (this) {
+                if (closed)
+                    break;
+                n = poll(consumer);
+            }
+            if (n == 0)
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(intervalMillis));
+        }
+    }
+
+    /**
+     * @return 当前文件中已经处理完的位置
+     */
+    public synchronized long position() {
+        return position;
+    }
+
+    /**
+     * @return 检测到文件轮转的次数
+     */
+    public long rotations() {
+        return rotations;
+    }
+
+    /**
+     * @return 检测到文件截断的次数
+     */
+    public long truncations() {
+        return truncations;
+    }
+
+    /**
+     * @return 累计读取的字节数
+     */
+    public long bytesRead() {
+        return bytesRead;
+    }
+
+    /** 读取文件属性，文件不存在时返回 null */
+    private BasicFileAttributes attributes() throws IOException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /** 文件标识，不支持 fileKey 的平台使用创建时间代替 */
+    private static Object identity(BasicFileAttributes attrs) {
+        Object key = attrs.fileKey();
+        return key != null ? key : attrs.creationTime();
+    }
+
+    private void open(BasicFileAttributes attrs) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        fileKey = identity(attrs);
+        position = 0;
+        if (savedKey != null) {
+            if (savedKey.equals(fileKey.toString()) && savedPosition <= channel.size())
+                position = savedPosition;
+            savedKey = null;
+        }
+    }
+
+    /**
+     * 读取 {@code position} 到文件末尾的数据。{@code all} 为 {@code true} 时文件末尾不完整的一行
+     * 也会交给 {@code consumer}，用于读取已经被轮转的旧文件。
+     */
+    private long drain(RangeConsumer consumer, boolean all) throws IOException {
+        long size = channel.size();
+        long total = 0;
+        while (position < size) {
+            int n = read((int) Math.min(buf.length, size - position));
+            if (n <= 0)
+                break;
+            int len = n;
+            if (delimiter >= 0) {
+                len = lastDelimiter(n);
+                if (len == 0) {
+                    if (n == buf.length && buf.length < MAX_BUFFER_SIZE) {
+                        /* 一行比缓冲区还长，扩容后重新读取 */
+                        buf = Arrays.copyOf(buf, Math.min(buf.length << 1, MAX_BUFFER_SIZE));
+                        continue;
+                    }
+                    /* 缓冲区已经扩容到上限时交出不完整的一段，避免一直扩容导致内存溢出 */
+                    if (n < buf.length && !all)
+                        break;
+                    len = n;
+                }
+            }
+            try {
+                consumer.accept(position, ByteBuffer.wrap(buf, 0, len).rewind());
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOReadException(e);
+            }
+            position += len;
+            total += len;
+        }
+        return total;
+    }
+
+    private int read(int len) throws IOException {
+        java.nio.ByteBuffer dst = java.nio.ByteBuffer.wrap(buf, 0, len);
+        while (dst.hasRemaining()) {
+            if (channel.read(dst, position + dst.position()) < 0)
+                break;
+        }
+        return dst.position();
+    }
+
+    /** 返回最后一个分隔符之后的长度，没有分隔符时返回 0 */
+    private int lastDelimiter(int n) {
+        byte d = (byte) delimiter;
+        for (int i = n - 1; i >= 0; i--) {
+            if (buf[i] == d)
+                return i + 1;
+        }
+        return 0;
+    }
+
+    private void loadCheckpoint() {
+        Properties properties = checkpoint.loadProperties();
+        savedKey = properties.getProperty("key");
+        savedPosition = Long.parseLong(properties.getProperty("position", "0"));
+    }
+
+    /**
+     * 写入临时文件并同步到磁盘后原子地替换检查点文件，避免崩溃时留下写了一半或者还没有落盘的
+     * 检查点。
+     */
+    private void saveCheckpoint() {
+        if (checkpoint == null || fileKey == null)
+            return;
+        Properties properties = new Properties();
+        properties.setProperty("key", fileKey.toString());
+        properties.setProperty("position", String.valueOf(position));
+        Path target = checkpoint.toPath();
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        try {
+            try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                properties.store(Channels.newOutputStream(out), null);
+                /* 先落盘再替换，否则崩溃后检查点可能指向一个内容为空的新文件 */
+                out.force(true);
+            }
+            try {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new IOWriteException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        closed = true;
+        IOUtils.closeQuietly(channel);
+        channel = null;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtils.strwfmt("TailReader[path=%s, position=%s, rotations=%s, truncations=%s, read=%s]",
+                path, position, rotations, truncations, bytesRead);
+    }
+
+}
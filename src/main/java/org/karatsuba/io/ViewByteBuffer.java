@@ -0,0 +1,166 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import org.karatsuba.utils.Assert;
+
+/**
+ * 共享其他缓冲区内存的切片、只读视图，由 {@link ByteBuffer#slice(int, int)} 和
+ * {@link ByteBuffer#asReadOnly()} 创建。
+ * <p>
+ * 视图大小固定，读写指针从 0 开始，所有数据都直接读写原缓冲区的内存，不会产生拷贝。引用计数
+ * 与原缓冲区共享。
+ * <p>
+ * 原缓冲区的内存不连续时（{@link ChunkedByteBuffer}、{@link CompositeByteBuffer} 有多个块或者组件），
+ * 没有可以共享的 NIO 视图，读写会按偏移量转发给原缓冲区，转发期间临时移动原缓冲区的读写指针，
+ * 完成后恢复。
+ *
+ * @author Red Gogh
+ */
+public class ViewByteBuffer extends AbstractByteBuffer {
+
+    /** 原缓冲区 */
+    private final ByteBuffer parent;
+
+    /** 共享内存的 NIO 视图，原缓冲区内存不连续时为 null */
+    private final java.nio.ByteBuffer buf;
+
+    /** 视图在原缓冲区中的起始位置，只在转发读写时使用 */
+    private final int offset;
+
+    /** 视图大小 */
+    private final int length;
+
+    /** 是否只读 */
+    private final boolean readOnly;
+
+    ViewByteBuffer(ByteBuffer parent, java.nio.ByteBuffer buf, boolean readOnly) {
+        this.parent = parent;
+        this.buf = buf.slice();
+        this.offset = 0;
+        this.length = this.buf.capacity();
+        this.readOnly = readOnly;
+        this.capacity = length;
+    }
+
+    /** 创建转发读写的视图，{@code parent} 的内存不连续 */
+    ViewByteBuffer(ByteBuffer parent, int offset, int length, boolean readOnly) {
+        this.parent = parent;
+        this.buf = null;
+        this.offset = offset;
+        this.length = length;
+        this.readOnly = readOnly;
+        this.capacity = length;
+    }
+
+    /** 检查原缓冲区的内存是否已经被释放 */
+    private void checkAccessible() {
+        Assert.isTrue(parent.isAccessible(), "Parent buffer of this view already closed.");
+    }
+
+    @Override
+    public int size() {
+        return length;
+    }
+
+    @Override
+    boolean isContiguous() {
+        return buf != null;
+    }
+
+    @Override
+    void read0(byte[] b, int off, int len) {
+        checkAccessible();
+        if (buf != null) {
+            buf.get(index, b, off, len);
+        } else {
+            int mark = parent.index();
+            parent.seekSet(offset + index);
+            try {
+                parent.read0(b, off, len);
+            } finally {
+                parent.seekSet(mark);
+            }
+        }
+        index += len;
+    }
+
+    @Override
+    void write0(byte[] b, int off, int len) {
+        Assert.isFalse(readOnly, "ByteBuffer view is read only.");
+        Assert.isTrue(index + len <= size(), "ByteBuffer view out of range, index=%s, len=%s, size=%s", index, len, size());
+        checkAccessible();
+        if (buf != null) {
+            buf.put(index, b, off, len);
+        } else {
+            int mark = parent.index();
+            parent.seekSet(offset + index);
+            try {
+                parent.write0(b, off, len);
+            } finally {
+                parent.seekSet(mark);
+            }
+        }
+        index += len;
+        capacity = Math.max(capacity, index);
+    }
+
+    /**
+     * 视图大小固定，不支持压缩，直接返回当前缓冲区。
+     */
+    @Override
+    public ByteBuffer compact() {
+        return this;
+    }
+
+    /**
+     * 原缓冲区内存不连续时没有可以共享的视图，返回数据的拷贝。
+     */
+    @Override
+    public java.nio.ByteBuffer nioBuffer() {
+        checkAccessible();
+        if (buf == null)
+            return java.nio.ByteBuffer.wrap(toByteArray());
+        return buf.slice(0, capacity);
+    }
+
+    @Override
+    public int refCnt() {
+        return parent.refCnt();
+    }
+
+    @Override
+    public ByteBuffer retain() {
+        parent.retain();
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return parent.release();
+    }
+
+    @Override
+    boolean isAccessible() {
+        return parent.isAccessible();
+    }
+
+}
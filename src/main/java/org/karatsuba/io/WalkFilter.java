@@ -0,0 +1,125 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * `WalkFilter` 是 {@link MutableFile#walk(WalkFilter, WalkVisitor, int)} 使用的文件过滤条件，
+ * 可以按文件名通配符、文件大小以及修改时间过滤。过滤条件只作用于文件，目录总是会被遍历。
+ *
+ * <h2>使用示例</h2>
+ * <pre>
+ *     WalkFilter filter = new WalkFilter()
+ *             .glob("*.log")
+ *             .minSize(IOUtils.MB)
+ *             .modifiedBefore(System.currentTimeMillis() - TimeUnit.DAYS.toMillis(7));
+ * </pre>
+ *
+ * @author Red Gogh
+ */
+public class WalkFilter {
+
+    /** 不做任何过滤 */
+    static final WalkFilter ALL = new WalkFilter();
+
+    /** 通配符匹配器 */
+    private PathMatcher matcher;
+
+    /** 通配符中是否包含目录分隔符，包含时匹配相对路径，否则只匹配文件名 */
+    private boolean matchRelativePath;
+
+    private long minSize = 0;
+
+    private long maxSize = Long.MAX_VALUE;
+
+    private long modifiedAfter = Long.MIN_VALUE;
+
+    private long modifiedBefore = Long.MAX_VALUE;
+
+    /**
+     * #brief: 按通配符过滤文件
+     *
+     * <p>通配符语法和 {@link java.nio.file.FileSystem#getPathMatcher(String)} 的 glob 一致，例如
+     * {@code *.log}、{@code *.{tmp,bak}}。通配符中不包含 {@code /} 时只匹配文件名，否则匹配相对于
+     * 遍历根目录的路径，例如 {@code logs/*.gz}。
+     *
+     * @param glob 通配符
+     */
+    public WalkFilter glob(String glob) {
+        this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+        this.matchRelativePath = glob.indexOf('/') >= 0;
+        return this;
+    }
+
+    /**
+     * 只保留大小不小于 {@code minSize} 字节的文件。
+     */
+    public WalkFilter minSize(long minSize) {
+        this.minSize = minSize;
+        return this;
+    }
+
+    /**
+     * 只保留大小不超过 {@code maxSize} 字节的文件。
+     */
+    public WalkFilter maxSize(long maxSize) {
+        this.maxSize = maxSize;
+        return this;
+    }
+
+    /**
+     * 只保留修改时间晚于 {@code millis}（毫秒时间戳）的文件。
+     */
+    public WalkFilter modifiedAfter(long millis) {
+        this.modifiedAfter = millis;
+        return this;
+    }
+
+    /**
+     * 只保留修改时间早于 {@code millis}（毫秒时间戳）的文件。
+     */
+    public WalkFilter modifiedBefore(long millis) {
+        this.modifiedBefore = millis;
+        return this;
+    }
+
+    /**
+     * 判断文件是否满足过滤条件。
+     */
+    boolean accept(Path root, Path path, BasicFileAttributes attrs) {
+        long size = attrs.size();
+        if (size < minSize || size > maxSize)
+            return false;
+        if (modifiedAfter != Long.MIN_VALUE || modifiedBefore != Long.MAX_VALUE) {
+            long mtime = attrs.lastModifiedTime().toMillis();
+            if (mtime <= modifiedAfter || mtime >= modifiedBefore)
+                return false;
+        }
+        if (matcher != null)
+            return matcher.matches(matchRelativePath ? root.relativize(path) : path.getFileName());
+        return true;
+    }
+
+}
@@ -0,0 +1,43 @@
+package org.karatsuba.io;
+
+/* -------------------------------------------------------------------------------- *\
+|*                                                                                  *|
+|*    Copyright (C) 2019-2024 RedGogh All rights reserved.                          *|
+|*                                                                                  *|
+|*    Licensed under the Apache License, Version 2.0 (the "License");               *|
+|*    you may not use this file except in compliance with the License.              *|
+|*    You may obtain a copy of the License at                                       *|
+|*                                                                                  *|
+|*        http://www.apache.org/licenses/LICENSE-2.0                                *|
+|*                                                                                  *|
+|*    Unless required by applicable law or agreed to in writing, software           *|
+|*    distributed under the License is distributed on an "AS IS" BASIS,             *|
+|*    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.      *|
+|*    See the License for the specific language governing permissions and           *|
+|*    limitations under the License.                                                *|
+|*                                                                                  *|
+\* -------------------------------------------------------------------------------- */
+
+/* Creates on 2026/10/16. */
+
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * `WalkVisitor` 用于处理 {@link MutableFile#walk(WalkFilter, WalkVisitor, int)} 遍历到的文件，
+ * 会在多个线程中并发调用，实现类需要保证线程安全。
+ *
+ * @author Red Gogh
+ */
+public interface WalkVisitor {
+
+    /**
+     * #brief: 处理一个文件
+     *
+     * @param path 文件路径
+     * @param attrs 文件属性（不跟随符号链接）
+     * @throws Exception 处理过程中的异常，会中止遍历并重新抛出
+     */
+    void visit(Path path, BasicFileAttributes attrs) throws Exception;
+
+}
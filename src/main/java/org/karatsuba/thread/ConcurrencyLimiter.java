@@ -0,0 +1,152 @@
+package org.karatsuba.thread;
+
+import org.karatsuba.utils.Assert;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * `ConcurrencyLimiter` 用于限制同时进行中的异步任务数量。
+ *
+ * <p>任务以 `Supplier<CompletableFuture>` 的形式提交，只有在进行中的任务数量小于上限时才会调用
+ * `Supplier` 发起任务，否则放入等待队列，等前面的任务完成后再发起。整个过程不会阻塞任何线程，
+ * 适合一次性发起成千上万个异步读写或网络请求的场景。
+ *
+ * <h2>使用示例</h2>
+ * <pre>
+ *     ConcurrencyLimiter limiter = new ConcurrencyLimiter(64);
+ *     for (long position : positions)
+ *         limiter.submit(() -> file.readAsync(position, 4096));
+ *
+ *     // 或者一次提交所有任务
+ *     CompletableFuture<List<ByteBuffer>> all = ConcurrencyLimiter.all(tasks, 64);
+ * </pre>
+ *
+ * @author Red Gogh
+ */
+public class ConcurrencyLimiter {
+
+    /**
+     * 最大并发数量
+     */
+    private final int maxConcurrency;
+
+    /**
+     * 进行中的任务数量
+     */
+    private final AtomicInteger running = new AtomicInteger();
+
+    /**
+     * 等待发起的任务
+     */
+    private final Queue<Runnable> pending = new ConcurrentLinkedQueue<>();
+
+    /**
+     * 发起循环的调用计数
+     */
+    private final AtomicInteger wip = new AtomicInteger();
+
+    public ConcurrencyLimiter(int maxConcurrency) {
+        Assert.isTrue(maxConcurrency > 0, "maxConcurrency must be positive: %s", maxConcurrency);
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    /**
+     * #brief: 提交一个异步任务
+     *
+     * <p>并发数量未达到上限时立即发起任务，否则等待前面的任务完成后再发起。
+     *
+     * @param task 发起异步任务的函数
+     * @param <T> 任务结果类型
+     * @return 任务结果，任务发起失败或者返回 {@code null} 时以异常完成
+     */
+    public <T> CompletableFuture<T> submit(Supplier<? extends CompletableFuture<T>> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        pending.add(() -> {
+            CompletableFuture<T> future;
+            try {
+                future = task.get();
+                if (future == null)
+                    future = CompletableFuture.failedFuture(new NullPointerException("task returned null future"));
+            } catch (Throwable e) {
+                future = CompletableFuture.failedFuture(e);
+            }
+            future.whenComplete((value, e) -> {
+                running.decrementAndGet();
+                drain();
+                if (e != null) {
+                    result.completeExceptionally(e);
+                } else {
+                    result.complete(value);
+                }
+            });
+        });
+        drain();
+        return result;
+    }
+
+    /**
+     * 在并发数量允许的情况下发起等待中的任务。同一时刻只有一个线程执行发起循环，任务同步完成时
+     * 触发的 drain() 只会增加计数，由正在执行的循环继续处理，避免递归调用导致栈溢出。
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0)
+            return;
+        int missed = 1;
+        do {
+            while (running.get() < maxConcurrency) {
+                Runnable next = pending.poll();
+                if (next == null)
+                    break;
+                running.incrementAndGet();
+                next.run();
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    /**
+     * @return 进行中的任务数量
+     */
+    public int running() {
+        return running.get();
+    }
+
+    /**
+     * @return 等待发起的任务数量
+     */
+    public int pending() {
+        return pending.size();
+    }
+
+    /**
+     * #brief: 以最多 {@code maxConcurrency} 个并发执行所有任务
+     *
+     * <p>返回的结果列表顺序和 {@code tasks} 一致，任意一个任务失败时返回的 `CompletableFuture`
+     * 以该异常完成（其他任务仍会继续执行）。
+     *
+     * @param tasks 发起异步任务的函数列表
+     * @param maxConcurrency 最大并发数量
+     * @param <T> 任务结果类型
+     * @return 所有任务的结果
+     */
+    public static <T> CompletableFuture<List<T>> all(List<? extends Supplier<? extends CompletableFuture<T>>> tasks,
+                                                     int maxConcurrency) {
+        ConcurrencyLimiter limiter = new ConcurrencyLimiter(maxConcurrency);
+        List<CompletableFuture<T>> futures = new ArrayList<>(tasks.size());
+        for (Supplier<? extends CompletableFuture<T>> task : tasks)
+            futures.add(limiter.submit(task));
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).thenApply(unused -> {
+            List<T> results = new ArrayList<>(futures.size());
+            for (CompletableFuture<T> future : futures)
+                results.add(future.join());
+            return results;
+        });
+    }
+
+}
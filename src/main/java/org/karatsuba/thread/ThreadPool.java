@@ -103,4 +103,21 @@ public class ThreadPool {
         return scheduledThreadPool.schedule(callable, t, timeUnit);
     }
 
+    /**
+     * #brief: 以固定频率周期性执行任务
+     *
+     * <p>该方法将给定的 `Runnable` 任务在 {@code initialDelay} 之后开始，每隔 {@code period} 执行一次，
+     * 直到返回的 `ScheduledFuture` 被取消。
+     *
+     * @param runnable 要执行的任务
+     * @param initialDelay 第一次执行前的延迟时间
+     * @param period 执行间隔
+     * @param timeUnit 时间单位
+     * @return 任务的 `ScheduledFuture` 对象，用于取消任务
+     */
+    public static ScheduledFuture<?> scheduleAtFixedRate(Runnable runnable, long initialDelay,
+                                                         long period, TimeUnit timeUnit) {
+        return scheduledThreadPool.scheduleAtFixedRate(runnable, initialDelay, period, timeUnit);
+    }
+
 }
@@ -20,6 +20,17 @@ package org.karatsuba.test;
 
 import org.junit.Test;
 import org.karatsuba.io.ByteBuffer;
+import org.karatsuba.io.ByteBufferPool;
+import org.karatsuba.io.ChunkedByteBuffer;
+import org.karatsuba.io.CompositeByteBuffer;
+import org.karatsuba.io.GrowthPolicy;
+import org.karatsuba.io.IOUtils;
+import org.karatsuba.io.RingByteBuffer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.util.Arrays;
 
 @SuppressWarnings("ALL")
 public class ByteBufferTest {
@@ -54,4 +65,132 @@ public class ByteBufferTest {
 
     }
 
+    @Test
+    public void directWriteTest() {
+        try (ByteBuffer byteBuffer = ByteBuffer.allocateDirect(8)) {
+            byteBuffer.writeChar('A'); /* 2 Byte */
+            byteBuffer.writeInt(12138); /* 4 Byte */
+            byteBuffer.writeLong(10086L); /* 8 Byte */
+            byteBuffer.writeDouble(64.5d); /* 8 Byte */
+
+            System.out.println(byteBuffer);
+            byteBuffer.rewind();
+            System.out.printf("%s: %s\n", byteBuffer, byteBuffer.readChar());
+            System.out.printf("%s: %s\n", byteBuffer, byteBuffer.readInt());
+            System.out.printf("%s: %s\n", byteBuffer, byteBuffer.readLong());
+            System.out.printf("%s: %s\n", byteBuffer, byteBuffer.readDouble());
+            System.out.println(byteBuffer.nioBuffer());
+        }
+    }
+
+    @Test
+    public void pooledTest() {
+        ByteBufferPool pool = new ByteBufferPool(false);
+        pool.setLeakDetection(1);
+
+        for (int i = 0; i < 1000; i++) {
+            ByteBuffer byteBuffer = pool.allocate(1000);
+            byteBuffer.writeInt(i);
+            byteBuffer.release();
+        }
+
+        System.out.println(pool);
+    }
+
+    @Test
+    public void sliceTest() {
+        ByteBuffer header = ByteBuffer.allocate();
+        header.writeInt(4);
+
+        ByteBuffer body = ByteBuffer.wrap("body".getBytes());
+
+        CompositeByteBuffer frame = new CompositeByteBuffer(header, body.slice());
+        frame.rewind();
+        System.out.printf("%s: %s\n", frame, frame.readInt());
+        System.out.printf("%s: %s\n", frame, new String(frame.readBytes(4)));
+        System.out.printf("%s: %s\n", frame, frame.nioBuffers().length);
+        System.out.printf("%s\n", body.asReadOnly());
+    }
+
+    @Test
+    public void growthTest() {
+        ByteBuffer heap = ByteBuffer.allocate(16, GrowthPolicy.doubling(64 * IOUtils.MB));
+        ByteBuffer chunked = ByteBuffer.allocateChunked(ChunkedByteBuffer.DEFAULT_CHUNK_SIZE);
+
+        for (int i = 0; i < 1000000; i++) {
+            heap.writeInt(i);
+            chunked.writeInt(i);
+        }
+
+        System.out.println(heap);
+        System.out.println(chunked);
+    }
+
+    @Test
+    public void orderTest() {
+        ByteBuffer byteBuffer = ByteBuffer.allocate().order(ByteOrder.LITTLE_ENDIAN);
+        byteBuffer.writeInts(new int[] { 1, 2, 3 });
+        byteBuffer.writeDoubles(new double[] { 1.5, 2.5 });
+        byteBuffer.rewind();
+
+        System.out.printf("%s: %s\n", byteBuffer, byteBuffer.readByte());
+        byteBuffer.rewind();
+        System.out.printf("%s: %s\n", byteBuffer, Arrays.toString(byteBuffer.readInts(new int[3])));
+        System.out.printf("%s: %s\n", byteBuffer, Arrays.toString(byteBuffer.readDoubles(new double[2])));
+    }
+
+    @Test
+    public void varintTest() {
+        String text = "hello 世界";
+        ByteBuffer byteBuffer = ByteBuffer.allocate();
+        byteBuffer.writeVarInt(300);
+        byteBuffer.writeZigZagLong(-1);
+        byteBuffer.writeVarInt(ByteBuffer.utf8Length(text));
+        byteBuffer.writeUtf8(text);
+        byteBuffer.rewind();
+
+        System.out.printf("%s: %s\n", byteBuffer, byteBuffer.readVarInt());
+        System.out.printf("%s: %s\n", byteBuffer, byteBuffer.readZigZagLong());
+        System.out.printf("%s: %s\n", byteBuffer, byteBuffer.readUtf8(byteBuffer.readVarInt()));
+    }
+
+    @Test
+    public void ringTest() throws InterruptedException {
+        RingByteBuffer ring = RingByteBuffer.singleProducer(IOUtils.KB);
+
+        Thread producer = new Thread(() -> {
+            byte[] bytes = "hello ring".getBytes();
+            try {
+                for (int i = 0; i < 1000; i++)
+                    ring.put(bytes, 0, bytes.length);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        producer.start();
+
+        long total = 0;
+        byte[] buf = new byte[256];
+        while (total < 10000)
+            total += ring.take(buf, 0, buf.length);
+        producer.join();
+
+        java.nio.ByteBuffer claimed = ring.claim(4);
+        claimed.putInt(12138);
+        ring.commit(claimed);
+
+        System.out.printf("%s: %s\n", ring, total);
+    }
+
+    @Test
+    public void streamAdapterTest() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate();
+        int n = buffer.readFrom(new ByteArrayInputStream("hello stream".getBytes()), IOUtils.KB);
+        buffer.asWritableChannel().write(java.nio.ByteBuffer.wrap(" and channel".getBytes()));
+
+        buffer.rewind();
+        String text = new String(IOUtils.read(buffer.asInputStream()));
+        System.out.printf("read: %s, text: %s\n", n, text);
+    }
+
 }
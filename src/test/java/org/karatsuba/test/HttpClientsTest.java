@@ -26,10 +26,20 @@ package org.karatsuba.test;
 /* Creates on 2022/8/8. */
 
 import org.karatsuba.collection.Maps;
+import org.karatsuba.exception.HttpRequestException;
 import org.karatsuba.http.*;
+import org.karatsuba.io.ByteBuffer;
+import org.karatsuba.io.CompositeByteBuffer;
 import org.karatsuba.io.MutableFile;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okio.Buffer;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static org.karatsuba.io.IOUtils.stdout;
@@ -131,4 +141,181 @@ public class HttpClientsTest {
                 });
     }
 
+    @Test
+    public void connectionReuseTest() {
+        RequestConfigure configure = new RequestConfigure()
+                .setMaxIdleConnections(16)
+                .setKeepAliveDuration(TimeUnit.MINUTES.toMillis(1));
+
+        for (int i = 0; i < 10; i++)
+            HttpClient.get("http://127.0.0.1:8001/testing/user", configure);
+
+        System.out.printf("clients: %s, connections: %s, idle: %s\n", HttpClientPool.clientCount(),
+                HttpClientPool.connectionCount(), HttpClientPool.idleConnectionCount());
+    }
+
+    @Test
+    public void dispatcherLimitTest() throws InterruptedException {
+        RequestConfigure configure = new RequestConfigure()
+                .setMaxRequestsPerHost(2)
+                .setMaxQueuedRequests(8)
+                .setQueueTimeout(TimeUnit.SECONDS.toMillis(2))
+                .setRejectionPolicy(RequestConfigure.RejectionPolicy.ABORT);
+
+        for (int i = 0; i < 20; i++) {
+            HttpClient.open("GET", "http://127.0.0.1:8001/testing/async-call")
+                    .configure(configure)
+                    .newStreamCall(new StreamCallback() {
+                        @Override
+                        public void onFailure(Throwable e) {
+                            stdout.printf("请求被拒绝：%s\n", e.getMessage());
+                        }
+
+                        @Override
+                        public void onResponse(StreamResponse response) {
+                            response.close();
+                        }
+                    });
+        }
+
+        System.out.printf("queued: %s, rejected: %s\n", HttpClientPool.queuedCallsCount(), HttpClientPool.rejectedCount());
+        Thread.sleep(TimeUnit.SECONDS.toMillis(3));
+        System.out.printf("timed out: %s\n", HttpClientPool.timedOutCount());
+    }
+
+    @Test
+    public void executeAllTest() {
+        HttpClient.open("GET", "http://127.0.0.1:8001/testing/user")
+                .newCallAsync()
+                .thenAccept(response -> stdout.printf("异步请求成功：%s\n", response))
+                .join();
+
+        List<HttpClient> clients = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            clients.add(HttpClient.open("POST", "http://127.0.0.1:8001/testing/async-call")
+                    .setQueryArgumentsBuilder(new QueryArgumentsBuilder("sleep=1")));
+        }
+
+        long start = System.currentTimeMillis();
+        List<Response> responses = HttpClient.executeAll(clients, 32);
+        System.out.printf("responses: %s, elapsed: %sms\n", responses.size(), System.currentTimeMillis() - start);
+    }
+
+    public static class User {
+        public String id;
+        public String name;
+        public int age;
+    }
+
+    @Test
+    public void typedResponseTest() {
+        Response response = HttpClient.open("GET", "http://127.0.0.1:8001/testing/user").newCall();
+        User user = response.as(User.class);
+        System.out.printf("code: %s, user: %s\n", response.code(), user.name);
+
+        try (StreamResponse stream = HttpClient.open("GET", "http://127.0.0.1:8001/testing/users").newStreamCall();
+             JsonArrayIterator<User> users = stream.iterate(User.class)) {
+            int count = 0;
+            while (users.hasNext()) {
+                users.next();
+                count++;
+            }
+            System.out.printf("users: %s\n", count);
+        }
+    }
+
+    @Test
+    public void jsonArrayIteratorTest() {
+        /* 超过 8KB 读取缓冲区的字符串元素，跨越缓冲区边界，中间夹着转义的引号 */
+        StringBuilder large = new StringBuilder("[1, \"");
+        for (int i = 0; i < 10000; i++)
+            large.append(i % 100 == 0 ? "\\\"]," : "x");
+        large.append("\", 2]");
+
+        String[][] cases = {
+                { "[\"a,]}\\\"b\", {\"s\":\"}]\\\\\",\"n\":[1,[2,{\"x\":\",\"}]]}, [[],[1]], null]", "4" },
+                { "[]", "0" },
+                { " [ \t ] ", "0" },
+                { "[1,]", "error" },
+                { "[1,2", "error" },
+                { "[\"unterminated", "error" },
+                { "{\"error\":1}", "error" },
+                { large.toString(), "3" },
+        };
+
+        for (String[] c : cases) {
+            Response response = new Response(200, Headers.of(),
+                    ResponseBody.create(c[0], MediaType.get("application/json; charset=utf-8")));
+            List<Object> elements = new ArrayList<>();
+            String result;
+            try (JsonArrayIterator<Object> iterator = response.iterate(Object.class)) {
+                iterator.forEachRemaining(elements::add);
+                result = String.valueOf(elements.size());
+            } catch (HttpRequestException e) {
+                result = "error";
+            }
+            System.out.printf("-Test: iterate %s elements: %s, expected: %s\n",
+                    c[0].length() > 64 ? c[0].substring(0, 64) + "..." : c[0], result, c[1]);
+        }
+    }
+
+    @Test
+    public void bufferRequestBodyTest() throws Exception {
+        byte[] data = new byte[40000];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) i;
+
+        ByteBuffer[] buffers = {
+                ByteBuffer.allocate(),
+                ByteBuffer.allocateDirect(),
+                ByteBuffer.allocateChunked(4096),
+                new CompositeByteBuffer(ByteBuffer.wrap(data, 0, 10000), ByteBuffer.wrap(data, 10000, 30000)),
+        };
+
+        for (ByteBuffer buffer : buffers) {
+            if (!(buffer instanceof CompositeByteBuffer))
+                buffer.writeBytes(data);
+            /* 跳过前 5000 个字节，只写出可读的部分，跨越块和组件的边界 */
+            buffer.seekSet(5000);
+            Buffer sink = new Buffer();
+            RequestBodies.of(buffer, RequestBodies.OCTET_STREAM).writeTo(sink);
+            System.out.printf("-Test: %s body matches: %s, index: %s, expected: true, 5000\n",
+                    buffer.getClass().getSimpleName(),
+                    Arrays.equals(sink.readByteArray(), Arrays.copyOfRange(data, 5000, data.length)), buffer.index());
+            buffer.close();
+        }
+    }
+
+    @Test
+    public void streamingRequestBodyTest() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            User user = new User();
+            user.id = String.valueOf(i);
+            user.name = "user-" + i;
+            user.age = i % 100;
+            users.add(user);
+        }
+
+        /* 对象序列化为一份 UTF-8 字节，带有确定的 Content-Length */
+        Response response = HttpClient.open("POST", "http://127.0.0.1:8001/testing/users")
+                .addRequestBody(users)
+                .newCall();
+        System.out.printf("json code: %s\n", response.code());
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect();
+        buffer.writeBytes("hello world".getBytes());
+        buffer.seekSet(0);
+        response = HttpClient.open("PUT", "http://127.0.0.1:8001/testing/upload")
+                .addRequestBody(buffer)
+                .newCall();
+        System.out.printf("buffer code: %s, index: %s\n", response.code(), buffer.index());
+
+        MutableFile file = new MutableFile("pom.xml");
+        response = HttpClient.open("POST", "http://127.0.0.1:8001/testing/upload")
+                .addRequestBody(new MultipartBody("file", file))
+                .newCall();
+        System.out.printf("multipart code: %s, media type: %s\n", response.code(), RequestBodies.mediaType(file));
+    }
+
 }
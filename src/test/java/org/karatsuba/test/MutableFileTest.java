@@ -18,9 +18,35 @@ package org.karatsuba.test;
 |*                                                                                  *|
 \* -------------------------------------------------------------------------------- */
 
+import org.karatsuba.exception.IOReadException;
+import org.karatsuba.io.BufferedRandomAccessFile;
+import org.karatsuba.io.ByteBuffer;
+import org.karatsuba.io.CopyResult;
+import org.karatsuba.io.Durability;
+import org.karatsuba.io.IOUtils;
+import org.karatsuba.io.LineReader;
+import org.karatsuba.io.MappedByteBuffer;
+import org.karatsuba.io.PropertiesCache;
+import org.karatsuba.io.RecordLog;
+import org.karatsuba.io.TailReader;
+import org.karatsuba.io.WalkFilter;
 import org.karatsuba.io.MutableFile;
+import org.karatsuba.thread.ConcurrencyLimiter;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
 import static org.karatsuba.utils.Transformer.atos;
 
 @SuppressWarnings("ALL")
@@ -94,4 +120,316 @@ public class MutableFileTest {
         }
     }
 
+    /**
+     * 内存映射读写测试
+     */
+    @Test
+    public void mapTest() {
+        MutableFile mutableFile = new MutableFile(".dat");
+
+        try (MappedByteBuffer mappedByteBuffer = mutableFile.map(FileChannel.MapMode.READ_WRITE, 0, 64)) {
+            mappedByteBuffer.writeInt(1001);
+            mappedByteBuffer.writeLong(1002L);
+            mappedByteBuffer.force();
+
+            mappedByteBuffer.rewind();
+            System.out.printf("----------------------------------------------------\n");
+            System.out.printf("mapped buffer read int: %s\n", mappedByteBuffer.readInt());
+            System.out.printf("mapped buffer read long: %s\n", mappedByteBuffer.readLong());
+            System.out.printf("----------------------------------------------------\n");
+        }
+
+        mutableFile.forceDelete();
+    }
+
+    /**
+     * 写时复制映射测试，修改不会写回文件
+     */
+    @Test
+    public void mapPrivateTest() throws Exception {
+        MutableFile mutableFile = new MutableFile(".private.dat");
+        IOUtils.write(new ByteArrayInputStream(new byte[64]), mutableFile);
+
+        try (MappedByteBuffer mappedByteBuffer = mutableFile.map(FileChannel.MapMode.PRIVATE, 0, 64)) {
+            mappedByteBuffer.writeInt(1001);
+            mappedByteBuffer.rewind();
+            System.out.printf("-Test: private mapping read int: %s, expected: 1001\n", mappedByteBuffer.readInt());
+        }
+
+        System.out.printf("-Test: file unchanged after private write: %s, expected: true\n",
+                Arrays.equals(Files.readAllBytes(mutableFile.toPath()), new byte[64]));
+
+        mutableFile.forceDelete();
+    }
+
+    @Test
+    public void copyToTest() {
+        MutableFile source = new MutableFile(".copy-source.dat");
+        MutableFile target = new MutableFile(".copy-target.dat");
+        IOUtils.write(new ByteArrayInputStream(new byte[4 * IOUtils.MB]), source);
+
+        CopyResult result = source.copyTo(target, (transferred, total) ->
+                System.out.printf("copy progress: %s/%s\n", transferred, total));
+        System.out.printf("%s, target length: %s\n", result, target.length());
+
+        source.forceDelete();
+        target.forceDelete();
+    }
+
+    @Test
+    public void copyStreamTest() {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        CopyResult result = IOUtils.copy(new ByteArrayInputStream(new byte[IOUtils.MB]), output);
+        System.out.printf("%s, output size: %s\n", result, output.size());
+    }
+
+    @Test
+    public void asyncTest() throws Exception {
+        MutableFile mutableFile = new MutableFile(".async.dat");
+
+        ByteBuffer byteBuffer = ByteBuffer.allocate();
+        for (int i = 0; i < 1024; i++)
+            byteBuffer.writeInt(i);
+        byteBuffer.rewind();
+        System.out.printf("write async: %s\n", mutableFile.writeAsync(0, byteBuffer).get());
+
+        List<Supplier<CompletableFuture<ByteBuffer>>> reads = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            long position = i * 4L;
+            reads.add(() -> mutableFile.readAsync(position, 4));
+        }
+        List<ByteBuffer> results = ConcurrencyLimiter.all(reads, 16).get();
+        System.out.printf("read async: %s\n", results.get(1023).readInt());
+
+        mutableFile.closeAsync();
+        mutableFile.forceDelete();
+    }
+
+    @Test
+    public void parallelRangesTest() {
+        MutableFile mutableFile = new MutableFile(".ranges.txt");
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 100000; i++)
+            text.append("line ").append(i).append('\n');
+        IOUtils.write(new ByteArrayInputStream(text.toString().getBytes()), mutableFile);
+
+        AtomicLong lines = new AtomicLong();
+        int ranges = mutableFile.parallelRanges(64 * IOUtils.KB, (byte) '\n', (offset, range) -> {
+            int count = 0;
+            while (range.readableBytes() > 0) {
+                if (range.readByte() == '\n')
+                    count++;
+            }
+            lines.addAndGet(count);
+        });
+        System.out.printf("ranges: %s, lines: %s\n", ranges, lines);
+
+        mutableFile.forceDelete();
+    }
+
+    @Test
+    public void linesTest() {
+        MutableFile mutableFile = new MutableFile(".lines.txt");
+        IOUtils.write(new ByteArrayInputStream("INFO start\r\nERROR 错误\nINFO end".getBytes()), mutableFile);
+
+        try (LineReader reader = mutableFile.lines()) {
+            for (LineReader.Line line : reader)
+                System.out.printf("line: %s, bytes: %s, chars: %s\n", line, line.byteLength(), line.length());
+        }
+
+        long errors = mutableFile.forEachLine(line -> {
+            if (line.charAt(0) == 'E')
+                System.out.printf("error line: %s\n", line);
+        });
+        System.out.printf("lines: %s\n", errors);
+
+        mutableFile.forEachLineBytes((b, off, len) -> System.out.printf("byte line length: %s\n", len));
+        mutableFile.forceDelete();
+    }
+
+    @Test
+    public void walkTest() {
+        MutableFile dir = new MutableFile(".walk");
+        for (int i = 0; i < 100; i++) {
+            MutableFile child = new MutableFile(dir, "sub" + (i % 10) + "/file" + i + (i % 2 == 0 ? ".tmp" : ".log"));
+            child.getParentFile().mkdirs();
+            IOUtils.write(new ByteArrayInputStream(new byte[i]), child);
+        }
+
+        AtomicLong count = new AtomicLong();
+        long visited = dir.walk(new WalkFilter().glob("*.tmp").minSize(50), (path, attrs) -> count.incrementAndGet(), 4);
+        System.out.printf("visited: %s, count: %s, size: %s\n", visited, count, dir.sizeOf());
+        System.out.printf("delete: %s\n", dir.forceDelete());
+    }
+
+    @Test
+    public void forceDeleteSymlinkTest() throws Exception {
+        MutableFile target = new MutableFile(".symlink-target");
+        MutableFile keep = new MutableFile(target, "keep.txt");
+        target.mkdirs();
+        IOUtils.write(new ByteArrayInputStream("keep".getBytes()), keep);
+
+        MutableFile link = new MutableFile(".symlink");
+        MutableFile nested = new MutableFile(".symlink-dir");
+        nested.mkdirs();
+        Files.createSymbolicLink(link.toPath(), target.getAbsoluteFile().toPath());
+        Files.createSymbolicLink(new MutableFile(nested, "link").toPath(), target.getAbsoluteFile().toPath());
+
+        System.out.printf("delete link: %s, link exists: %s, target kept: %s\n",
+                link.forceDelete(), Files.exists(link.toPath(), LinkOption.NOFOLLOW_LINKS), keep.exists());
+        System.out.printf("delete dir with link: %s, target kept: %s\n", nested.forceDelete(), keep.exists());
+
+        target.forceDelete();
+    }
+
+    @Test
+    public void openBufferedTest() {
+        MutableFile mutableFile = new MutableFile(".buffered.dat");
+        mutableFile.openBuffered(Durability.ON_CLOSE);
+
+        for (int i = 0; i < 10000; i++) {
+            mutableFile.seek((i * 7919L) % 10000 * Long.BYTES);
+            mutableFile.writeLong(i);
+        }
+        mutableFile.fsync();
+
+        mutableFile.seek(7919L * Long.BYTES);
+        System.out.printf("buffered read long: %s\n", mutableFile.readLong());
+        mutableFile.close();
+
+        mutableFile.forceDelete();
+    }
+
+    @Test
+    public void bufferedWriteBytesTest() throws Exception {
+        MutableFile mutableFile = new MutableFile(".buffered-bytes.dat");
+
+        /* writeBytes/writeChars 和其他写入一样经过页缓存，使用同一个读写位置 */
+        try (BufferedRandomAccessFile file = new BufferedRandomAccessFile(mutableFile, "rw",
+                16, 2, Durability.NONE, 0)) {
+            file.writeInt(1001);
+            file.writeBytes("hello\n");
+            file.writeChars("jstl");
+            file.seek(0);
+            System.out.printf("-Test: buffered read: %s %s %s%s%s%s, expected: 1001 hello jstl\n", file.readInt(),
+                    file.readLine(), file.readChar(), file.readChar(), file.readChar(), file.readChar());
+        }
+        System.out.printf("-Test: file length: %s, expected: 18\n", mutableFile.length());
+
+        mutableFile.forceDelete();
+    }
+
+    @Test
+    public void recordLogTest() {
+        MutableFile mutableFile = new MutableFile(".record.log");
+
+        try (RecordLog log = new RecordLog(mutableFile)) {
+            List<CompletableFuture<Long>> futures = new ArrayList<>();
+            for (int i = 0; i < 1000; i++)
+                futures.add(log.append(("record " + i).getBytes()));
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+            System.out.println(log);
+        }
+
+        long end = RecordLog.read(mutableFile, (offset, record) -> {
+            if (offset == 0)
+                System.out.printf("first record: %s\n", record.readUtf8(record.readableBytes()));
+        });
+        System.out.printf("log end: %s\n", end);
+
+        mutableFile.forceDelete();
+    }
+
+    @Test
+    public void recordLogRecoveryTest() throws Exception {
+        MutableFile mutableFile = new MutableFile(".record-recovery.log");
+
+        try (RecordLog log = new RecordLog(mutableFile)) {
+            for (int i = 0; i < 3; i++)
+                log.append(("record " + i).getBytes()).join();
+        }
+        byte[] valid = Files.readAllBytes(mutableFile.toPath());
+        int frame = valid.length / 3;
+
+        /* 末尾半条记录：read 忽略但不修改文件，recover 截断 */
+        byte[] torn = Arrays.copyOf(valid, valid.length + frame / 2);
+        System.arraycopy(valid, 0, torn, valid.length, frame / 2);
+        Files.write(mutableFile.toPath(), torn);
+        System.out.printf("-Test: read torn tail: %s, file length: %s, expected: %s, %s\n",
+                RecordLog.read(mutableFile, null), mutableFile.length(), valid.length, torn.length);
+        System.out.printf("-Test: recover torn tail: %s, file length: %s, expected: %s\n",
+                RecordLog.recover(mutableFile, null), mutableFile.length(), valid.length);
+
+        /* 中间记录损坏：不截断后面的有效记录，抛出异常 */
+        byte[] corrupt = valid.clone();
+        corrupt[frame + RecordLog.HEADER_SIZE] ^= 0x7F;
+        Files.write(mutableFile.toPath(), corrupt);
+        String result;
+        try {
+            RecordLog.recover(mutableFile, null);
+            result = "recovered";
+        } catch (IOReadException e) {
+            result = "error";
+        }
+        System.out.printf("-Test: recover corrupt middle: %s, file length: %s, expected: error, %s\n",
+                result, mutableFile.length(), valid.length);
+
+        mutableFile.forceDelete();
+    }
+
+    @Test
+    public void propertiesCacheTest() throws Exception {
+        MutableFile mutableFile = new MutableFile(".cache.properties");
+        IOUtils.write(new ByteArrayInputStream("name=jstl\n".getBytes()), mutableFile);
+
+        try (PropertiesCache cache = new PropertiesCache(50)) {
+            System.out.printf("name: %s\n", cache.get(mutableFile).getProperty("name"));
+
+            IOUtils.write(new ByteArrayInputStream("name=karatsuba\n".getBytes()), mutableFile);
+            Thread.sleep(500);
+
+            System.out.printf("name: %s, reloads: %s\n", cache.get(mutableFile).getProperty("name"),
+                    cache.reloadCount(mutableFile));
+        }
+
+        mutableFile.forceDelete();
+    }
+
+    @Test
+    public void gzipTest() throws Exception {
+        MutableFile mutableFile = new MutableFile(".export.gz");
+
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 200000; i++)
+            builder.append("line ").append(i).append('\n');
+        IOUtils.writeGzip(new ByteArrayInputStream(builder.toString().getBytes()), mutableFile);
+
+        try (InputStream input = mutableFile.openGzipReader()) {
+            String text = new String(IOUtils.read(input));
+            System.out.printf("gzip size: %s, text size: %s, equals: %s\n", mutableFile.length(),
+                    text.length(), text.contentEquals(builder));
+        }
+
+        mutableFile.forceDelete();
+    }
+
+    @Test
+    public void tailTest() throws Exception {
+        MutableFile mutableFile = new MutableFile(".tail.log");
+        MutableFile checkpoint = new MutableFile(".tail.checkpoint");
+        IOUtils.write(new ByteArrayInputStream("line 1\nline 2\nline".getBytes()), mutableFile);
+
+        try (TailReader reader = mutableFile.tail(checkpoint)) {
+            reader.poll((offset, range) -> System.out.printf("tail %s: %s", offset, range.readUtf8(range.readableBytes())));
+            System.out.println(reader);
+        }
+
+        try (TailReader reader = mutableFile.tail(checkpoint)) {
+            System.out.printf("resume position: %s\n", reader.poll((offset, range) -> { }) + reader.position());
+        }
+
+        mutableFile.forceDelete();
+        checkpoint.forceDelete();
+    }
+
 }